@@ -16,20 +16,28 @@
 
 package com.lmax.nanofix.integration;
 
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.lmax.nanofix.FixClient;
+import com.lmax.nanofix.FixClientConfiguration;
 import com.lmax.nanofix.FixClientFactory;
+import com.lmax.nanofix.concurrent.WaitStrategy;
 import com.lmax.nanofix.integration.fixture.IntegrationSocketFactory;
 import com.lmax.nanofix.integration.fixture.SignallingConnectionObserver;
+import com.lmax.nanofix.outgoing.SendQueueFullPolicy;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class FixClientLifecycleTest {
     @Test
@@ -67,9 +75,31 @@ public class FixClientLifecycleTest {
         fixClient.close();
     }
 
+    @Test
+    public void shouldStopDispatcherAndWriterThreadsOnShutdown() {
+        final Set<Thread> existingThreads = liveThreadsNamed("inboundDispatcher", "outboundWriter");
+        final FixClient fixClient = FixClientFactory.createFixClient(FixClientConfiguration.createInitiatingFixClient("localhost", 9990)
+                                                                             .asyncDispatch(8, WaitStrategy.PARK)
+                                                                             .asyncSend(1024, SendQueueFullPolicy.BLOCK));
+        final Set<Thread> clientThreads = liveThreadsNamed("inboundDispatcher", "outboundWriter");
+        clientThreads.removeAll(existingThreads);
+        assertEquals(2, clientThreads.size());
+
+        fixClient.pauseMessageConsumer();
+        fixClient.shutdown();
+
+        assertTrue(clientThreads.stream().noneMatch(Thread::isAlive));
+    }
+
     @Test
     public void shouldReportAnUnconnectedFixClientAsNotConnected() {
         final FixClient fixClient = FixClientFactory.createFixClient(new IntegrationSocketFactory(null, null));
         assertFalse(fixClient.isConnected());
     }
+
+    private static Set<Thread> liveThreadsNamed(final String... namePrefixes) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.isAlive() && Stream.of(namePrefixes).anyMatch(thread.getName()::startsWith))
+                .collect(Collectors.toSet());
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.integration;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.lmax.nanofix.FixClient;
+import com.lmax.nanofix.FixClientConfiguration;
+import com.lmax.nanofix.FixClientFactory;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.metrics.FixClientMetrics;
+import com.lmax.nanofix.outgoing.FixMessage;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FixClientMetricsIntegrationTest {
+
+    @Test
+    public void shouldCountMessagesAndBytesInBothDirections() throws Exception {
+        final FixMessage testRequest = new FixMessageBuilder().messageType(MsgType.TEST_REQUEST).msgSeqNum(1).testReqId("metrics").build();
+        final ByteBuffer inbound = ByteBuffer.allocate(testRequest.length() * 2).put(testRequest.buffer()).put(testRequest.buffer()).flip();
+
+        try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+            serverSocketChannel.bind(new InetSocketAddress("localhost", 0));
+            final int port = ((InetSocketAddress)serverSocketChannel.getLocalAddress()).getPort();
+            final FixClient fixClient = FixClientFactory.createFixClient(FixClientConfiguration.createInitiatingFixClient("localhost", port));
+            final FixClientMetrics metrics = fixClient.getMetrics();
+            fixClient.connect();
+
+            try (SocketChannel acceptedSocket = serverSocketChannel.accept()) {
+                fixClient.send(testRequest);
+                fixClient.send(testRequest);
+                fixClient.send(testRequest);
+                final ByteBuffer received = ByteBuffer.allocate(testRequest.length() * 3);
+                while (received.hasRemaining()) {
+                    acceptedSocket.read(received);
+                }
+
+                // the second message arrives in two reads, so it has to be reassembled
+                final int split = testRequest.length() + 10;
+                acceptedSocket.write(inbound.limit(split));
+                awaitAtLeast(metrics::getMessagesIn, 1);
+                acceptedSocket.write(inbound.limit(inbound.capacity()));
+                awaitAtLeast(metrics::getMessagesIn, 2);
+            }
+
+            Assert.assertEquals(3, metrics.getMessagesOut());
+            Assert.assertEquals(testRequest.length() * 3L, metrics.getBytesOut());
+            Assert.assertEquals(2, metrics.getMessagesIn());
+            Assert.assertEquals(testRequest.length() * 2L, metrics.getBytesIn());
+            Assert.assertEquals(1, metrics.getFragmentsReassembled());
+            Assert.assertTrue(metrics.getReads() >= 2);
+            Assert.assertEquals(0, metrics.getParseErrors());
+            fixClient.close();
+        }
+    }
+
+    private static void awaitAtLeast(final LongSupplier counter, final long expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (counter.getAsLong() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
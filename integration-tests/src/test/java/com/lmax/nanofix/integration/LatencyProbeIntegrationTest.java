@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.integration;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.FixClient;
+import com.lmax.nanofix.FixClientConfiguration;
+import com.lmax.nanofix.FixClientFactory;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.latency.LatencyProbe;
+import com.lmax.nanofix.outgoing.FixMessage;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+import com.lmax.nanofix.outgoing.SendQueueFullPolicy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyProbeIntegrationTest {
+    private static final int ORDER_COUNT = 100;
+
+    @Test
+    public void shouldMatchEchoedOrdersToTheirWrites() throws Exception {
+        assertEveryOrderMatched(false);
+    }
+
+    @Test
+    public void shouldMatchEchoedOrdersWrittenFromTheSendQueue() throws Exception {
+        assertEveryOrderMatched(true);
+    }
+
+    private static void assertEveryOrderMatched(final boolean asyncSend) throws Exception {
+        final FixMessage[] orders = new FixMessage[ORDER_COUNT];
+        int totalBytes = 0;
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            orders[i] = new FixMessageBuilder().messageType(MsgType.NEW_ORDER_SINGLE).msgSeqNum(i + 1).clOrdID("order-" + i).symbol("EUR/USD").build();
+            totalBytes += orders[i].length();
+        }
+
+        try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+            serverSocketChannel.bind(new InetSocketAddress("localhost", 0));
+            final int port = ((InetSocketAddress)serverSocketChannel.getLocalAddress()).getPort();
+            final FixClientConfiguration configuration = FixClientConfiguration.createInitiatingFixClient("localhost", port);
+            if (asyncSend) {
+                configuration.asyncSend(64 * 1024, SendQueueFullPolicy.BLOCK);
+            }
+            final FixClient fixClient = FixClientFactory.createFixClient(configuration);
+            final LatencyProbe latencyProbe = new LatencyProbe();
+            fixClient.attachLatencyProbe(latencyProbe);
+            fixClient.connect();
+
+            try (SocketChannel acceptedSocket = serverSocketChannel.accept()) {
+                for (final FixMessage order : orders) {
+                    fixClient.send(order);
+                }
+                final ByteBuffer received = ByteBuffer.allocate(totalBytes);
+                while (received.hasRemaining()) {
+                    acceptedSocket.read(received);
+                }
+                // leave the last writes time to return before the replies arrive
+                Thread.sleep(100);
+                acceptedSocket.write(received.flip());
+
+                final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (latencyProbe.getMessagesMatched() < ORDER_COUNT && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+            }
+
+            Assert.assertEquals(ORDER_COUNT, latencyProbe.getMessagesStamped());
+            Assert.assertEquals(ORDER_COUNT, latencyProbe.getMessagesMatched());
+            Assert.assertEquals(0, latencyProbe.getOutstanding());
+            fixClient.close();
+        }
+    }
+}
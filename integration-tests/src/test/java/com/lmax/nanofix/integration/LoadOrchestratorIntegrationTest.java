@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.integration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.lmax.nanofix.FixClient;
+import com.lmax.nanofix.FixClientConfiguration;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.fields.Tags;
+import com.lmax.nanofix.load.AggregateLoadReport;
+import com.lmax.nanofix.load.LoadOrchestrator;
+import com.lmax.nanofix.load.LoadReport;
+import com.lmax.nanofix.load.RateSchedule;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+import com.lmax.nanofix.outgoing.FixMessageTemplate;
+import com.lmax.nanofix.outgoing.SendQueueFullPolicy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LoadOrchestratorIntegrationTest {
+    private static final int SESSION_COUNT = 3;
+
+    @Test
+    public void shouldLogOnEverySessionAndShareTheLoadBetweenThem() throws Exception {
+        try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+            serverSocketChannel.bind(new InetSocketAddress("localhost", 0));
+            final int port = ((InetSocketAddress)serverSocketChannel.getLocalAddress()).getPort();
+            final Thread venue = new Thread(() -> echoEveryConnection(serverSocketChannel), "echoVenue");
+            venue.setDaemon(true);
+            venue.start();
+
+            try (LoadOrchestrator orchestrator = new LoadOrchestrator("localhost", port, SESSION_COUNT, LoadOrchestratorIntegrationTest::orders)
+                    .compIDs(session -> "LOAD" + session, session -> "ECHO")
+                    .connectRate(50)
+                    .responseLatency(Tags.ClOrdID.getTag(), 5, TimeUnit.SECONDS)
+                    .logon()) {
+                final AggregateLoadReport report = orchestrator.run(new RateSchedule().constant(3000, 100, TimeUnit.MILLISECONDS));
+
+                Assert.assertEquals(SESSION_COUNT, report.getSessionReports().size());
+                Assert.assertEquals("LOAD2", report.getSessionNames().get(2));
+                for (final LoadReport sessionReport : report.getSessionReports()) {
+                    Assert.assertEquals(100, sessionReport.getMessagesSent());
+                    Assert.assertEquals(100, sessionReport.getResponseLatency().getTotalCount());
+                }
+                Assert.assertEquals(300, report.getTotal().getMessagesSent());
+                Assert.assertEquals(300, report.getTotal().getResponseLatency().getTotalCount());
+            }
+        }
+    }
+
+    @Test
+    public void shouldStopEverySessionWhenOneFails() throws Exception {
+        try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+            serverSocketChannel.bind(new InetSocketAddress("localhost", 0));
+            final int port = ((InetSocketAddress)serverSocketChannel.getLocalAddress()).getPort();
+            final Thread venue = new Thread(() -> echoEveryConnection(serverSocketChannel), "echoVenue");
+            venue.setDaemon(true);
+            venue.start();
+
+            // the first session's orders are too large for its send queue, so its first send throws
+            try (LoadOrchestrator orchestrator = new LoadOrchestrator(SESSION_COUNT, session -> session == 0
+                    ? FixClientConfiguration.createInitiatingFixClient("localhost", port).asyncSend(256, SendQueueFullPolicy.FAIL)
+                    : FixClientConfiguration.createInitiatingFixClient("localhost", port), LoadOrchestratorIntegrationTest::largeOrdersForFirstSession)
+                    .compIDs(session -> "LOAD" + session, session -> "ECHO")
+                    .logon()) {
+                try {
+                    orchestrator.run(new RateSchedule().constant(3000, 10, TimeUnit.SECONDS));
+                    Assert.fail("Expected the first session's run to fail");
+                } catch (final IllegalArgumentException e) {
+                    // expected
+                }
+
+                final FixClient otherSession = orchestrator.getFixClients().get(1);
+                final long messagesOut = otherSession.getMetrics().getMessagesOut();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                Assert.assertEquals(messagesOut, otherSession.getMetrics().getMessagesOut());
+                Assert.assertTrue(otherSession.isConnected());
+            }
+        }
+    }
+
+    private static FixMessageTemplate[] largeOrdersForFirstSession(final int session, final String senderCompID, final String targetCompID) {
+        if (session != 0) {
+            return orders(session, senderCompID, targetCompID);
+        }
+        return new FixMessageTemplate[]{
+                new FixMessageBuilder().messageType(MsgType.NEW_ORDER_SINGLE).senderCompID(senderCompID).targetCompID(targetCompID)
+                        .slot(34, 10).slot(52, 21).slot(11, 10).symbol("EUR/USD".repeat(50)).buildTemplate()
+        };
+    }
+
+    private static FixMessageTemplate[] orders(final int session, final String senderCompID, final String targetCompID) {
+        return new FixMessageTemplate[]{
+                new FixMessageBuilder().messageType(MsgType.NEW_ORDER_SINGLE).senderCompID(senderCompID).targetCompID(targetCompID)
+                        .slot(34, 10).slot(52, 21).slot(11, 10).symbol("EUR/USD").buildTemplate()
+        };
+    }
+
+    private static void echoEveryConnection(final ServerSocketChannel serverSocketChannel) {
+        try {
+            while (true) {
+                final SocketChannel socketChannel = serverSocketChannel.accept();
+                final Thread echo = new Thread(() -> echo(socketChannel), "echo");
+                echo.setDaemon(true);
+                echo.start();
+            }
+        } catch (IOException e) {
+            // closed at the end of the test
+        }
+    }
+
+    private static void echo(final SocketChannel socketChannel) {
+        final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (SocketChannel channel = socketChannel) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            // closed by the client
+        }
+    }
+}
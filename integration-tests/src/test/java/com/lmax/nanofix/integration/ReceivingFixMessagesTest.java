@@ -18,14 +18,18 @@ package com.lmax.nanofix.integration;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import com.lmax.nanofix.FixClient;
+import com.lmax.nanofix.FixClientConfiguration;
 import com.lmax.nanofix.FixClientFactory;
+import com.lmax.nanofix.concurrent.WaitStrategy;
 import com.lmax.nanofix.fields.MsgType;
 import com.lmax.nanofix.incoming.FixMessage;
 import com.lmax.nanofix.incoming.FixMessageHandler;
@@ -75,6 +79,35 @@ public class ReceivingFixMessagesTest {
         Assert.assertTrue(await);
     }
 
+    @Test
+    public void shouldGetFixMessagesThroughSmallDirectReadBuffer() throws Exception {
+        final Pipe pipe = Pipe.open();
+        pipe.sink().write(ByteBuffer.wrap(EXPECTED_MSG_1.getBytes()));
+        readableByteChannel = pipe.source();
+        final FixClient fixClient = FixClientFactory.createFixClient(FixClientConfiguration.createInitiatingFixClient("localhost", 0)
+                                                                             .socketFactory(new IntegrationSocketFactory(readableByteChannel, writableByteChannel))
+                                                                             .readBufferSize(16)
+                                                                             .directReadBuffer(true));
+        fixClient.subscribeToAllMessages(new AssertingFixMessageHandler(EXPECTED_MSG_1));
+        fixClient.connect();
+        final boolean await = countDownLatch.await(5, TimeUnit.SECONDS);
+        Assert.assertTrue(await);
+    }
+
+    @Test
+    public void shouldGetFixMessagesDispatchedOnAnotherThread() throws Exception {
+        final Pipe pipe = Pipe.open();
+        pipe.sink().write(ByteBuffer.wrap(EXPECTED_MSG_1.getBytes()));
+        readableByteChannel = pipe.source();
+        final FixClient fixClient = FixClientFactory.createFixClient(FixClientConfiguration.createInitiatingFixClient("localhost", 0)
+                                                                             .socketFactory(new IntegrationSocketFactory(readableByteChannel, writableByteChannel))
+                                                                             .asyncDispatch(8, WaitStrategy.PARK));
+        fixClient.subscribeToAllMessages(new AssertingFixMessageHandler(EXPECTED_MSG_1));
+        fixClient.connect();
+        final boolean await = countDownLatch.await(5, TimeUnit.SECONDS);
+        Assert.assertTrue(await);
+    }
+
     @Test
     public void shouldSendFixMessage() throws Exception {
         readableByteChannel = Channels.newChannel(new ByteArrayInputStream(new byte[0]));
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.integration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.lmax.nanofix.FixClient;
+import com.lmax.nanofix.FixClientConfiguration;
+import com.lmax.nanofix.FixClientFactory;
+import com.lmax.nanofix.concurrent.NamedThreadFactory;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+import com.lmax.nanofix.transport.ConnectionObserver;
+import com.lmax.nanofix.transport.SelectorEventLoop;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SelectorEventLoopIntegrationTest {
+    private static final int FIRST_PORT = 9991;
+    private static final int SESSION_COUNT = 8;
+
+    private final SelectorEventLoop eventLoop = new SelectorEventLoop(2, new NamedThreadFactory("eventLoop", true, null));
+
+    @After
+    public void tearDown() {
+        eventLoop.close();
+    }
+
+    @Test
+    public void shouldExchangeMessagesBetweenManySessionsSharingAnEventLoop() throws Exception {
+        final CountDownLatch acceptorsReceived = new CountDownLatch(SESSION_COUNT);
+        final CountDownLatch initiatorsReceived = new CountDownLatch(SESSION_COUNT);
+        final CountDownLatch acceptorsClosed = new CountDownLatch(SESSION_COUNT);
+
+        final List<FixClient> initiators = new ArrayList<>();
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            final FixClient acceptor = FixClientFactory.createFixClient(FixClientConfiguration.createListeningFixClient(FIRST_PORT + i).eventLoop(eventLoop));
+            acceptor.subscribeToAllMessages(fixMessage ->
+            {
+                acceptorsReceived.countDown();
+                acceptor.send(new FixMessageBuilder().messageType(MsgType.TEST_REQUEST).testReqId(fixMessage.getFirstValue(112)).build());
+            });
+            acceptor.registerTransportObserver(new ConnectionObserver() {
+                @Override
+                public void connectionEstablished() {
+                }
+
+                @Override
+                public void connectionClosed() {
+                    acceptorsClosed.countDown();
+                }
+            });
+            acceptor.listen();
+
+            final FixClient initiator = FixClientFactory.createFixClient(FixClientConfiguration.createInitiatingFixClient("localhost", FIRST_PORT + i).eventLoop(eventLoop));
+            final String testReqID = "session-" + i;
+            initiator.subscribeToAllMessages(fixMessage ->
+            {
+                if (testReqID.equals(fixMessage.getFirstValue(112))) {
+                    initiatorsReceived.countDown();
+                }
+            });
+            initiators.add(initiator);
+        }
+
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            final FixClient initiator = initiators.get(i);
+            Assert.assertTrue(initiator.connect(5, TimeUnit.SECONDS));
+            initiator.send(new FixMessageBuilder().messageType(MsgType.TEST_REQUEST).testReqId("session-" + i).build());
+        }
+
+        Assert.assertTrue(acceptorsReceived.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(initiatorsReceived.await(5, TimeUnit.SECONDS));
+
+        for (final FixClient initiator : initiators) {
+            initiator.close();
+        }
+        Assert.assertTrue(acceptorsClosed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldOnlyStopReadingThePausedSessionOfAnIoThread() throws Exception {
+        final SelectorEventLoop singleThreadEventLoop = new SelectorEventLoop(1, new NamedThreadFactory("singleEventLoop", true, null));
+        final byte[] testRequest = new FixMessageBuilder().messageType(MsgType.TEST_REQUEST).testReqId("paused").build().toFixString().getBytes(StandardCharsets.US_ASCII);
+        try (ServerSocketChannel pausedVenue = ServerSocketChannel.open(); ServerSocketChannel otherVenue = ServerSocketChannel.open()) {
+            pausedVenue.bind(new InetSocketAddress("localhost", 0));
+            otherVenue.bind(new InetSocketAddress("localhost", 0));
+            final AtomicInteger pausedReceived = new AtomicInteger();
+            final AtomicInteger otherReceived = new AtomicInteger();
+            final FixClient paused = connect(singleThreadEventLoop, pausedVenue, pausedReceived);
+            final FixClient other = connect(singleThreadEventLoop, otherVenue, otherReceived);
+            try (SocketChannel toPaused = pausedVenue.accept(); SocketChannel toOther = otherVenue.accept()) {
+                paused.pauseMessageConsumer();
+                toPaused.write(ByteBuffer.wrap(testRequest));
+                // gives the I/O thread time to see the paused session's bytes before the other session has any
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                toOther.write(ByteBuffer.wrap(testRequest));
+
+                awaitCount(otherReceived, 1);
+                Assert.assertEquals(0, pausedReceived.get());
+
+                paused.resumeMessageConsumer();
+                awaitCount(pausedReceived, 1);
+            }
+            paused.close();
+            other.close();
+        } finally {
+            singleThreadEventLoop.close();
+        }
+    }
+
+    @Test
+    public void shouldNotInterleaveMessagesSentFromManyThreadsWhenTheSendBufferFills() throws Exception {
+        final int threadCount = 4;
+        final int messagesPerThread = 1000;
+        final String[] messages = new String[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            messages[i] = new FixMessageBuilder().messageType(MsgType.TEST_REQUEST).testReqId(String.valueOf((char)('a' + i)).repeat(4000)).build().toFixString();
+        }
+        try (ServerSocketChannel venue = ServerSocketChannel.open()) {
+            venue.bind(new InetSocketAddress("localhost", 0));
+            final FixClient fixClient = connect(eventLoop, venue, new AtomicInteger());
+            try (SocketChannel accepted = venue.accept()) {
+                final List<Thread> senders = new ArrayList<>();
+                for (int i = 0; i < threadCount; i++) {
+                    final String message = messages[i];
+                    final Thread sender = new Thread(() ->
+                    {
+                        for (int n = 0; n < messagesPerThread; n++) {
+                            fixClient.send(message);
+                        }
+                    });
+                    senders.add(sender);
+                    sender.start();
+                }
+
+                // not reading yet fills the socket's buffers, so the senders' writes are partial
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                final int expectedLength = messages[0].length() * threadCount * messagesPerThread;
+                final ByteBuffer received = ByteBuffer.allocate(expectedLength);
+                while (received.hasRemaining()) {
+                    accepted.read(received);
+                }
+                for (final Thread sender : senders) {
+                    sender.join();
+                }
+
+                final String stream = new String(received.array(), StandardCharsets.US_ASCII);
+                for (int position = 0; position < expectedLength; position += messages[0].length()) {
+                    final int start = position;
+                    Assert.assertTrue("Interleaved message at " + start, Arrays.stream(messages).anyMatch(message -> stream.startsWith(message, start)));
+                }
+            }
+            fixClient.close();
+        }
+    }
+
+    private static FixClient connect(final SelectorEventLoop eventLoop, final ServerSocketChannel venue, final AtomicInteger received) throws IOException {
+        final int port = ((InetSocketAddress)venue.getLocalAddress()).getPort();
+        final FixClient fixClient = FixClientFactory.createFixClient(FixClientConfiguration.createInitiatingFixClient("localhost", port).eventLoop(eventLoop));
+        fixClient.subscribeToAllMessages(fixMessage -> received.incrementAndGet());
+        Assert.assertTrue(fixClient.connect(5, TimeUnit.SECONDS));
+        return fixClient;
+    }
+
+    private static void awaitCount(final AtomicInteger count, final int expected) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.get() < expected) {
+            Assert.assertTrue("Timed out waiting for " + expected + " messages", System.nanoTime() < deadline);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.integration;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.FixClient;
+import com.lmax.nanofix.FixClientConfiguration;
+import com.lmax.nanofix.FixClientFactory;
+import com.lmax.nanofix.concurrent.VirtualThreads;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+import com.lmax.nanofix.transport.ConnectionObserver;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class VirtualThreadsIntegrationTest {
+    private static final int SESSION_COUNT = 2000;
+
+    @Test
+    public void shouldReadThousandsOfSessionsOnVirtualThreads() throws Exception {
+        Assume.assumeTrue("Virtual threads need Java 21 or later", VirtualThreads.isSupported());
+
+        final byte[] testRequest = new FixMessageBuilder().messageType(MsgType.TEST_REQUEST).testReqId("loopback").build().toFixString().getBytes();
+        final List<SocketChannel> acceptedSockets = new ArrayList<>();
+        final List<FixClient> fixClients = new ArrayList<>();
+        final CountDownLatch messagesReceived = new CountDownLatch(SESSION_COUNT);
+        final CountDownLatch connectionsClosed = new CountDownLatch(SESSION_COUNT);
+
+        try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+            serverSocketChannel.bind(new InetSocketAddress("localhost", 0), SESSION_COUNT);
+            final int port = ((InetSocketAddress)serverSocketChannel.getLocalAddress()).getPort();
+
+            for (int i = 0; i < SESSION_COUNT; i++) {
+                final FixClient fixClient = FixClientFactory.createFixClient(FixClientConfiguration.createInitiatingFixClient("localhost", port).virtualThreads(true));
+                fixClient.subscribeToAllMessages(fixMessage -> messagesReceived.countDown());
+                fixClient.registerTransportObserver(new CountingConnectionObserver(connectionsClosed));
+                fixClient.connect();
+                fixClients.add(fixClient);
+
+                final SocketChannel acceptedSocket = serverSocketChannel.accept();
+                acceptedSocket.write(ByteBuffer.wrap(testRequest));
+                acceptedSockets.add(acceptedSocket);
+            }
+
+            Assert.assertTrue(messagesReceived.await(30, TimeUnit.SECONDS));
+        } finally {
+            for (final SocketChannel acceptedSocket : acceptedSockets) {
+                acceptedSocket.close();
+            }
+        }
+        Assert.assertTrue(connectionsClosed.await(30, TimeUnit.SECONDS));
+    }
+
+    private static final class CountingConnectionObserver implements ConnectionObserver {
+        private final CountDownLatch connectionsClosed;
+
+        private CountingConnectionObserver(final CountDownLatch connectionsClosed) {
+            this.connectionsClosed = connectionsClosed;
+        }
+
+        @Override
+        public void connectionEstablished() {
+        }
+
+        @Override
+        public void connectionClosed() {
+            connectionsClosed.countDown();
+        }
+    }
+}
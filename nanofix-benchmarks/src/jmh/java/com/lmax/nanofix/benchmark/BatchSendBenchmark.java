@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.benchmark;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.fields.Side;
+import com.lmax.nanofix.outgoing.FixMessage;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+import com.lmax.nanofix.outgoing.OutboundMessageHandler;
+import com.lmax.nanofix.transport.ConnectionObserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Sending a burst of NewOrderSingles through {@link OutboundMessageHandler#send(java.util.Collection)} to a channel that discards
+ * what it is given, against the previous approach of encoding every message twice into one combined array.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchSendBenchmark {
+    private static final ZonedDateTime SENDING_TIME = ZonedDateTime.of(LocalDateTime.of(2016, 1, 2, 3, 4, 5), ZoneOffset.UTC);
+
+    @Param({"10", "1000"})
+    private int batchSize;
+
+    private final DiscardingChannel channel = new DiscardingChannel();
+    private final OutboundMessageHandler handler = new OutboundMessageHandler(new NoOpConnectionObserver());
+    private List<FixMessage> messages;
+
+    @Setup
+    public void setUp() {
+        handler.initialiseOutboundChannel(channel);
+        messages = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            messages.add(new FixMessageBuilder()
+                                 .messageType(MsgType.NEW_ORDER_SINGLE)
+                                 .senderCompID("NANOFIX")
+                                 .targetCompID("GATEWAY")
+                                 .msgSeqNum(i + 1)
+                                 .sendingTime(SENDING_TIME)
+                                 .clOrdID("ord-" + i)
+                                 .symbol("EUR/USD")
+                                 .side(Side.Buy)
+                                 .orderQty(new BigDecimal("1000000"))
+                                 .price("1.46909")
+                                 .build());
+        }
+    }
+
+    @Benchmark
+    public long gatheringWrite() {
+        handler.send(messages);
+        return channel.bytesWritten;
+    }
+
+    @Benchmark
+    public long encodeTwiceAndCopy() throws Exception {
+        int totalBytes = 0;
+        for (final FixMessage message : messages) {
+            totalBytes += message.toFixString().getBytes().length;
+        }
+        final byte[] bytes = new byte[totalBytes];
+        int nextIndex = 0;
+        for (final FixMessage message : messages) {
+            final byte[] from = message.toFixString().getBytes();
+            System.arraycopy(from, 0, bytes, nextIndex, from.length);
+            nextIndex += from.length;
+        }
+        channel.write(ByteBuffer.wrap(bytes));
+        return channel.bytesWritten;
+    }
+
+    private static final class DiscardingChannel implements GatheringByteChannel {
+        private long bytesWritten;
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int offset, final int length) {
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                written += write(srcs[i]);
+            }
+            return written;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(final ByteBuffer src) {
+            final int remaining = src.remaining();
+            src.position(src.limit());
+            bytesWritten += remaining;
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class NoOpConnectionObserver implements ConnectionObserver {
+        @Override
+        public void connectionEstablished() {
+        }
+
+        @Override
+        public void connectionClosed() {
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.fields.Side;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+
+/**
+ * Representative inbound FIX messages shared by the benchmarks.
+ * Messages are produced with {@link FixMessageBuilder} so that BodyLength and CheckSum are always correct.
+ */
+final class BenchmarkMessages {
+    private static final ZonedDateTime SENDING_TIME = ZonedDateTime.of(LocalDateTime.of(2016, 1, 2, 3, 4, 5), ZoneOffset.UTC);
+
+    private BenchmarkMessages() {
+    }
+
+    static byte[] executionReport() {
+        final FixMessageBuilder builder = new FixMessageBuilder()
+                .messageType(MsgType.EXECUTION_REPORT)
+                .senderCompID("GATEWAY")
+                .targetCompID("NANOFIX")
+                .msgSeqNum(1048576)
+                .sendingTime(SENDING_TIME)
+                .append(37, "AAAPrQAAAAADi0g0")
+                .clOrdID("ord-000000000000001")
+                .append(17, "AAAPrQAAAAADi0g1")
+                .append(150, "F")
+                .append(39, "1")
+                .account("ACCOUNT-1234")
+                .securityID("4001")
+                .securityIDSource("8")
+                .symbol("EUR/USD")
+                .side(Side.Buy)
+                .append(38, "1000000")
+                .append(40, "2")
+                .append(44, "1.46909")
+                .timeInForce("0")
+                .append(32, "250000")
+                .append(31, "1.46908")
+                .append(151, "750000")
+                .append(14, "250000")
+                .append(6, "1.46908")
+                .transactionTime(SENDING_TIME)
+                .append(58, "Partially filled against resting liquidity");
+        return toBytes(builder);
+    }
+
+    static byte[] marketDataSnapshot() {
+        return marketDataSnapshot(2);
+    }
+
+    static byte[] marketDataSnapshot(final int entries) {
+        final FixMessageBuilder builder = new FixMessageBuilder("FIX.4.2")
+                .messageType(MsgType.MARKET_DATA_SNAPSHOT)
+                .senderCompID("LMXBL")
+                .targetCompID("user")
+                .msgSeqNum(56)
+                .sendingTime(SENDING_TIME)
+                .append(262, "123456")
+                .append(268, Integer.toString(entries));
+        for (int i = 0; i < entries; i++) {
+            builder.append(279, "1")
+                   .append(269, Integer.toString(i))
+                   .append(55, "XYZ")
+                   .append(48, "349857")
+                   .append(22, "8")
+                   .append(207, "LMAX")
+                   .append(270, "0.00009")
+                   .append(271, "63.7")
+                   .append(290, "1");
+        }
+        return toBytes(builder);
+    }
+
+    static byte[] repeat(final byte[] message, final int count) {
+        final byte[] bytes = new byte[message.length * count];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(message, 0, bytes, i * message.length, message.length);
+        }
+        return bytes;
+    }
+
+    static ByteBuffer[] split(final byte[] bytes, final int segmentSize) {
+        final int segmentCount = (bytes.length + segmentSize - 1) / segmentSize;
+        final ByteBuffer[] segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            final int offset = i * segmentSize;
+            final int length = Math.min(segmentSize, bytes.length - offset);
+            final ByteBuffer segment = ByteBuffer.allocate(length);
+            segment.put(bytes, offset, length);
+            segment.flip();
+            segments[i] = segment;
+        }
+        return segments;
+    }
+
+    private static byte[] toBytes(final FixMessageBuilder builder) {
+        return builder.build().toFixString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.incoming.FixStreamMessageParser;
+import com.lmax.nanofix.incoming.FramingMode;
+import com.lmax.nanofix.incoming.MessageParserCallback;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Framing only: {@link FixStreamMessageParser#parse(ByteBuffer)} with a callback that does no tag parsing.
+ * Each operation is one framed message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FixStreamMessageParserBenchmark {
+    static final int MESSAGES_PER_SEGMENT = 16;
+
+    @Param({"64", "256"})
+    public int segmentSize;
+
+    @Param({"SCAN", "BODY_LENGTH"})
+    public FramingMode framingMode;
+
+    private FixStreamMessageParser parser;
+    private ByteBuffer singleMessage;
+    private ByteBuffer manyMessages;
+    private ByteBuffer[] splitMessage;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        final byte[] executionReport = BenchmarkMessages.executionReport();
+        singleMessage = ByteBuffer.wrap(executionReport);
+        manyMessages = ByteBuffer.wrap(BenchmarkMessages.repeat(executionReport, MESSAGES_PER_SEGMENT));
+        splitMessage = BenchmarkMessages.split(executionReport, segmentSize);
+
+        parser = new FixStreamMessageParser(executionReport.length * MESSAGES_PER_SEGMENT, framingMode);
+        parser.initialise(new BlackholeMessageParserCallback(blackhole));
+    }
+
+    @Benchmark
+    public void singleMessagePerSegment() {
+        singleMessage.clear();
+        parser.parse(singleMessage);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_SEGMENT)
+    public void manyMessagesPerSegment() {
+        manyMessages.clear();
+        parser.parse(manyMessages);
+    }
+
+    @Benchmark
+    public void messageSplitAcrossSegments() {
+        for (final ByteBuffer segment : splitMessage) {
+            segment.clear();
+            parser.parse(segment);
+        }
+    }
+
+    private static final class BlackholeMessageParserCallback implements MessageParserCallback {
+        private final Blackhole blackhole;
+
+        BlackholeMessageParserCallback(final Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onMessage(final byte[] buffer, final int offset, final int length) {
+            blackhole.consume(buffer);
+            blackhole.consume(offset);
+            blackhole.consume(length);
+        }
+
+        @Override
+        public void onTruncatedMessage() {
+            blackhole.consume(true);
+        }
+
+        @Override
+        public void onParseError(final String error) {
+            blackhole.consume(error);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.incoming.FixMessageHandler;
+import com.lmax.nanofix.incoming.FixMessageStreamFactory;
+import com.lmax.nanofix.incoming.FixTagHandler;
+import com.lmax.nanofix.incoming.FixTagParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Tag level parsing of a single framed message, with and without materialising a
+ * {@link com.lmax.nanofix.incoming.FixMessage} through {@link FixMessageStreamFactory}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FixTagParserBenchmark {
+    private byte[] executionReport;
+    private byte[] marketDataSnapshot;
+    private FixTagParser tagOnlyParser;
+    private FixTagParser messageStreamFactoryParser;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        executionReport = BenchmarkMessages.executionReport();
+        marketDataSnapshot = BenchmarkMessages.marketDataSnapshot();
+        tagOnlyParser = new FixTagParser(new BlackholeFixTagHandler(blackhole));
+        final FixMessageHandler fixMessageHandler = blackhole::consume;
+        messageStreamFactoryParser = new FixTagParser(new FixMessageStreamFactory(fixMessageHandler));
+    }
+
+    @Benchmark
+    public boolean tagParserExecutionReport() {
+        return tagOnlyParser.parse(executionReport, 0, executionReport.length, true);
+    }
+
+    @Benchmark
+    public boolean tagParserMarketDataSnapshot() {
+        return tagOnlyParser.parse(marketDataSnapshot, 0, marketDataSnapshot.length, true);
+    }
+
+    @Benchmark
+    public boolean messageStreamFactoryExecutionReport() {
+        return messageStreamFactoryParser.parse(executionReport, 0, executionReport.length, true);
+    }
+
+    @Benchmark
+    public boolean messageStreamFactoryMarketDataSnapshot() {
+        return messageStreamFactoryParser.parse(marketDataSnapshot, 0, marketDataSnapshot.length, true);
+    }
+
+    private static final class BlackholeFixTagHandler implements FixTagHandler {
+        private final Blackhole blackhole;
+
+        BlackholeFixTagHandler(final Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void messageStart() {
+        }
+
+        @Override
+        public void onTag(final int tagIdentity, final byte[] message, final int tagValueOffset, final int tagValueLength) {
+            blackhole.consume(tagIdentity);
+            blackhole.consume(tagValueOffset);
+            blackhole.consume(tagValueLength);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return false;
+        }
+
+        @Override
+        public void messageEnd() {
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.byteoperations.Bits;
+import com.lmax.nanofix.incoming.FixMessageScanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Locating message boundaries with {@link FixMessageScanner} compared with the byte at a time scan it replaced
+ * in {@link com.lmax.nanofix.incoming.FixStreamMessageParser}. Each operation frames every message in a buffer of 16 messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameScanningBenchmark {
+    private static final int MESSAGES = 16;
+    private static final int MESSAGE_START = Bits.readInt(new byte[]{'8', '=', 'F', 'I'}, 0);
+    private static final int CHECKSUM_START = Bits.readInt(new byte[]{1, '1', '0', '='}, 0);
+
+    @Param({"executionReport", "marketDataSnapshot"})
+    public String message;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    private ByteBuffer heapBuffer;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        final byte[] bytes = BenchmarkMessages.repeat(
+                "executionReport".equals(message) ? BenchmarkMessages.executionReport() : BenchmarkMessages.marketDataSnapshot(40), MESSAGES);
+        heapBuffer = ByteBuffer.wrap(bytes);
+        buffer = direct ? ByteBuffer.allocateDirect(bytes.length).put(bytes).flip() : heapBuffer;
+    }
+
+    @Benchmark
+    public int swarScanner() {
+        final int limit = buffer.limit();
+        int framed = 0;
+        int pos = FixMessageScanner.indexOfMessageStart(buffer, 0, limit);
+        while (pos != -1) {
+            final int checksumStart = FixMessageScanner.indexOfChecksumStart(buffer, pos, limit);
+            if (checksumStart == -1) {
+                break;
+            }
+            framed++;
+            pos = FixMessageScanner.indexOfMessageStart(buffer, checksumStart + 4, limit);
+        }
+        return framed;
+    }
+
+    @Benchmark
+    public int byteAtATimeScanner() {
+        final byte[] bytes = heapBuffer.array();
+        final int limit = bytes.length;
+        int framed = 0;
+        int pos = byteAtATimeIndexOfMessageStart(bytes, 0, limit);
+        while (pos != -1) {
+            final int checksumStart = byteAtATimeIndexOfChecksumStart(bytes, pos, limit);
+            if (checksumStart == -1) {
+                break;
+            }
+            framed++;
+            pos = byteAtATimeIndexOfMessageStart(bytes, checksumStart + 4, limit);
+        }
+        return framed;
+    }
+
+    private static int byteAtATimeIndexOfMessageStart(final byte[] buffer, final int from, final int limit) {
+        for (int pos = from; pos < limit; pos++) {
+            if (pos + 4 < limit && MESSAGE_START == Bits.readInt(buffer, pos) && buffer[pos + 4] == 'X') {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private static int byteAtATimeIndexOfChecksumStart(final byte[] buffer, final int from, final int limit) {
+        for (int pos = from; pos < limit; pos++) {
+            if (pos + 3 < limit && CHECKSUM_START == Bits.readInt(buffer, pos)) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.incoming.FixMessageFlyweightHandler;
+import com.lmax.nanofix.incoming.FixMessageHandler;
+import com.lmax.nanofix.incoming.FixMessagePublisher;
+import com.lmax.nanofix.incoming.FixMessageStreamFactory;
+import com.lmax.nanofix.incoming.FixStreamMessageParser;
+import com.lmax.nanofix.incoming.FixTagParser;
+import com.lmax.nanofix.incoming.RawFixMessageHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The inbound pipeline as assembled by {@link com.lmax.nanofix.FixClientFactory}: framing, tag parsing,
+ * {@link com.lmax.nanofix.incoming.FixMessage} construction and publication to subscribers.
+ * Each operation is one message delivered to every subscriber, either decoded or as a
+ * {@link com.lmax.nanofix.incoming.FixMessageFlyweight}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InboundPipelineBenchmark {
+    private static final int MESSAGES_PER_SEGMENT = FixStreamMessageParserBenchmark.MESSAGES_PER_SEGMENT;
+
+    @Param({"64", "256"})
+    public int segmentSize;
+
+    @Param({"1", "4"})
+    public int subscribers;
+
+    @Param({"true", "false"})
+    public boolean flyweight;
+
+    private FixStreamMessageParser parser;
+    private ByteBuffer singleMessage;
+    private ByteBuffer manyMessages;
+    private ByteBuffer[] splitMessage;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        final byte[] executionReport = BenchmarkMessages.executionReport();
+        singleMessage = ByteBuffer.wrap(executionReport);
+        manyMessages = ByteBuffer.wrap(BenchmarkMessages.repeat(executionReport, MESSAGES_PER_SEGMENT));
+        splitMessage = BenchmarkMessages.split(executionReport, segmentSize);
+
+        final FixMessagePublisher fixMessagePublisher = new FixMessagePublisher();
+        final FixMessageHandler fixMessageHandler = fixMessage -> blackhole.consume(fixMessage.getFirstValue(11));
+        final FixMessageFlyweightHandler flyweightHandler = fixMessage -> blackhole.consume(fixMessage.getCharSequence(11));
+        for (int i = 0; i < subscribers; i++) {
+            if (flyweight) {
+                fixMessagePublisher.subscribeToAllFlyweights(flyweightHandler);
+            } else {
+                fixMessagePublisher.subscribeToAllMessages(fixMessageHandler);
+            }
+        }
+
+        parser = new FixStreamMessageParser(executionReport.length * MESSAGES_PER_SEGMENT);
+        parser.initialise(new RawFixMessageHandler(new FixTagParser(new FixMessageStreamFactory(fixMessagePublisher)), fixMessagePublisher));
+    }
+
+    @Benchmark
+    public void singleMessagePerSegment() {
+        singleMessage.clear();
+        parser.parse(singleMessage);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_SEGMENT)
+    public void manyMessagesPerSegment() {
+        manyMessages.clear();
+        parser.parse(manyMessages);
+    }
+
+    @Benchmark
+    public void messageSplitAcrossSegments() {
+        for (final ByteBuffer segment : splitMessage) {
+            segment.clear();
+            parser.parse(segment);
+        }
+    }
+}
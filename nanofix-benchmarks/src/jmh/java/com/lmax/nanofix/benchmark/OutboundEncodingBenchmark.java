@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.benchmark;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.FixUtil;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.fields.Side;
+import com.lmax.nanofix.outgoing.FixMessage;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+import com.lmax.nanofix.outgoing.FixMessageEncoder;
+import com.lmax.nanofix.outgoing.FixMessageTemplate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Encoding a NewOrderSingle into bytes ready to write to the channel, with {@link FixMessageBuilder}, with {@link FixMessageEncoder}
+ * and by filling the slots of a {@link FixMessageTemplate}, against resending a {@link FixMessage} that was built once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OutboundEncodingBenchmark {
+    private static final ZonedDateTime SENDING_TIME = ZonedDateTime.of(LocalDateTime.of(2016, 1, 2, 3, 4, 5), ZoneOffset.UTC);
+    private static final String SENDING_TIME_STRING = FixUtil.DATE_TIME_FORMATTER.format(SENDING_TIME);
+    private static final BigDecimal QUANTITY = new BigDecimal("1000000");
+
+    private final FixMessageEncoder encoder = new FixMessageEncoder("FIX.4.4", 512);
+    private final FixMessageTemplate template = new FixMessageBuilder()
+            .messageType(MsgType.NEW_ORDER_SINGLE)
+            .senderCompID("NANOFIX")
+            .targetCompID("GATEWAY")
+            .slot(34, 10)
+            .slot(52, 21)
+            .slot(11, 19)
+            .symbol("EUR/USD")
+            .side(Side.Buy)
+            .slot(38, 7)
+            .slot(44, 7)
+            .buildTemplate();
+    private final FixMessage prebuilt = new FixMessageBuilder()
+            .messageType(MsgType.NEW_ORDER_SINGLE)
+            .senderCompID("NANOFIX")
+            .targetCompID("GATEWAY")
+            .msgSeqNum(1)
+            .sendingTime(SENDING_TIME)
+            .clOrdID("ord-000000000000001")
+            .symbol("EUR/USD")
+            .side(Side.Buy)
+            .orderQty(QUANTITY)
+            .price("1.46909")
+            .build();
+    private final int msgSeqNumSlot = template.slot(34);
+    private final int sendingTimeSlot = template.slot(52);
+    private final int clOrdIDSlot = template.slot(11);
+    private final int orderQtySlot = template.slot(38);
+    private final int priceSlot = template.slot(44);
+    private int msgSeqNum;
+
+    @Setup
+    public void setUp() {
+        msgSeqNum = 1;
+    }
+
+    @Benchmark
+    public ByteBuffer builder() {
+        return new FixMessageBuilder()
+                .messageType(MsgType.NEW_ORDER_SINGLE)
+                .senderCompID("NANOFIX")
+                .targetCompID("GATEWAY")
+                .msgSeqNum(msgSeqNum++)
+                .sendingTime(SENDING_TIME)
+                .clOrdID("ord-000000000000001")
+                .symbol("EUR/USD")
+                .side(Side.Buy)
+                .orderQty(QUANTITY)
+                .price("1.46909")
+                .build()
+                .buffer();
+    }
+
+    @Benchmark
+    public ByteBuffer resend() {
+        return prebuilt.buffer();
+    }
+
+    @Benchmark
+    public ByteBuffer encoder() {
+        return encoder.begin()
+                .messageType(MsgType.NEW_ORDER_SINGLE)
+                .senderCompID("NANOFIX")
+                .targetCompID("GATEWAY")
+                .msgSeqNum(msgSeqNum++)
+                .append(52, SENDING_TIME_STRING)
+                .clOrdID("ord-000000000000001")
+                .symbol("EUR/USD")
+                .side(Side.Buy)
+                .orderQty(1000000)
+                .price("1.46909")
+                .finish();
+    }
+
+    @Benchmark
+    public ByteBuffer template() {
+        final int seqNum = msgSeqNum++;
+        return template
+                .putLong(msgSeqNumSlot, seqNum)
+                .put(sendingTimeSlot, SENDING_TIME_STRING)
+                .putLong(clOrdIDSlot, seqNum)
+                .putLong(orderQtySlot, 1000000)
+                .putDecimal(priceSlot, 146909, 5)
+                .buffer();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.benchmark;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.FixUtil;
+import com.lmax.nanofix.outgoing.TimestampPrecision;
+import com.lmax.nanofix.outgoing.UtcTimestampEncoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Writing a SendingTime for a clock advancing 10 microseconds per message, with {@link FixUtil#DATE_TIME_FORMATTER} and
+ * with {@link UtcTimestampEncoder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TimestampEncodingBenchmark {
+    private static final long TICK_NANOS = 10_000;
+
+    private final UtcTimestampEncoder encoder = new UtcTimestampEncoder();
+    private final byte[] buffer = new byte[32];
+    private long epochNanos;
+
+    @Setup
+    public void setUp() {
+        epochNanos = Instant.parse("2016-01-02T03:04:05Z").getEpochSecond() * 1_000_000_000L;
+    }
+
+    @Benchmark
+    public byte[] formatter() {
+        epochNanos += TICK_NANOS;
+        final ZonedDateTime sendingTime = ZonedDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), ZoneOffset.UTC);
+        return FixUtil.DATE_TIME_FORMATTER.format(sendingTime).getBytes();
+    }
+
+    @Benchmark
+    public byte[] encoderMillis() {
+        epochNanos += TICK_NANOS;
+        encoder.encodeEpochNanos(epochNanos, TimestampPrecision.MILLIS, buffer, 0);
+        return buffer;
+    }
+
+    @Benchmark
+    public byte[] encoderNanos() {
+        epochNanos += TICK_NANOS;
+        encoder.encodeEpochNanos(epochNanos, TimestampPrecision.NANOS, buffer, 0);
+        return buffer;
+    }
+}
@@ -17,6 +17,7 @@
 package com.lmax.nanofix;
 
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -24,6 +25,7 @@ import java.util.concurrent.TimeUnit;
 import com.lmax.nanofix.incoming.ByteChannelReader;
 import com.lmax.nanofix.outgoing.OutboundMessageHandler;
 import com.lmax.nanofix.transport.ConnectionObserver;
+import com.lmax.nanofix.transport.SelectorEventLoop;
 import com.lmax.nanofix.transport.Transport;
 
 import org.slf4j.Logger;
@@ -36,12 +38,25 @@ class ChannelInitializer implements ConnectionObserver {
     private final ByteChannelReader inputStreamReader;
     private final OutboundMessageHandler outboundMessageSender;
     private final Executor channelReaderExecutorService;
+    private final SelectorEventLoop eventLoop;
 
     private volatile CountDownLatch countDownLatch = new CountDownLatch(1);
+    private SelectorEventLoop.ReadRegistration readRegistration;
+    private boolean readingPaused;
 
 
     ChannelInitializer(final Transport transport, final ByteChannelReader inputStreamReader, final OutboundMessageHandler outboundMessageSender, Executor channelReaderExecutorService) {
+        this(transport, inputStreamReader, outboundMessageSender, channelReaderExecutorService, null);
+    }
+
+    ChannelInitializer(final Transport transport, final ByteChannelReader inputStreamReader, final OutboundMessageHandler outboundMessageSender, final SelectorEventLoop eventLoop) {
+        this(transport, inputStreamReader, outboundMessageSender, null, eventLoop);
+    }
+
+    private ChannelInitializer(final Transport transport, final ByteChannelReader inputStreamReader, final OutboundMessageHandler outboundMessageSender,
+                               final Executor channelReaderExecutorService, final SelectorEventLoop eventLoop) {
         this.channelReaderExecutorService = channelReaderExecutorService;
+        this.eventLoop = eventLoop;
         this.transport = transport;
         this.inputStreamReader = inputStreamReader;
         this.outboundMessageSender = outboundMessageSender;
@@ -50,6 +65,11 @@ class ChannelInitializer implements ConnectionObserver {
     @Override
     public void connectionEstablished() {
         outboundMessageSender.initialiseOutboundChannel(transport.getWritableByteChannel());
+        if (eventLoop != null) {
+            registerReader();
+            countDownLatch.countDown();
+            return;
+        }
         channelReaderExecutorService.execute(() -> {
             final ReadableByteChannel readableByteChannel = transport.getReadableByteChannel();
             try {
@@ -61,6 +81,31 @@ class ChannelInitializer implements ConnectionObserver {
         countDownLatch.countDown();
     }
 
+    private synchronized void registerReader() {
+        readRegistration = eventLoop.registerReader((SocketChannel)transport.getReadableByteChannel(), inputStreamReader::readAvailable);
+        if (readingPaused) {
+            readRegistration.pause();
+        }
+    }
+
+    /**
+     * Stops an event loop reading the channel, as its I/O thread can not wait for the reader to be resumed. A reader on a
+     * thread of its own waits in its {@link com.lmax.nanofix.concurrent.Blocker} instead.
+     */
+    synchronized void pauseReading() {
+        readingPaused = true;
+        if (readRegistration != null) {
+            readRegistration.pause();
+        }
+    }
+
+    synchronized void resumeReading() {
+        readingPaused = false;
+        if (readRegistration != null) {
+            readRegistration.resume();
+        }
+    }
+
     public void awaitConnection() throws InterruptedException {
         countDownLatch.await();
     }
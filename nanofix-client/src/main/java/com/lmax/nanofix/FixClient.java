@@ -16,13 +16,23 @@
 
 package com.lmax.nanofix;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 import com.lmax.nanofix.concurrent.ThreadBlocker;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.incoming.AsyncMessageDispatcher;
+import com.lmax.nanofix.incoming.FixMessageFlyweightHandler;
 import com.lmax.nanofix.incoming.FixMessageHandler;
 import com.lmax.nanofix.incoming.FixMessagePublisher;
+import com.lmax.nanofix.latency.LatencyProbe;
+import com.lmax.nanofix.metrics.FixClientMetrics;
 import com.lmax.nanofix.outgoing.FixMessage;
+import com.lmax.nanofix.outgoing.OutboundMessageHandler;
+import com.lmax.nanofix.outgoing.OutboundSendQueue;
+import com.lmax.nanofix.outgoing.SendQueueFullPolicy;
 import com.lmax.nanofix.transport.ConnectionObserver;
 import com.lmax.nanofix.transport.TransportOperations;
 
@@ -34,19 +44,30 @@ public class FixClient {
     private final ChannelInitializer channelInitializer;
     private final TransportOperations transportOps;
     private final FixSession fixSession;
+    private final OutboundMessageHandler outboundMessageSender;
     private final ThreadBlocker messageConsumingThreadBlocker;
+    private final AsyncMessageDispatcher asyncMessageDispatcher;
+    private final LongSupplier inboundDispatchOccupancy;
+    private final OutboundSendQueue sendQueue;
+    private final FixClientMetrics metrics;
 
     FixClient(final FixMessagePublisher fixMessagePublisher, final ChannelInitializer channelInitializer, final TransportOperations transportOps,
-              final FixSession fixSession, final ThreadBlocker messageConsumingThreadBlocker) {
+              final FixSession fixSession, final OutboundMessageHandler outboundMessageSender, final ThreadBlocker messageConsumingThreadBlocker,
+              final AsyncMessageDispatcher asyncMessageDispatcher, final LongSupplier inboundDispatchOccupancy, final OutboundSendQueue sendQueue, final FixClientMetrics metrics) {
         this.fixMessagePublisher = fixMessagePublisher;
         this.channelInitializer = channelInitializer;
         this.transportOps = transportOps;
         this.fixSession = fixSession;
+        this.outboundMessageSender = outboundMessageSender;
         this.messageConsumingThreadBlocker = messageConsumingThreadBlocker;
+        this.asyncMessageDispatcher = asyncMessageDispatcher;
+        this.inboundDispatchOccupancy = inboundDispatchOccupancy;
+        this.sendQueue = sendQueue;
+        this.metrics = metrics;
     }
 
     /**
-     * Sends a collection of FIX messages.
+     * Sends a collection of FIX messages, encoding each once and writing them together.
      *
      * @param messages a collection of messages.
      */
@@ -81,6 +102,42 @@ public class FixClient {
         fixSession.send(bytes);
     }
 
+    /**
+     * Sends the remaining bytes of a buffer, such as a message encoded with a {@link com.lmax.nanofix.outgoing.FixMessageEncoder}.
+     *
+     * @param buffer the bytes between the buffer's position and limit.
+     */
+    public void send(final ByteBuffer buffer) {
+        fixSession.send(buffer);
+    }
+
+    /**
+     * Sends the remaining bytes of several buffers in order, with a single gathering write where the transport supports it.
+     *
+     * @param buffers the bytes between each buffer's position and limit.
+     */
+    public void send(final ByteBuffer[] buffers) {
+        fixSession.send(buffers);
+    }
+
+    /**
+     * Sends like {@link #send(ByteBuffer)}, reporting whether the message was dropped.
+     *
+     * @return false if the {@link FixClientConfiguration#asyncSend send queue} was full and the message was dropped.
+     */
+    public boolean trySend(final ByteBuffer buffer) {
+        return fixSession.trySend(buffer);
+    }
+
+    /**
+     * Sends like {@link #send(ByteBuffer[])}, reporting whether the messages were dropped.
+     *
+     * @return false if the {@link FixClientConfiguration#asyncSend send queue} was full and the messages were dropped.
+     */
+    public boolean trySend(final ByteBuffer[] buffers) {
+        return fixSession.trySend(buffers);
+    }
+
     /**
      * Initiates a TCP connection with the remote host specified on construction.
      */
@@ -136,6 +193,25 @@ public class FixClient {
         transportOps.close();
     }
 
+    /**
+     * Closes the TCP socket and stops the threads started for {@link FixClientConfiguration#asyncDispatch}, once they have
+     * dispatched the messages already received, and for {@link FixClientConfiguration#asyncSend}, discarding any sends not
+     * yet written. The client cannot be used afterwards.
+     */
+    public void shutdown() {
+        transportOps.close();
+        messageConsumingThreadBlocker.resume();
+        try {
+            outboundMessageSender.stop();
+            if (asyncMessageDispatcher != null) {
+                asyncMessageDispatcher.halt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while stopping the client's threads");
+        }
+    }
+
     /**
      * Checks if the transport is connected.
      */
@@ -176,16 +252,100 @@ public class FixClient {
     }
 
     /**
-     * Stop reading messages from the transport's byte channel
+     * Subscribe to inbound messages of one type. Messages of types without subscribers are not decoded unless
+     * something is subscribed to all messages.
+     */
+    public void subscribeToMessageType(final MsgType msgType, final FixMessageHandler fixMessageHandler) {
+        fixMessagePublisher.subscribeToMessageType(msgType.getCode(), fixMessageHandler);
+    }
+
+    /**
+     * Subscribe to inbound messages of one type, given as the raw value of tag 35 MsgType.
+     */
+    public void subscribeToMessageType(final String msgType, final FixMessageHandler fixMessageHandler) {
+        fixMessagePublisher.subscribeToMessageType(msgType, fixMessageHandler);
+    }
+
+    /**
+     * Subscribe to all inbound messages, decoding only the given tags. Parsing of each message stops as soon as all of them
+     * have been seen, so correlating on a few header fields does not pay for decoding the whole message.
+     *
+     * @param tagIds the tags to decode, e.g. 35 MsgType, 34 MsgSeqNum and 11 ClOrdID.
+     */
+    public void subscribeToMessagesWithTags(final FixMessageHandler fixMessageHandler, final int... tagIds) {
+        fixMessagePublisher.subscribeToMessagesWithTags(fixMessageHandler, tagIds);
+    }
+
+    /**
+     * Subscribe to all inbound messages as reusable flyweights over the received bytes, without decoding them.
+     * The flyweight is only valid for the duration of the callback.
+     */
+    public void subscribeToAllFlyweights(final FixMessageFlyweightHandler fixMessageFlyweightHandler) {
+        fixMessagePublisher.subscribeToAllFlyweights(fixMessageFlyweightHandler);
+    }
+
+    /**
+     * Starts measuring the round trip latency of sent messages with the probe. The probe sees every message written from
+     * now on and every inbound message as a flyweight. Only the probe attached last is told about writes.
+     */
+    public void attachLatencyProbe(final LatencyProbe latencyProbe) {
+        fixSession.setWriteObserver(latencyProbe);
+        fixMessagePublisher.subscribeToAllFlyweights(latencyProbe);
+    }
+
+    /**
+     * Stop reading messages from the transport's byte channel, and with {@link FixClientConfiguration#asyncDispatch} stop
+     * dispatching the messages already read to subscribers.
      */
     public void pauseMessageConsumer() {
         messageConsumingThreadBlocker.pause();
+        channelInitializer.pauseReading();
     }
 
     /**
-     * Resume reading messages from the transport's byte channel
+     * Resume reading and dispatching messages from the transport's byte channel
      */
     public void resumeMessageConsumer() {
+        channelInitializer.resumeReading();
         messageConsumingThreadBlocker.resume();
     }
+
+    /**
+     * @return the number of received messages waiting to be dispatched to subscribers, always 0 unless
+     * {@link FixClientConfiguration#asyncDispatch} is configured.
+     */
+    public long getInboundDispatchOccupancy() {
+        return inboundDispatchOccupancy.getAsLong();
+    }
+
+    /**
+     * @return the number of messages sent but not yet completely written to the transport, always 0 unless
+     * {@link FixClientConfiguration#asyncSend} is configured.
+     */
+    public long getSendQueueDepth() {
+        return sendQueue == null ? 0 : sendQueue.getQueueDepth();
+    }
+
+    /**
+     * @return the number of bytes sent but not yet written to the transport, always 0 unless
+     * {@link FixClientConfiguration#asyncSend} is configured.
+     */
+    public long getSendQueueBytesPending() {
+        return sendQueue == null ? 0 : sendQueue.getBytesPending();
+    }
+
+    /**
+     * @return the number of messages discarded because the send queue was full, always 0 unless
+     * {@link FixClientConfiguration#asyncSend} is configured with {@link SendQueueFullPolicy#DROP}.
+     */
+    public long getSendQueueMessagesDropped() {
+        return sendQueue == null ? 0 : sendQueue.getMessagesDropped();
+    }
+
+    /**
+     * @return the counters of messages and bytes in and out, parse errors and time paused, which can be polled from any thread.
+     */
+    public FixClientMetrics getMetrics() {
+        return metrics;
+    }
 }
@@ -20,7 +20,13 @@ import java.net.InetSocketAddress;
 import java.util.concurrent.Executors;
 
 import com.lmax.nanofix.concurrent.NamedThreadFactory;
+import com.lmax.nanofix.concurrent.VirtualThreads;
+import com.lmax.nanofix.concurrent.WaitStrategy;
+import com.lmax.nanofix.incoming.ByteChannelReader;
+import com.lmax.nanofix.incoming.FramingMode;
+import com.lmax.nanofix.outgoing.SendQueueFullPolicy;
 import com.lmax.nanofix.transport.AsyncTcpSocketFactory;
+import com.lmax.nanofix.transport.SelectorEventLoop;
 import com.lmax.nanofix.transport.SocketFactory;
 
 public final class FixClientConfiguration {
@@ -28,6 +34,17 @@ public final class FixClientConfiguration {
     private SystemConfig systemConfig = new SystemConfig(false);
     private SocketFactory socketFactory = new AsyncTcpSocketFactory(Executors.newSingleThreadExecutor(new NamedThreadFactory("InboundConnection", true, FixClientFactory.UNCAUGHT_EXCEPTION_HANDLER)));
     private int maxMessageSize = 2000;
+    private int readBufferSize = ByteChannelReader.DEFAULT_BUFFER_SIZE;
+    private boolean directReadBuffer;
+    private FramingMode framingMode = FramingMode.SCAN;
+    private boolean verifyIntegrity;
+    private int dispatchRingSize;
+    private WaitStrategy dispatchWaitStrategy = WaitStrategy.PARK;
+    private int sendQueueCapacity;
+    private SendQueueFullPolicy sendQueueFullPolicy = SendQueueFullPolicy.BLOCK;
+    private SelectorEventLoop eventLoop;
+    private boolean virtualThreads;
+    private String metricsMBeanName;
 
     public static FixClientConfiguration createListeningFixClient(final int port) {
         return new FixClientConfiguration(port);
@@ -37,6 +54,14 @@ public final class FixClientConfiguration {
         return new FixClientConfiguration(host, port);
     }
 
+    static FixClientConfiguration defaultConfiguration(final InetSocketAddress socketAddress, final SocketFactory socketFactory) {
+        return new FixClientConfiguration(socketAddress).socketFactory(socketFactory);
+    }
+
+    private FixClientConfiguration(final InetSocketAddress socketAddress) {
+        this.socketAddress = socketAddress;
+    }
+
     /**
      * Listening fix client that will listen for inbound tcp connections on port
      *
@@ -78,6 +103,120 @@ public final class FixClientConfiguration {
         return this;
     }
 
+    /**
+     * @param readBufferSize Number of bytes requested from the socket by each read (in bytes). Larger buffers need fewer reads during bursts.
+     *                       Partially received messages are reassembled in the read buffer, so a size below {@link #maxMessageSize(int)} is
+     *                       raised to the max message size.
+     */
+    public FixClientConfiguration readBufferSize(final int readBufferSize) {
+        if (readBufferSize <= 0) {
+            throw new IllegalArgumentException("Read buffer size must be positive: " + readBufferSize);
+        }
+        this.readBufferSize = readBufferSize;
+        return this;
+    }
+
+    /**
+     * @param directReadBuffer when set to true, socket reads go into a direct buffer rather than a heap buffer,
+     *                         avoiding a copy inside the JDK on every read.
+     */
+    public FixClientConfiguration directReadBuffer(final boolean directReadBuffer) {
+        this.directReadBuffer = directReadBuffer;
+        return this;
+    }
+
+    /**
+     * @param framingMode how the end of each inbound message is found. {@link FramingMode#BODY_LENGTH} trusts well-formed
+     *                    BodyLength fields and falls back to scanning for malformed ones.
+     */
+    public FixClientConfiguration framingMode(final FramingMode framingMode) {
+        this.framingMode = framingMode;
+        return this;
+    }
+
+    /**
+     * @param verifyIntegrity when true, the BodyLength and CheckSum of every inbound message are checked, at the cost of an
+     *                        extra pass over its bytes, and reported by {@link com.lmax.nanofix.incoming.FixMessage#getIntegrity()}.
+     *                        Off by default.
+     */
+    public FixClientConfiguration verifyIntegrity(final boolean verifyIntegrity) {
+        this.verifyIntegrity = verifyIntegrity;
+        return this;
+    }
+
+    /**
+     * Dispatch inbound messages to subscribers on a separate thread, so slow handlers do not hold up reading from the socket.
+     * Framed messages are copied into a pre-allocated ring of max message size slots, and reading only waits once the ring is full.
+     *
+     * @param ringSize     the number of messages the ring holds, a power of two.
+     * @param waitStrategy how the dispatching thread waits for messages, and the reading thread for room in a full ring.
+     *                     {@link WaitStrategy#BUSY_SPIN} occupies a core for the lifetime of the client.
+     */
+    public FixClientConfiguration asyncDispatch(final int ringSize, final WaitStrategy waitStrategy) {
+        if (ringSize <= 0 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("Ring size must be a positive power of two: " + ringSize);
+        }
+        this.dispatchRingSize = ringSize;
+        this.dispatchWaitStrategy = waitStrategy;
+        return this;
+    }
+
+    /**
+     * Write outbound messages to the socket on a separate thread, so senders do not wait for the socket unless the queue fills up.
+     * Messages are copied into a pre-allocated ring of bytes, which must be at least as large as the largest message sent.
+     *
+     * @param queueCapacity the most bytes that can be waiting to be written (in bytes).
+     * @param fullPolicy    what a send does when the queue has no room for the message.
+     */
+    public FixClientConfiguration asyncSend(final int queueCapacity, final SendQueueFullPolicy fullPolicy) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Send queue capacity must be positive: " + queueCapacity);
+        }
+        this.sendQueueCapacity = queueCapacity;
+        this.sendQueueFullPolicy = fullPolicy;
+        return this;
+    }
+
+    /**
+     * Connect, accept and read on the I/O threads of a shared event loop, rather than on threads belonging to this client.
+     * Many clients can use one event loop. Pausing the message consumer of one of them stops its socket being read without
+     * holding up the other clients on the same I/O thread.
+     *
+     * @param eventLoop used instead of the socket factory, and instead of virtual threads, unless null.
+     */
+    public FixClientConfiguration eventLoop(final SelectorEventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+        return this;
+    }
+
+    /**
+     * Connect, accept and read on virtual threads, so clients keep their blocking style but thousands of them cost only a
+     * few platform threads. Needs a Java 21 or later runtime.
+     *
+     * @param virtualThreads when set to true, a socket factory that runs on virtual threads is used instead of the configured
+     *                       one. Ignored when an {@link #eventLoop(SelectorEventLoop) event loop} is configured.
+     * @throws UnsupportedOperationException if the runtime does not support virtual threads.
+     */
+    public FixClientConfiguration virtualThreads(final boolean virtualThreads) {
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later, running on " + Runtime.version());
+        }
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * Registers the client's {@link com.lmax.nanofix.metrics.FixClientMetrics} with the platform MBean server when it is
+     * created, as com.lmax.nanofix:type=FixClient,name=&lt;name&gt;. The registration outlives the connection, so remove it
+     * with {@link com.lmax.nanofix.metrics.FixClientMetrics#unregisterMBean()} when the client is finished with.
+     *
+     * @param name distinguishes this client from others in the same JVM, e.g. its SenderCompID.
+     */
+    public FixClientConfiguration metricsMBean(final String name) {
+        this.metricsMBeanName = name;
+        return this;
+    }
+
     public InetSocketAddress getSocketAddress() {
         return socketAddress;
     }
@@ -86,6 +225,10 @@ public final class FixClientConfiguration {
         return systemConfig;
     }
 
+    /**
+     * @return the socket factory set on this configuration, which {@link FixClientFactory} does not use when an event loop
+     * or virtual threads are configured.
+     */
     public SocketFactory getSocketFactory() {
         return socketFactory;
     }
@@ -93,4 +236,62 @@ public final class FixClientConfiguration {
     public int getMaxMessageSize() {
         return maxMessageSize;
     }
+
+    public int getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    public boolean isDirectReadBuffer() {
+        return directReadBuffer;
+    }
+
+    public FramingMode getFramingMode() {
+        return framingMode;
+    }
+
+    public boolean isVerifyIntegrity() {
+        return verifyIntegrity;
+    }
+
+    public boolean isAsyncDispatch() {
+        return dispatchRingSize != 0;
+    }
+
+    public int getDispatchRingSize() {
+        return dispatchRingSize;
+    }
+
+    public WaitStrategy getDispatchWaitStrategy() {
+        return dispatchWaitStrategy;
+    }
+
+    public boolean isAsyncSend() {
+        return sendQueueCapacity != 0;
+    }
+
+    public int getSendQueueCapacity() {
+        return sendQueueCapacity;
+    }
+
+    public SendQueueFullPolicy getSendQueueFullPolicy() {
+        return sendQueueFullPolicy;
+    }
+
+    /**
+     * @return the event loop reading this client's socket, or null when the client reads on its own thread.
+     */
+    public SelectorEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return the name to register the client's metrics under, or null when they are not exposed over JMX.
+     */
+    public String getMetricsMBeanName() {
+        return metricsMBeanName;
+    }
 }
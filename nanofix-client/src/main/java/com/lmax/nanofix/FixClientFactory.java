@@ -19,16 +19,22 @@ package com.lmax.nanofix;
 import java.net.InetSocketAddress;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
 
+import com.lmax.nanofix.concurrent.Blocker;
 import com.lmax.nanofix.concurrent.NamedThreadFactory;
 import com.lmax.nanofix.concurrent.ThreadBlocker;
+import com.lmax.nanofix.concurrent.VirtualThreads;
+import com.lmax.nanofix.incoming.AsyncMessageDispatcher;
 import com.lmax.nanofix.incoming.ByteChannelReader;
 import com.lmax.nanofix.incoming.FixMessagePublisher;
 import com.lmax.nanofix.incoming.FixMessageStreamFactory;
 import com.lmax.nanofix.incoming.FixStreamMessageParser;
 import com.lmax.nanofix.incoming.FixTagParser;
 import com.lmax.nanofix.incoming.RawFixMessageHandler;
+import com.lmax.nanofix.metrics.FixClientMetrics;
 import com.lmax.nanofix.outgoing.OutboundMessageHandler;
+import com.lmax.nanofix.outgoing.OutboundSendQueue;
 import com.lmax.nanofix.transport.AsyncTcpSocketFactory;
 import com.lmax.nanofix.transport.PublishingConnectionObserver;
 import com.lmax.nanofix.transport.SocketFactory;
@@ -87,7 +93,7 @@ public final class FixClientFactory {
         final PublishingConnectionObserver publishingTransportObserver = new PublishingConnectionObserver();
         final TcpTransport transport = new TcpTransport(publishingTransportObserver, null, socketFactory, new TransportConfigImpl(false));
         publishingTransportObserver.addObserver(transport);
-        return buildFixClient(transport, publishingTransportObserver, MAX_MESSAGE_SIZE);
+        return buildFixClient(transport, publishingTransportObserver, FixClientConfiguration.defaultConfiguration(null, socketFactory).maxMessageSize(MAX_MESSAGE_SIZE));
     }
 
     /**
@@ -97,14 +103,26 @@ public final class FixClientFactory {
      */
     public static FixClient createFixClient(final FixClientConfiguration fixClientConfiguration) {
         final InetSocketAddress socketAddress = fixClientConfiguration.getSocketAddress();
-        final SocketFactory socketFactory = fixClientConfiguration.getSocketFactory();
+        final SocketFactory socketFactory = resolveSocketFactory(fixClientConfiguration);
         final SystemConfig systemConfig = fixClientConfiguration.getSystemConfig();
-        final int maxMessageSize = fixClientConfiguration.getMaxMessageSize();
 
         final PublishingConnectionObserver publishingTransportObserver = new PublishingConnectionObserver();
         final TcpTransport transport = new TcpTransport(publishingTransportObserver, socketAddress, socketFactory, systemConfig);
         publishingTransportObserver.addObserver(transport);
-        return buildFixClient(transport, publishingTransportObserver, maxMessageSize);
+        return buildFixClient(transport, publishingTransportObserver, fixClientConfiguration);
+    }
+
+    /**
+     * An event loop takes precedence over virtual threads, which take precedence over the configured socket factory.
+     */
+    private static SocketFactory resolveSocketFactory(final FixClientConfiguration configuration) {
+        if (configuration.getEventLoop() != null) {
+            return configuration.getEventLoop();
+        }
+        if (configuration.isVirtualThreads()) {
+            return new AsyncTcpSocketFactory(VirtualThreads.newVirtualThreadPerTaskExecutor());
+        }
+        return configuration.getSocketFactory();
     }
 
     private static FixClient createFixClient(final InetSocketAddress socketAddress, final SystemConfig systemConfig) {
@@ -114,21 +132,68 @@ public final class FixClientFactory {
         final AsyncTcpSocketFactory asyncTcpSocketFactory = new AsyncTcpSocketFactory(executorService);
         final TcpTransport transport = new TcpTransport(publishingTransportObserver, socketAddress, asyncTcpSocketFactory, systemConfig);
         publishingTransportObserver.addObserver(transport);
-        return buildFixClient(transport, publishingTransportObserver, MAX_MESSAGE_SIZE);
+        return buildFixClient(transport, publishingTransportObserver,
+                              FixClientConfiguration.defaultConfiguration(socketAddress, asyncTcpSocketFactory).maxMessageSize(MAX_MESSAGE_SIZE));
     }
 
-    private static FixClient buildFixClient(final Transport transport, final PublishingConnectionObserver publishingTransportObserver, final int maxMessageSize) {
-        final FixStreamMessageParser fixStreamMessageParser = new FixStreamMessageParser(maxMessageSize);
+    private static FixClient buildFixClient(final Transport transport, final PublishingConnectionObserver publishingTransportObserver,
+                                            final FixClientConfiguration configuration) {
+        final int maxMessageSize = configuration.getMaxMessageSize();
+        final FixStreamMessageParser fixStreamMessageParser = new FixStreamMessageParser(maxMessageSize, configuration.getFramingMode(), true,
+                                                                                         configuration.isVerifyIntegrity());
         final ThreadBlocker messageConsumingThreadBlocker = new ThreadBlocker();
+        final FixClientMetrics metrics = new FixClientMetrics();
         final FixMessagePublisher fixMessagePublisher = new FixMessagePublisher();
-        fixStreamMessageParser.initialise(new RawFixMessageHandler(new FixTagParser(new FixMessageStreamFactory(fixMessagePublisher))));
-        final OutboundMessageHandler outboundMessageSender = new OutboundMessageHandler(publishingTransportObserver);
-
-        final ByteChannelReader inputStreamReader = new ByteChannelReader(fixStreamMessageParser, messageConsumingThreadBlocker, publishingTransportObserver);
-        final ExecutorService channelReaderExecutorService = Executors.newSingleThreadExecutor(new NamedThreadFactory("channelReader", true, UNCAUGHT_EXCEPTION_HANDLER));
-        final ChannelInitializer channelInitializer = new ChannelInitializer(transport, inputStreamReader, outboundMessageSender, channelReaderExecutorService);
+        final RawFixMessageHandler rawFixMessageHandler = new RawFixMessageHandler(new FixTagParser(new FixMessageStreamFactory(fixMessagePublisher)), fixMessagePublisher,
+                                                                                   metrics);
+        final AsyncMessageDispatcher asyncMessageDispatcher;
+        final LongSupplier inboundDispatchOccupancy;
+        if (configuration.isAsyncDispatch()) {
+            asyncMessageDispatcher = new AsyncMessageDispatcher(configuration.getDispatchRingSize(), maxMessageSize, configuration.getDispatchWaitStrategy(),
+                                                                messageConsumingThreadBlocker, new NamedThreadFactory("inboundDispatcher", true, UNCAUGHT_EXCEPTION_HANDLER),
+                                                                rawFixMessageHandler);
+            asyncMessageDispatcher.start();
+            fixStreamMessageParser.initialise(asyncMessageDispatcher);
+            inboundDispatchOccupancy = asyncMessageDispatcher::getOccupancy;
+        } else {
+            asyncMessageDispatcher = null;
+            fixStreamMessageParser.initialise(rawFixMessageHandler);
+            inboundDispatchOccupancy = () -> 0;
+        }
+        final OutboundSendQueue sendQueue;
+        final OutboundMessageHandler outboundMessageSender;
+        if (configuration.isAsyncSend()) {
+            sendQueue = new OutboundSendQueue(configuration.getSendQueueCapacity(), configuration.getSendQueueFullPolicy());
+            outboundMessageSender = new OutboundMessageHandler(publishingTransportObserver, sendQueue,
+                                                               new NamedThreadFactory("outboundWriter", true, UNCAUGHT_EXCEPTION_HANDLER), metrics);
+            outboundMessageSender.start();
+        } else {
+            sendQueue = null;
+            outboundMessageSender = new OutboundMessageHandler(publishingTransportObserver, metrics);
+        }
+
+        // an event loop's I/O thread reads other clients too, so it is paused by no longer reading this client's socket
+        final Blocker readingBlocker = configuration.getEventLoop() == null ? messageConsumingThreadBlocker : () -> { };
+        final ByteChannelReader inputStreamReader = new ByteChannelReader(fixStreamMessageParser, readingBlocker, publishingTransportObserver,
+                                                                          Math.max(configuration.getReadBufferSize(), maxMessageSize),
+                                                                          configuration.isDirectReadBuffer(), metrics);
+        final ChannelInitializer channelInitializer;
+        if (configuration.getEventLoop() != null) {
+            channelInitializer = new ChannelInitializer(transport, inputStreamReader, outboundMessageSender, configuration.getEventLoop());
+        } else {
+            final ExecutorService channelReaderExecutorService = configuration.isVirtualThreads()
+                    ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                    : Executors.newSingleThreadExecutor(new NamedThreadFactory("channelReader", true, UNCAUGHT_EXCEPTION_HANDLER));
+            channelInitializer = new ChannelInitializer(transport, inputStreamReader, outboundMessageSender, channelReaderExecutorService);
+        }
         publishingTransportObserver.addObserver(channelInitializer);
 
-        return new FixClient(fixMessagePublisher, channelInitializer, transport, new FixSession(outboundMessageSender), messageConsumingThreadBlocker);
+        metrics.bindGauges(messageConsumingThreadBlocker::getPausedNanos, sendQueue == null ? () -> 0 : sendQueue::getQueueDepth, inboundDispatchOccupancy);
+        if (configuration.getMetricsMBeanName() != null) {
+            metrics.registerMBean(configuration.getMetricsMBeanName());
+        }
+
+        return new FixClient(fixMessagePublisher, channelInitializer, transport, new FixSession(outboundMessageSender), outboundMessageSender,
+                             messageConsumingThreadBlocker, asyncMessageDispatcher, inboundDispatchOccupancy, sendQueue, metrics);
     }
 }
@@ -17,10 +17,12 @@
 package com.lmax.nanofix;
 
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 
 import com.lmax.nanofix.outgoing.FixMessage;
 import com.lmax.nanofix.outgoing.OutboundMessageHandler;
+import com.lmax.nanofix.outgoing.WriteObserver;
 
 public class FixSession {
     private final OutboundMessageHandler outboundMessageSender;
@@ -44,4 +46,24 @@ public class FixSession {
     public void send(final byte[] bytes) {
         outboundMessageSender.sendBytes(bytes);
     }
+
+    public void send(final ByteBuffer buffer) {
+        outboundMessageSender.send(buffer);
+    }
+
+    public void send(final ByteBuffer[] buffers) {
+        outboundMessageSender.send(buffers);
+    }
+
+    public boolean trySend(final ByteBuffer buffer) {
+        return outboundMessageSender.trySend(buffer);
+    }
+
+    public boolean trySend(final ByteBuffer[] buffers) {
+        return outboundMessageSender.trySend(buffers);
+    }
+
+    public void setWriteObserver(final WriteObserver writeObserver) {
+        outboundMessageSender.setWriteObserver(writeObserver);
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.lmax.nanofix.byteoperations;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 public final class ByteUtil {
@@ -45,6 +46,110 @@ public final class ByteUtil {
         }
     }
 
+    /**
+     * Writes value as variable width ASCII digits, with a leading '-' if negative, at an absolute index in the buffer.
+     * The buffer's position is not changed.
+     *
+     * @return the number of bytes written.
+     */
+    public static int putLongAsAscii(final ByteBuffer buffer, final int index, final long value) {
+        if (value == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Value out of range: value=" + value);
+        }
+        int position = index;
+        long remaining = value;
+        if (remaining < 0) {
+            buffer.put(position++, (byte)'-');
+            remaining = -remaining;
+        }
+        final int digits = asciiDigitCount(remaining);
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer.put(i, (byte)('0' + remaining % 10));
+            remaining /= 10;
+        }
+        return position + digits - index;
+    }
+
+    /**
+     * Writes mantissa * 10^-scale as variable width ASCII, with a leading '-' if negative and at least one digit before
+     * the decimal point, e.g. a mantissa of 5 and scale of 2 is written as 0.05.
+     *
+     * @return the number of bytes written.
+     */
+    public static int writeDecimalAsAscii(final byte[] outputBuffer, final int offset, final long mantissa, final int scale) {
+        final int length = decimalAsciiLength(mantissa, scale);
+        final int digitsStart = mantissa < 0 ? offset + 1 : offset;
+        long remaining = Math.abs(mantissa);
+        int index = offset + length - 1;
+        for (int i = 0; i < scale; i++) {
+            outputBuffer[index--] = (byte)('0' + remaining % 10);
+            remaining /= 10;
+        }
+        if (scale > 0) {
+            outputBuffer[index--] = (byte)'.';
+        }
+        while (index >= digitsStart) {
+            outputBuffer[index--] = (byte)('0' + remaining % 10);
+            remaining /= 10;
+        }
+        if (mantissa < 0) {
+            outputBuffer[offset] = (byte)'-';
+        }
+        return length;
+    }
+
+    /**
+     * Writes mantissa * 10^-scale as {@link #writeDecimalAsAscii(byte[], int, long, int)} does, at an absolute index in the buffer.
+     * The buffer's position is not changed.
+     *
+     * @return the number of bytes written.
+     */
+    public static int putDecimalAsAscii(final ByteBuffer buffer, final int index, final long mantissa, final int scale) {
+        final int length = decimalAsciiLength(mantissa, scale);
+        final int digitsStart = mantissa < 0 ? index + 1 : index;
+        long remaining = Math.abs(mantissa);
+        int position = index + length - 1;
+        for (int i = 0; i < scale; i++) {
+            buffer.put(position--, (byte)('0' + remaining % 10));
+            remaining /= 10;
+        }
+        if (scale > 0) {
+            buffer.put(position--, (byte)'.');
+        }
+        while (position >= digitsStart) {
+            buffer.put(position--, (byte)('0' + remaining % 10));
+            remaining /= 10;
+        }
+        if (mantissa < 0) {
+            buffer.put(index, (byte)'-');
+        }
+        return length;
+    }
+
+    /**
+     * @return the number of bytes needed to write mantissa * 10^-scale as ASCII.
+     */
+    public static int decimalAsciiLength(final long mantissa, final int scale) {
+        if (mantissa == Long.MIN_VALUE || scale < 0) {
+            throw new IllegalArgumentException("Value out of range: mantissa=" + mantissa + ", scale=" + scale);
+        }
+        final int sign = mantissa < 0 ? 1 : 0;
+        return sign + Math.max(asciiDigitCount(Math.abs(mantissa)), scale + 1) + (scale > 0 ? 1 : 0);
+    }
+
+    /**
+     * @return the number of ASCII digits needed to represent a non-negative value.
+     */
+    public static int asciiDigitCount(final long value) {
+        int digits = 1;
+        long threshold = 10;
+        while (digits < 19 && value >= threshold) {
+            digits++;
+            threshold *= 10;
+        }
+        return digits;
+    }
+
     public static boolean isAsciiDigit(final byte asciiCharacter) {
         return asciiCharacter > 47 && asciiCharacter < 58;
     }
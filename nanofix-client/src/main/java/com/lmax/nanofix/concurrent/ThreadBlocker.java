@@ -16,16 +16,36 @@
 
 package com.lmax.nanofix.concurrent;
 
-import java.util.concurrent.Semaphore;
+import com.lmax.nanofix.metrics.PaddedCounter;
 
+/**
+ * Holds every thread that calls {@link #mayWait()} while paused, such as the channel reader and the inbound dispatcher's
+ * consumers, until resumed.
+ */
 public class ThreadBlocker implements Blocker {
-    private final Semaphore semaphore = new Semaphore(0);
+    private final Object lock = new Object();
+    private final PaddedCounter pausedNanos = new PaddedCounter();
     private volatile boolean paused;
 
     @Override
     public void mayWait() {
-        while (paused) {
-            semaphore.acquireUninterruptibly();
+        if (!paused) {
+            return;
+        }
+        final long pausedAt = System.nanoTime();
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (paused) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        pausedNanos.add(System.nanoTime() - pausedAt);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -35,8 +55,17 @@ public class ThreadBlocker implements Blocker {
     }
 
     public void resume() {
-        paused = false;
-        semaphore.release();
+        synchronized (lock) {
+            paused = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * @return the total time threads have spent waiting in {@link #mayWait()}, not counting a wait still in progress.
+     */
+    public long getPausedNanos() {
+        return pausedNanos.get();
     }
 
 }
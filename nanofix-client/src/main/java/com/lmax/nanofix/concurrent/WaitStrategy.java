@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits for a ring buffer to have work, or room, for it. The cheaper the wake up, the more CPU is burnt waiting.
+ */
+public enum WaitStrategy {
+    /**
+     * Spins on the CPU. Lowest latency, but occupies a whole core for as long as the waiting thread lives.
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle() {
+            Thread.onSpinWait();
+        }
+    },
+
+    /**
+     * Yields to other runnable threads between checks.
+     */
+    YIELD {
+        @Override
+        public void idle() {
+            Thread.yield();
+        }
+    },
+
+    /**
+     * Parks briefly between checks. Cheapest on CPU, with wake up latency set by the operating system's timer resolution.
+     */
+    PARK {
+        @Override
+        public void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    private static final long PARK_NANOS = 1_000;
+
+    public abstract void idle();
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import com.lmax.nanofix.FixUtil;
+import com.lmax.nanofix.concurrent.Blocker;
+import com.lmax.nanofix.concurrent.Sequence;
+import com.lmax.nanofix.concurrent.WaitStrategy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands framed messages from the channel reader thread to consumer threads through a pre-allocated ring of byte slots,
+ * so slow handlers no longer hold up reading from the socket until the ring fills.
+ * <p>
+ * The reader thread is the single producer. Each message is copied into the next slot, together with its
+ * {@link MessageIntegrity} when the parser verified one, then published. Every consumer sees every message, in order, on its own thread and passes it to
+ * its own {@link MessageParserCallback}. The producer only waits when the slowest consumer is a whole ring behind.
+ * Consumers check the {@link Blocker} before each message, so pausing it also holds back messages already in the ring.
+ */
+public final class AsyncMessageDispatcher implements MessageParserCallback {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncMessageDispatcher.class);
+    private static final byte MESSAGE = 0;
+    private static final byte TRUNCATED_MESSAGE = 1;
+    private static final byte PARSE_ERROR = 2;
+    private static final byte BYTES_SKIPPED = 3;
+
+    private final int slotCount;
+    private final int slotSize;
+    private final int indexMask;
+    private final WaitStrategy waitStrategy;
+    private final Blocker blocker;
+    private final byte[] slots;
+    private final int[] lengths;
+    private final byte[] kinds;
+    private final MessageIntegrity[] integrities;
+    private final boolean[] verified;
+    private final String[] errors;
+
+    private final Sequence cursor = new Sequence(-1);
+    private final Sequence[] consumerSequences;
+    private final MessageParserCallback[] consumers;
+    private final ThreadFactory threadFactory;
+    private final List<Thread> consumerThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    private long producerSequence = -1;
+    private long cachedGatingSequence = -1;
+    private boolean truncatedMessagePending;
+
+    /**
+     * @param slotCount the number of messages the ring holds, a power of two.
+     * @param slotSize  the largest message a slot can hold, normally the parser's max message size.
+     * @param consumers each is called on its own thread.
+     */
+    public AsyncMessageDispatcher(final int slotCount, final int slotSize, final WaitStrategy waitStrategy, final ThreadFactory threadFactory,
+                                  final MessageParserCallback... consumers) {
+        this(slotCount, slotSize, waitStrategy, () -> { }, threadFactory, consumers);
+    }
+
+    /**
+     * @param blocker checked by each consumer before it dispatches a message.
+     */
+    public AsyncMessageDispatcher(final int slotCount, final int slotSize, final WaitStrategy waitStrategy, final Blocker blocker,
+                                  final ThreadFactory threadFactory, final MessageParserCallback... consumers) {
+        if (slotCount <= 0 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a positive power of two: " + slotCount);
+        }
+        if (consumers.length == 0) {
+            throw new IllegalArgumentException("At least one consumer is required");
+        }
+        this.slotCount = slotCount;
+        this.slotSize = slotSize;
+        this.indexMask = slotCount - 1;
+        this.waitStrategy = waitStrategy;
+        this.blocker = blocker;
+        this.threadFactory = threadFactory;
+        this.slots = new byte[Math.multiplyExact(slotCount, slotSize)];
+        this.lengths = new int[slotCount];
+        this.kinds = new byte[slotCount];
+        this.integrities = new MessageIntegrity[slotCount];
+        this.verified = new boolean[slotCount];
+        this.errors = new String[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            integrities[i] = new MessageIntegrity();
+        }
+        this.consumers = consumers.clone();
+        this.consumerSequences = new Sequence[consumers.length];
+        for (int i = 0; i < consumers.length; i++) {
+            consumerSequences[i] = new Sequence(-1);
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < consumers.length; i++) {
+            final int consumerIndex = i;
+            final Thread thread = threadFactory.newThread(() -> consume(consumerIndex));
+            consumerThreads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the consumer threads once they have dispatched everything already published.
+     */
+    public synchronized void halt() throws InterruptedException {
+        running = false;
+        for (Thread thread : consumerThreads) {
+            thread.join();
+        }
+        consumerThreads.clear();
+    }
+
+    /**
+     * @return the number of published messages the slowest consumer has yet to dispatch.
+     */
+    public long getOccupancy() {
+        return cursor.get() - minimumConsumerSequence();
+    }
+
+    public int getCapacity() {
+        return slotCount;
+    }
+
+    @Override
+    public void onMessage(final byte[] buffer, final int offset, final int length) {
+        onMessage(buffer, offset, length, null);
+    }
+
+    @Override
+    public void onMessage(final byte[] buffer, final int offset, final int length, final MessageIntegrity integrity) {
+        if (length > slotSize) {
+            throw new IllegalStateException("Msg size [" + length + "], Slot size [" + slotSize + "]");
+        }
+        final int index = claimNext();
+        System.arraycopy(buffer, offset, slots, index * slotSize, length);
+        lengths[index] = length;
+        kinds[index] = truncatedMessagePending ? TRUNCATED_MESSAGE : MESSAGE;
+        verified[index] = integrity != null;
+        if (integrity != null) {
+            integrities[index].copyFrom(integrity);
+        }
+        truncatedMessagePending = false;
+        publish();
+    }
+
+    /**
+     * The parser reports truncation just before passing on the truncated bytes, so it is recorded against the next message.
+     */
+    @Override
+    public void onTruncatedMessage() {
+        truncatedMessagePending = true;
+    }
+
+    /**
+     * The number of bytes skipped is carried in the slot's length, with no bytes copied.
+     */
+    @Override
+    public void onBytesSkipped(final int length) {
+        final int index = claimNext();
+        kinds[index] = BYTES_SKIPPED;
+        lengths[index] = length;
+        publish();
+    }
+
+    @Override
+    public void onParseError(final String error) {
+        final int index = claimNext();
+        kinds[index] = PARSE_ERROR;
+        lengths[index] = 0;
+        errors[index] = error;
+        publish();
+    }
+
+    private int claimNext() {
+        final long wrapPoint = producerSequence + 1 - slotCount;
+        if (wrapPoint > cachedGatingSequence) {
+            long minimum;
+            while (wrapPoint > (minimum = minimumConsumerSequence())) {
+                waitStrategy.idle();
+            }
+            cachedGatingSequence = minimum;
+        }
+        return (int)(producerSequence + 1) & indexMask;
+    }
+
+    private void publish() {
+        producerSequence++;
+        cursor.set(producerSequence);
+    }
+
+    private long minimumConsumerSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Sequence sequence : consumerSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    private void consume(final int consumerIndex) {
+        final Sequence sequence = consumerSequences[consumerIndex];
+        final MessageParserCallback consumer = consumers[consumerIndex];
+        long next = sequence.get() + 1;
+        while (true) {
+            final long available = cursor.get();
+            if (available < next) {
+                if (!running) {
+                    return;
+                }
+                waitStrategy.idle();
+                continue;
+            }
+            for (; next <= available; next++) {
+                blocker.mayWait();
+                dispatch((int)next & indexMask, consumer);
+            }
+            sequence.set(available);
+        }
+    }
+
+    private void dispatch(final int index, final MessageParserCallback consumer) {
+        try {
+            switch (kinds[index]) {
+                case PARSE_ERROR:
+                    consumer.onParseError(errors[index]);
+                    break;
+                case TRUNCATED_MESSAGE:
+                    consumer.onTruncatedMessage();
+                    dispatchMessage(index, consumer);
+                    break;
+                case BYTES_SKIPPED:
+                    consumer.onBytesSkipped(lengths[index]);
+                    break;
+                default:
+                    dispatchMessage(index, consumer);
+                    break;
+            }
+        } catch (final RuntimeException e) {
+            final int length = kinds[index] == BYTES_SKIPPED ? 0 : lengths[index];
+            final String msg = "Exception dispatching message: " + new String(slots, index * slotSize, length, FixUtil.getCharset());
+            LOGGER.warn(msg, e);
+            consumer.onParseError(msg);
+        }
+    }
+
+    private void dispatchMessage(final int index, final MessageParserCallback consumer) {
+        if (verified[index]) {
+            consumer.onMessage(slots, index * slotSize, lengths[index], integrities[index]);
+        } else {
+            consumer.onMessage(slots, index * slotSize, lengths[index]);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ReadableByteChannel;
 
 import com.lmax.nanofix.concurrent.Blocker;
+import com.lmax.nanofix.metrics.FixClientMetrics;
 import com.lmax.nanofix.transport.ConnectionObserver;
 
 import org.slf4j.Logger;
@@ -29,43 +30,141 @@ import org.slf4j.LoggerFactory;
 
 public class ByteChannelReader {
     private static final Logger LOGGER = LoggerFactory.getLogger(ByteChannelReader.class);
-    private static final int BUFFER_SIZE = 1024;
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
     private final ByteStreamMessageParser byteStreamMessageParser;
     private final Blocker blocker;
     private final ConnectionObserver connectionObserver;
     private final ByteBuffer buffer;
+    private final FixClientMetrics metrics;
+    private int unconsumedStart;
+    private int unconsumedEnd;
 
     public ByteChannelReader(final ByteStreamMessageParser byteStreamMessageParser, final Blocker blocker, final ConnectionObserver connectionObserver) {
+        this(byteStreamMessageParser, blocker, connectionObserver, DEFAULT_BUFFER_SIZE, false);
+    }
+
+    /**
+     * @param bufferSize   the number of bytes requested from the channel by each read.
+     * @param directBuffer when true the read buffer is allocated outside the heap, which saves the JDK copying each socket read
+     *                     through a temporary direct buffer.
+     */
+    public ByteChannelReader(final ByteStreamMessageParser byteStreamMessageParser, final Blocker blocker, final ConnectionObserver connectionObserver,
+                             final int bufferSize, final boolean directBuffer) {
+        this(byteStreamMessageParser, blocker, connectionObserver, bufferSize, directBuffer, new FixClientMetrics());
+    }
+
+    /**
+     * @param metrics counts the reads, the bytes read and the messages completed from bytes carried over from an earlier read.
+     */
+    public ByteChannelReader(final ByteStreamMessageParser byteStreamMessageParser, final Blocker blocker, final ConnectionObserver connectionObserver,
+                             final int bufferSize, final boolean directBuffer, final FixClientMetrics metrics) {
         this.byteStreamMessageParser = byteStreamMessageParser;
         this.blocker = blocker;
         this.connectionObserver = connectionObserver;
-        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.metrics = metrics;
+        buffer = directBuffer ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
     }
 
+    /**
+     * Reads from the channel until it is closed. Bytes the parser leaves unconsumed stay in the buffer and are presented
+     * again, followed by newly read bytes, on the next parse. They are only moved to the start of the buffer when there is
+     * no room left after them.
+     */
     public void blockingStart(final ReadableByteChannel readableByteChannel) {
+        unconsumedStart = 0;
+        unconsumedEnd = 0;
         try {
-            while ((readableByteChannel.read(buffer)) != -1) {
-                blocker.mayWait();
-                buffer.flip();
-                byteStreamMessageParser.parse(buffer);
-                buffer.clear();
+            while (read(readableByteChannel)) {
+                // keep reading
             }
+        } catch (final ClosedChannelException e) {
+            //Yes closed.
+        } catch (final IOException e) {
+            LOGGER.error("An error occurred trying to read from the socket", e);
+        } finally {
+            closed(readableByteChannel);
+        }
+    }
 
+    /**
+     * Makes a single read from a non-blocking channel and parses what has arrived, for a caller that is told when the
+     * channel is readable, such as a {@link com.lmax.nanofix.transport.SelectorEventLoop}. A paused {@link Blocker}
+     * holds up the calling thread, so a reader shared with other channels should be given one that never waits.
+     *
+     * @return false once the channel has been closed.
+     */
+    public boolean readAvailable(final ReadableByteChannel readableByteChannel) {
+        boolean open = false;
+        try {
+            open = read(readableByteChannel);
         } catch (final ClosedChannelException e) {
             //Yes closed.
         } catch (final IOException e) {
             LOGGER.error("An error occurred trying to read from the socket", e);
         } finally {
-            if (readableByteChannel != null) {
-                try {
-                    if (readableByteChannel.isOpen()) {
-                        readableByteChannel.close();
-                    }
-                } catch (IOException e) {
-                    //I don't care
+            if (!open) {
+                unconsumedStart = 0;
+                unconsumedEnd = 0;
+                closed(readableByteChannel);
+            }
+        }
+        return open;
+    }
+
+    /**
+     * @return false at the end of the stream.
+     */
+    private boolean read(final ReadableByteChannel readableByteChannel) throws IOException {
+        if (unconsumedEnd == buffer.capacity()) {
+            unconsumedEnd = compact(unconsumedStart, unconsumedEnd);
+            unconsumedStart = 0;
+        }
+        buffer.limit(buffer.capacity()).position(unconsumedEnd);
+        final int bytesRead = readableByteChannel.read(buffer);
+        metrics.onRead(bytesRead);
+        if (bytesRead <= 0) {
+            return bytesRead == 0;
+        }
+        blocker.mayWait();
+        final int carriedOverStart = unconsumedStart;
+        final boolean carriedOver = unconsumedEnd > unconsumedStart;
+        unconsumedEnd = buffer.position();
+        buffer.limit(unconsumedEnd).position(unconsumedStart);
+        byteStreamMessageParser.parse(buffer);
+        unconsumedStart = buffer.position();
+        if (carriedOver && unconsumedStart > carriedOverStart) {
+            metrics.onFragmentReassembled();
+        }
+        if (unconsumedStart == unconsumedEnd) {
+            unconsumedStart = 0;
+            unconsumedEnd = 0;
+        }
+        return true;
+    }
+
+    private void closed(final ReadableByteChannel readableByteChannel) {
+        if (readableByteChannel != null) {
+            try {
+                if (readableByteChannel.isOpen()) {
+                    readableByteChannel.close();
                 }
-                connectionObserver.connectionClosed();
+            } catch (IOException e) {
+                //I don't care
             }
+            connectionObserver.connectionClosed();
+        }
+    }
+
+    /**
+     * @return the end of the unconsumed bytes after moving them to the start of the buffer.
+     */
+    private int compact(final int unconsumedStart, final int unconsumedEnd) {
+        if (unconsumedStart == 0) {
+            LOGGER.warn("Discarding {} unconsumed bytes that fill the read buffer", unconsumedEnd);
+            return 0;
         }
+        buffer.limit(unconsumedEnd).position(unconsumedStart);
+        buffer.compact();
+        return buffer.position();
     }
 }
@@ -19,6 +19,10 @@ package com.lmax.nanofix.incoming;
 import java.nio.ByteBuffer;
 
 public interface ByteStreamMessageParser {
+    /**
+     * Parses the bytes between the segment's position and limit. Any bytes the parser leaves unconsumed, between the
+     * position it leaves and the limit, are presented again at the start of the next segment by {@link ByteChannelReader}.
+     */
     void parse(ByteBuffer segment);
 
     void initialise(MessageParserCallback messageParserCallback);
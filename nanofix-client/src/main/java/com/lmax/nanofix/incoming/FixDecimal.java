@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable fixed point decimal, value = mantissa * 10^-scale. Reused by callers to decode prices and quantities without allocating.
+ */
+public final class FixDecimal {
+    private long mantissa;
+    private int scale;
+
+    public FixDecimal set(final long mantissa, final int scale) {
+        this.mantissa = mantissa;
+        this.scale = scale;
+        return this;
+    }
+
+    /**
+     * Decodes a FIX float (price, qty, amount...) value, an optional leading '-' followed by digits with at most one decimal point.
+     *
+     * @return this decimal.
+     */
+    public FixDecimal parse(final CharSequence value) {
+        final int length = value.length();
+        boolean negative = false;
+        boolean seenDecimalPoint = false;
+        int digits = 0;
+        int parsedScale = 0;
+        long parsedMantissa = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (parsedMantissa > (Long.MAX_VALUE - 9) / 10) {
+                    throw new IllegalArgumentException("Value is too large for a long mantissa: " + value);
+                }
+                parsedMantissa = parsedMantissa * 10 + (c - '0');
+                digits++;
+                if (seenDecimalPoint) {
+                    parsedScale++;
+                }
+            } else if ('.' == c && !seenDecimalPoint) {
+                seenDecimalPoint = true;
+            } else if ('-' == c && i == 0) {
+                negative = true;
+            } else {
+                throw new IllegalArgumentException(c + " is not a digit");
+            }
+        }
+        if (0 == digits) {
+            throw new IllegalArgumentException("Value is not a number: " + value);
+        }
+
+        return set(negative ? -parsedMantissa : parsedMantissa, parsedScale);
+    }
+
+    public long getMantissa() {
+        return mantissa;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(mantissa, scale);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
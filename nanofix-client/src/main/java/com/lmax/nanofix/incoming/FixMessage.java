@@ -16,36 +16,102 @@
 
 package com.lmax.nanofix.incoming;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
-import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Multimap;
 
+/**
+ * A decoded inbound message. Tags are kept in arrival order in parallel arrays, with an open-addressed
+ * tag index pointing at the first occurrence of each tag and a side array chaining any repeats.
+ */
 public class FixMessage {
-    private final Multimap<Integer, String> multimap;
+    private static final int NONE = -1;
+
+    private int[] tags;
+    private String[] values;
+    private int[] nextOccurrence;
+    private int entryCount;
+
+    private int[] indexTags;
+    private int[] indexFirst;
+    private int[] indexLast;
+    private int indexedTagCount;
+
+    private static final MessageIntegrity NOT_VERIFIED = new MessageIntegrity();
+
+    private MessageIntegrity integrity;
 
     public FixMessage(final Multimap<Integer, String> multimap) {
-        this.multimap = LinkedListMultimap.create(multimap);
+        this(multimap.size());
+        for (Map.Entry<Integer, String> entry : multimap.entries()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    FixMessage(final int expectedTagCount) {
+        final int capacity = Math.max(expectedTagCount, 1);
+        tags = new int[capacity];
+        values = new String[capacity];
+        nextOccurrence = new int[capacity];
+        allocateIndex(indexCapacityFor(capacity));
     }
 
     public Collection<String> getValues(int tagId) {
-        return multimap.get(tagId);
+        final List<String> tagValues = new ArrayList<>();
+        for (int i = firstIndexOf(tagId); i != NONE; i = nextOccurrence[i]) {
+            tagValues.add(values[i]);
+        }
+        return tagValues;
     }
 
     public String getFirstValue(int tagId) {
-        return multimap.get(tagId).iterator().next();
+        final int index = firstIndexOf(tagId);
+        if (index == NONE) {
+            throw new NoSuchElementException();
+        }
+        return values[index];
+    }
+
+    /**
+     * Decodes the first value of a FIX float (price, qty, amount...) tag into the supplied decimal.
+     *
+     * @return the supplied decimal.
+     */
+    public FixDecimal getDecimal(final int tagId, final FixDecimal decimal) {
+        return decimal.parse(getFirstValue(tagId));
     }
 
     public boolean hasValue(int tagId) {
-        return !multimap.get(tagId).isEmpty();
+        return firstIndexOf(tagId) != NONE;
     }
 
     public void replace(int tagId, String value) {
-        final LinkedList<String> values = new LinkedList<>();
-        values.add(value);
-        multimap.replaceValues(tagId, values);
+        final int slot = slotOf(tagId);
+        if (indexTags[slot] != tagId || indexFirst[slot] == NONE) {
+            add(tagId, value);
+            return;
+        }
+        final int first = indexFirst[slot];
+        values[first] = value;
+        for (int i = nextOccurrence[first]; i != NONE; i = nextOccurrence[i]) {
+            values[i] = null;
+        }
+        nextOccurrence[first] = NONE;
+        indexLast[slot] = first;
+    }
+
+    /**
+     * @return the BodyLength and CheckSum checks made when the message was framed, see
+     * {@link com.lmax.nanofix.FixClientConfiguration#verifyIntegrity(boolean)}. Messages that were not verified report
+     * {@link MessageIntegrity#UNKNOWN} values and are never valid.
+     */
+    public MessageIntegrity getIntegrity() {
+        return integrity == null ? NOT_VERIFIED : integrity;
     }
 
     public String toFixString() {
@@ -64,12 +130,104 @@ public class FixMessage {
         return toHumanString();
     }
 
+    void setIntegrity(final MessageIntegrity messageIntegrity) {
+        if (integrity == null) {
+            integrity = new MessageIntegrity();
+        }
+        integrity.copyFrom(messageIntegrity);
+    }
+
+    void add(final int tagId, final String value) {
+        if (entryCount == tags.length) {
+            growEntries();
+        }
+        final int entry = entryCount++;
+        tags[entry] = tagId;
+        values[entry] = value;
+        nextOccurrence[entry] = NONE;
+
+        int slot = slotOf(tagId);
+        if (indexTags[slot] == tagId && indexFirst[slot] != NONE) {
+            nextOccurrence[indexLast[slot]] = entry;
+            indexLast[slot] = entry;
+            return;
+        }
+        if ((indexedTagCount + 1) * 2 > indexTags.length) {
+            rehash(indexTags.length * 2);
+            slot = slotOf(tagId);
+        }
+        indexTags[slot] = tagId;
+        indexFirst[slot] = entry;
+        indexLast[slot] = entry;
+        indexedTagCount++;
+    }
+
+    int size() {
+        return entryCount;
+    }
+
     private String buildString(final char tagSeparator) {
         final StringBuilder stringBuilder = new StringBuilder();
-        final Collection<Map.Entry<Integer, String>> entries = multimap.entries();
-        for (Map.Entry<Integer, String> entry : entries) {
-            stringBuilder.append(entry.getKey()).append('=').append(entry.getValue()).append(tagSeparator);
+        for (int i = 0; i < entryCount; i++) {
+            if (values[i] != null) {
+                stringBuilder.append(tags[i]).append('=').append(values[i]).append(tagSeparator);
+            }
         }
         return stringBuilder.toString();
     }
+
+    private int firstIndexOf(final int tagId) {
+        final int slot = slotOf(tagId);
+        return indexTags[slot] == tagId ? indexFirst[slot] : NONE;
+    }
+
+    /**
+     * @return the slot holding tagId, or the empty slot where it would be inserted.
+     */
+    private int slotOf(final int tagId) {
+        final int mask = indexTags.length - 1;
+        int slot = hash(tagId) & mask;
+        while (indexFirst[slot] != NONE && indexTags[slot] != tagId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growEntries() {
+        final int capacity = tags.length * 2;
+        tags = Arrays.copyOf(tags, capacity);
+        values = Arrays.copyOf(values, capacity);
+        nextOccurrence = Arrays.copyOf(nextOccurrence, capacity);
+    }
+
+    private void rehash(final int indexCapacity) {
+        final int[] oldTags = indexTags;
+        final int[] oldFirst = indexFirst;
+        final int[] oldLast = indexLast;
+        allocateIndex(indexCapacity);
+        for (int i = 0; i < oldTags.length; i++) {
+            if (oldFirst[i] != NONE) {
+                final int slot = slotOf(oldTags[i]);
+                indexTags[slot] = oldTags[i];
+                indexFirst[slot] = oldFirst[i];
+                indexLast[slot] = oldLast[i];
+            }
+        }
+    }
+
+    private void allocateIndex(final int indexCapacity) {
+        indexTags = new int[indexCapacity];
+        indexFirst = new int[indexCapacity];
+        indexLast = new int[indexCapacity];
+        Arrays.fill(indexFirst, NONE);
+    }
+
+    private static int indexCapacityFor(final int tagCount) {
+        return Integer.highestOneBit(Math.max(tagCount, 2) * 2 - 1) << 1;
+    }
+
+    private static int hash(final int tagId) {
+        final int h = tagId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.util.Arrays;
+
+import com.lmax.nanofix.FixUtil;
+import com.lmax.nanofix.byteoperations.ByteUtil;
+
+/**
+ * A reusable, zero copy view over a single FIX message held in a byte array.
+ * Tag offsets are indexed on the first lookup and values are only decoded when asked for, using the typed getters.
+ * When a tag is repeated the getters return its first occurrence.
+ * <p>
+ * Instances are reused between messages, so neither the flyweight nor any {@link CharSequence} it returns may be
+ * retained once the {@link FixMessageFlyweightHandler} callback has returned. Use {@link #copy()} or {@link #toFixMessage()}
+ * to keep a message.
+ */
+public final class FixMessageFlyweight {
+    private static final byte ASCII_MINUS = 45;
+    private static final byte ASCII_EQUALS = 61;
+    private static final int NOT_INDEXED = -1;
+    private static final int NOT_FOUND = -1;
+    private static final int INITIAL_TAG_CAPACITY = 64;
+
+    private final AsciiSequence charSequence = new AsciiSequence();
+    private byte[] buffer;
+    private int offset;
+    private int length;
+
+    private int tagCount = NOT_INDEXED;
+    private int[] tags = new int[INITIAL_TAG_CAPACITY];
+    private int[] valueOffsets = new int[INITIAL_TAG_CAPACITY];
+    private int[] valueLengths = new int[INITIAL_TAG_CAPACITY];
+
+    public FixMessageFlyweight wrap(final byte[] buffer, final int offset, final int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.tagCount = NOT_INDEXED;
+        return this;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public boolean hasValue(final int tagId) {
+        return NOT_FOUND != indexOf(tagId);
+    }
+
+    public int getValueLength(final int tagId) {
+        return valueLengths[requireIndexOf(tagId)];
+    }
+
+    public int getInt(final int tagId) {
+        final long value = getLong(tagId);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value of tag " + tagId + " is out of int range: " + value);
+        }
+        return (int)value;
+    }
+
+    public long getLong(final int tagId) {
+        final int index = requireIndexOf(tagId);
+        final int valueOffset = valueOffsets[index];
+        final int valueLength = valueLengths[index];
+        final boolean negative = valueLength > 0 && ASCII_MINUS == buffer[valueOffset];
+        final int digitsOffset = negative ? valueOffset + 1 : valueOffset;
+        final int digitsLength = negative ? valueLength - 1 : valueLength;
+        if (0 == digitsLength) {
+            throw new IllegalArgumentException("Value of tag " + tagId + " is not a number");
+        }
+        final long value = ByteUtil.readLongFromAscii(buffer, digitsOffset, digitsLength);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Copies the value of the tag into the destination.
+     *
+     * @return the number of bytes copied.
+     */
+    public int getBytes(final int tagId, final byte[] destination, final int destinationOffset) {
+        final int index = requireIndexOf(tagId);
+        System.arraycopy(buffer, valueOffsets[index], destination, destinationOffset, valueLengths[index]);
+        return valueLengths[index];
+    }
+
+    /**
+     * Decodes a FIX float (price, qty, amount...) value into the supplied decimal.
+     *
+     * @return the supplied decimal.
+     */
+    public FixDecimal getDecimal(final int tagId, final FixDecimal decimal) {
+        return decimal.parse(getCharSequence(tagId));
+    }
+
+    /**
+     * @return a view of the value of the tag. The same instance is returned by every call, so it is only valid until the next call.
+     */
+    public CharSequence getCharSequence(final int tagId) {
+        final int index = requireIndexOf(tagId);
+        return charSequence.wrap(buffer, valueOffsets[index], valueLengths[index]);
+    }
+
+    /**
+     * @return a detached flyweight over a copy of this message's bytes, which can be retained after the callback has returned.
+     */
+    public FixMessageFlyweight copy() {
+        return new FixMessageFlyweight().wrap(Arrays.copyOfRange(buffer, offset, offset + length), 0, length);
+    }
+
+    /**
+     * @return this message fully decoded into a {@link FixMessage}.
+     */
+    public FixMessage toFixMessage() {
+        ensureIndexed();
+        final FixMessage fixMessage = new FixMessage(tagCount);
+        for (int i = 0; i < tagCount; i++) {
+            fixMessage.add(tags[i], new String(buffer, valueOffsets[i], valueLengths[i], FixUtil.getCharset()));
+        }
+        return fixMessage;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, offset, length, FixUtil.getCharset()).replace('\u0001', '|');
+    }
+
+    private int requireIndexOf(final int tagId) {
+        final int index = indexOf(tagId);
+        if (NOT_FOUND == index) {
+            throw new IllegalArgumentException("Tag " + tagId + " is not present in message");
+        }
+        return index;
+    }
+
+    private int indexOf(final int tagId) {
+        ensureIndexed();
+        for (int i = 0; i < tagCount; i++) {
+            if (tags[i] == tagId) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private void ensureIndexed() {
+        if (NOT_INDEXED != tagCount) {
+            return;
+        }
+
+        int count = 0;
+        int tagStart = offset;
+        int equalsIndex = -1;
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final byte b = buffer[i];
+            if (-1 == equalsIndex && ASCII_EQUALS == b) {
+                equalsIndex = i;
+            } else if (FixTagParser.SOH == b) {
+                if (-1 != equalsIndex && equalsIndex > tagStart && ByteUtil.isInteger(buffer, tagStart, equalsIndex - tagStart)) {
+                    ensureCapacity(count + 1);
+                    tags[count] = ByteUtil.readIntFromAscii(buffer, tagStart, equalsIndex - tagStart);
+                    valueOffsets[count] = equalsIndex + 1;
+                    valueLengths[count] = i - equalsIndex - 1;
+                    count++;
+                }
+                tagStart = i + 1;
+                equalsIndex = -1;
+            }
+        }
+        tagCount = count;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > tags.length) {
+            final int newCapacity = tags.length * 2;
+            tags = Arrays.copyOf(tags, newCapacity);
+            valueOffsets = Arrays.copyOf(valueOffsets, newCapacity);
+            valueLengths = Arrays.copyOf(valueLengths, newCapacity);
+        }
+    }
+
+    private static final class AsciiSequence implements CharSequence {
+        private byte[] buffer;
+        private int offset;
+        private int length;
+
+        AsciiSequence wrap(final byte[] buffer, final int offset, final int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index=" + index + " length=" + length);
+            }
+            return (char)(buffer[offset + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer, offset, length, FixUtil.getCharset());
+        }
+    }
+}
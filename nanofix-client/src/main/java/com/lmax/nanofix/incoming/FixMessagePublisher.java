@@ -16,20 +16,109 @@
 
 package com.lmax.nanofix.incoming;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
-public class FixMessagePublisher implements FixMessageHandler {
+import com.lmax.nanofix.FixUtil;
+
+public class FixMessagePublisher implements FixMessageHandler, FixMessageFlyweightHandler {
     List<FixMessageHandler> handlers = new CopyOnWriteArrayList<>();
+    private volatile FixMessageFlyweightHandler[] flyweightHandlers = new FixMessageFlyweightHandler[0];
+    private final TagFilteredSubscribers tagFilteredSubscribers = new TagFilteredSubscribers();
+    private final FixTagParser tagFilteredParser = new FixTagParser(tagFilteredSubscribers);
+    private final MessageTypeRouter messageTypeRouter = new MessageTypeRouter();
+    private FixMessageHandler[] resolvedRoute;
 
     public void subscribeToAllMessages(final FixMessageHandler fixMessageHandler) {
         handlers.add(fixMessageHandler);
     }
 
+    public synchronized void subscribeToAllFlyweights(final FixMessageFlyweightHandler fixMessageFlyweightHandler) {
+        final FixMessageFlyweightHandler[] newHandlers = Arrays.copyOf(flyweightHandlers, flyweightHandlers.length + 1);
+        newHandlers[flyweightHandlers.length] = fixMessageFlyweightHandler;
+        flyweightHandlers = newHandlers;
+    }
+
+    /**
+     * Subscribes to messages of a single MsgType. The handler is never invoked for other types, and messages of types
+     * nobody has subscribed to are not decoded unless there are subscribers to all messages.
+     */
+    public void subscribeToMessageType(final String msgType, final FixMessageHandler fixMessageHandler) {
+        subscribeToMessageType(msgType.getBytes(FixUtil.getCharset()), fixMessageHandler);
+    }
+
+    public void subscribeToMessageType(final byte[] msgType, final FixMessageHandler fixMessageHandler) {
+        messageTypeRouter.subscribe(msgType, fixMessageHandler);
+    }
+
+    /**
+     * Subscribes to messages holding only the given tags. All such subscribers share a single parse of the raw message,
+     * which stops as soon as every one of them has seen all of its tags.
+     */
+    public void subscribeToMessagesWithTags(final FixMessageHandler fixMessageHandler, final int... tagIds) {
+        tagFilteredSubscribers.subscribe(new TagFilteringFixMessageFactory(fixMessageHandler, tagIds));
+    }
+
+    public boolean hasFixMessageSubscribers() {
+        return !handlers.isEmpty();
+    }
+
+    public boolean hasFlyweightSubscribers() {
+        return 0 != flyweightHandlers.length;
+    }
+
+    public boolean hasMessageTypeSubscribers() {
+        return !messageTypeRouter.isEmpty();
+    }
+
+    /**
+     * Looks up the handlers subscribed to the MsgType of a raw message. The next call to {@link #onFixMessage(FixMessage)}
+     * publishes to them without looking the type up again.
+     *
+     * @return true if any handler is subscribed to the message's type.
+     */
+    public boolean routeMessage(final byte[] buffer, final int offset, final int length) {
+        resolvedRoute = messageTypeRouter.handlersFor(buffer, offset, length);
+        return resolvedRoute.length != 0;
+    }
+
+    /**
+     * Forgets the handlers found by {@link #routeMessage(byte[], int, int)}, for when the message will not be published.
+     */
+    void clearRoute() {
+        resolvedRoute = null;
+    }
+
+    public boolean hasTagFilteredSubscribers() {
+        return !tagFilteredSubscribers.isEmpty();
+    }
+
+    public void publishToTagFilteredSubscribers(final byte[] buffer, final int offset, final int length, final MessageIntegrity integrity) {
+        tagFilteredParser.parse(buffer, offset, length, true, integrity);
+    }
+
     @Override
     public void onFixMessage(final FixMessage fixMessage) {
         for (FixMessageHandler fixMessageHandler : handlers) {
             fixMessageHandler.onFixMessage(fixMessage);
         }
+
+        final FixMessageHandler[] routedHandlers = resolvedRoute != null ? resolvedRoute : routeOf(fixMessage);
+        resolvedRoute = null;
+        for (FixMessageHandler fixMessageHandler : routedHandlers) {
+            fixMessageHandler.onFixMessage(fixMessage);
+        }
+    }
+
+    private FixMessageHandler[] routeOf(final FixMessage fixMessage) {
+        return messageTypeRouter.isEmpty() ? MessageTypeRouter.NO_HANDLERS : messageTypeRouter.handlersFor(fixMessage);
+    }
+
+    @Override
+    public void onFixMessage(final FixMessageFlyweight fixMessage) {
+        for (FixMessageFlyweightHandler fixMessageFlyweightHandler : flyweightHandlers) {
+            fixMessageFlyweightHandler.onFixMessage(fixMessage);
+        }
     }
 }
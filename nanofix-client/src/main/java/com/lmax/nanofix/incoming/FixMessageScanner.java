@@ -0,0 +1,293 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.lmax.nanofix.byteoperations.Bits;
+
+/**
+ * Locates FIX framing patterns in a {@link ByteBuffer} eight bytes at a time.
+ * <p>
+ * Each word is searched for the first two bytes of the pattern with SWAR (SIMD within a register) zero byte tests, and only
+ * those candidate positions are compared against the full pattern. Anchoring on two bytes rather than one matters because
+ * SOH and '8' are both common in FIX messages, while "&lt;SOH&gt;1" and "8=" are much rarer.
+ * <p>
+ * Buffers backed by an array are read through {@link Bits}, which is noticeably cheaper than {@link ByteBuffer#getLong(int)}
+ * on a heap buffer. Other buffers, such as direct buffers, are read with absolute gets. The buffer's position is never changed.
+ * <p>
+ * The CheckSum of a message can be summed by the same scan that finds its "&lt;SOH&gt;10=", a word at a time, so the message is
+ * only read once. {@link #checksum(byte[], int, int)} sums a message that was framed without scanning it.
+ */
+public final class FixMessageScanner {
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long EVERY_BYTE = 0x0101010101010101L;
+    private static final long EVEN_BYTES = 0x00FF00FF00FF00FFL;
+    private static final long EVERY_LANE = 0x0001000100010001L;
+    private static final int SUM_BITS = 8;
+    private static final int SUM_MASK = 0xFF;
+
+    /**
+     * Each 16 bit lane gains at most 2 * 255 per word, so lanes are folded into the total before they can overflow.
+     */
+    private static final int MAX_WORDS_PER_FOLD = 128;
+
+    /**
+     * Candidates are pairs of bytes, so the last byte of each word is left for the next one.
+     */
+    private static final int WORD_STRIDE = Long.BYTES - 1;
+
+    private static final int MESSAGE_START_LENGTH = 5;
+    private static final int CHECKSUM_START_LENGTH = 4;
+    private static final int MESSAGE_START = ('8' << 24) | ('=' << 16) | ('F' << 8) | 'I';
+    private static final int CHECKSUM_START = (1 << 24) | ('1' << 16) | ('0' << 8) | '=';
+
+    private FixMessageScanner() {
+    }
+
+    /**
+     * @return the index of the first complete "8=FIX" at or after from and before limit, or -1 if there is none.
+     */
+    public static int indexOfMessageStart(final ByteBuffer buffer, final int from, final int limit) {
+        return indexOf(buffer, from, limit, MESSAGE_START, MESSAGE_START_LENGTH);
+    }
+
+    /**
+     * @return the index of the first complete "&lt;SOH&gt;10=" at or after from and before limit, or -1 if there is none.
+     */
+    public static int indexOfChecksumStart(final ByteBuffer buffer, final int from, final int limit) {
+        return indexOf(buffer, from, limit, CHECKSUM_START, CHECKSUM_START_LENGTH);
+    }
+
+    /**
+     * Finds the first "&lt;SOH&gt;10=" as {@link #indexOfChecksumStart} does, adding up the bytes it passes on the way: those
+     * from from up to and including the SOH it finds or, when there is none, those before limit - 3, where a later search
+     * should resume.
+     *
+     * @param sum the total so far, of which only the low eight bits matter.
+     * @return the index found, or -1, with the new total modulo 256, to be read with {@link #foundIndex(long)} and
+     * {@link #foundSum(long)}.
+     */
+    public static long scanToChecksumStart(final ByteBuffer buffer, final int from, final int limit, final int sum) {
+        if (buffer.hasArray()) {
+            final int arrayOffset = buffer.arrayOffset();
+            final long found = scanToChecksumStart(buffer.array(), arrayOffset + from, arrayOffset + limit, sum);
+            final int index = foundIndex(found);
+            return index == -1 ? found : found(index - arrayOffset, foundSum(found));
+        }
+
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        final int pattern = bigEndian ? CHECKSUM_START : Integer.reverseBytes(CHECKSUM_START);
+        final int lastCandidate = limit - CHECKSUM_START_LENGTH;
+        int total = sum;
+        int pos = from;
+
+        while (pos + WORD_STRIDE <= lastCandidate) {
+            final long word = bigEndian ? buffer.getLong(pos) : Long.reverseBytes(buffer.getLong(pos));
+            long matches = checksumStartCandidates(word);
+            while (matches != 0) {
+                final int byteIndex = Long.numberOfLeadingZeros(matches) >>> 3;
+                if (matchesAt(buffer, pos + byteIndex, pattern, CHECKSUM_START_LENGTH)) {
+                    return found(pos + byteIndex, total + sumOfLeadingBytes(word, byteIndex + 1));
+                }
+                matches &= ~(Long.MIN_VALUE >>> (byteIndex << 3));
+            }
+            total += sumOfLeadingBytes(word, WORD_STRIDE);
+            pos += WORD_STRIDE;
+        }
+
+        for (; pos <= lastCandidate; pos++) {
+            total += buffer.get(pos) & 0xFF;
+            if (matchesAt(buffer, pos, pattern, CHECKSUM_START_LENGTH)) {
+                return found(pos, total);
+            }
+        }
+        return found(-1, total);
+    }
+
+    public static int foundIndex(final long found) {
+        return (int)(found >> SUM_BITS);
+    }
+
+    public static int foundSum(final long found) {
+        return (int)found & SUM_MASK;
+    }
+
+    /**
+     * @return the FIX CheckSum of the bytes from from up to limit, that is their sum modulo 256.
+     */
+    public static int checksum(final byte[] buffer, final int from, final int limit) {
+        long total = 0;
+        int pos = from;
+        while (pos + Long.BYTES <= limit) {
+            final int foldLimit = Math.min(limit, pos + MAX_WORDS_PER_FOLD * Long.BYTES);
+            long lanes = 0;
+            for (; pos + Long.BYTES <= foldLimit; pos += Long.BYTES) {
+                final long word = Bits.readLong(buffer, pos);
+                lanes += (word & EVEN_BYTES) + ((word >>> 8) & EVEN_BYTES);
+            }
+            total += (lanes & 0xFFFF) + ((lanes >>> 16) & 0xFFFF) + ((lanes >>> 32) & 0xFFFF) + (lanes >>> 48);
+        }
+        for (; pos < limit; pos++) {
+            total += buffer[pos] & 0xFF;
+        }
+        return (int)(total & 0xFF);
+    }
+
+    private static int indexOf(final ByteBuffer buffer, final int from, final int limit, final int bigEndianPattern, final int patternLength) {
+        if (buffer.hasArray()) {
+            final int arrayOffset = buffer.arrayOffset();
+            final int index = indexOf(buffer.array(), arrayOffset + from, arrayOffset + limit, bigEndianPattern, patternLength);
+            return index == -1 ? -1 : index - arrayOffset;
+        }
+
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        final int pattern = bigEndian ? bigEndianPattern : Integer.reverseBytes(bigEndianPattern);
+        final long firstBytes = (bigEndianPattern >>> 24) * EVERY_BYTE;
+        final long secondBytes = ((bigEndianPattern >>> 16) & 0xFF) * EVERY_BYTE;
+        final int lastCandidate = limit - patternLength;
+        int pos = from;
+
+        while (pos + Long.BYTES <= limit && pos <= lastCandidate) {
+            final long word = buffer.getLong(pos);
+            final long firstMatches = zeroBytes(word ^ firstBytes);
+            final long secondMatches = zeroBytes(word ^ secondBytes);
+            long matches = bigEndian ? firstMatches & (secondMatches << 8) : firstMatches & (secondMatches >>> 8);
+            while (matches != 0) {
+                final int byteIndex = bigEndian ? Long.numberOfLeadingZeros(matches) >>> 3 : Long.numberOfTrailingZeros(matches) >>> 3;
+                final int candidate = pos + byteIndex;
+                if (candidate > lastCandidate) {
+                    return -1;
+                }
+                if (matchesAt(buffer, candidate, pattern, patternLength)) {
+                    return candidate;
+                }
+                matches &= bigEndian ? ~(Long.MIN_VALUE >>> (byteIndex << 3)) : matches - 1;
+            }
+            pos += WORD_STRIDE;
+        }
+
+        for (; pos <= lastCandidate; pos++) {
+            if (matchesAt(buffer, pos, pattern, patternLength)) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Words are only read while every candidate in them can be a whole pattern, so the bytes summed never pass lastCandidate.
+     */
+    private static long scanToChecksumStart(final byte[] buffer, final int from, final int limit, final int sum) {
+        final int lastCandidate = limit - CHECKSUM_START_LENGTH;
+        int total = sum;
+        int pos = from;
+
+        while (pos + WORD_STRIDE <= lastCandidate) {
+            final long word = Bits.readLong(buffer, pos);
+            long matches = checksumStartCandidates(word);
+            while (matches != 0) {
+                final int byteIndex = Long.numberOfLeadingZeros(matches) >>> 3;
+                if (matchesAt(buffer, pos + byteIndex, CHECKSUM_START, CHECKSUM_START_LENGTH)) {
+                    return found(pos + byteIndex, total + sumOfLeadingBytes(word, byteIndex + 1));
+                }
+                matches &= ~(Long.MIN_VALUE >>> (byteIndex << 3));
+            }
+            total += sumOfLeadingBytes(word, WORD_STRIDE);
+            pos += WORD_STRIDE;
+        }
+
+        for (; pos <= lastCandidate; pos++) {
+            total += buffer[pos] & 0xFF;
+            if (matchesAt(buffer, pos, CHECKSUM_START, CHECKSUM_START_LENGTH)) {
+                return found(pos, total);
+            }
+        }
+        return found(-1, total);
+    }
+
+    /**
+     * @return the high bit set in the first byte of each "&lt;SOH&gt;1" in a big endian word.
+     */
+    private static long checksumStartCandidates(final long word) {
+        return zeroBytes(word ^ ((CHECKSUM_START >>> 24) * EVERY_BYTE)) & (zeroBytes(word ^ (((CHECKSUM_START >>> 16) & 0xFF) * EVERY_BYTE)) << 8);
+    }
+
+    /**
+     * @return the sum of the first count bytes of a big endian word, for count from 1 to 7.
+     */
+    private static int sumOfLeadingBytes(final long word, final int count) {
+        final long bytes = word & (-1L << ((Long.BYTES - count) << 3));
+        final long lanes = (bytes & EVEN_BYTES) + ((bytes >>> 8) & EVEN_BYTES);
+        return (int)((lanes * EVERY_LANE) >>> 48);
+    }
+
+    private static long found(final int index, final int sum) {
+        return ((long)index << SUM_BITS) | (sum & SUM_MASK);
+    }
+
+    private static int indexOf(final byte[] buffer, final int from, final int limit, final int pattern, final int patternLength) {
+        final long firstBytes = (pattern >>> 24) * EVERY_BYTE;
+        final long secondBytes = ((pattern >>> 16) & 0xFF) * EVERY_BYTE;
+        final int lastCandidate = limit - patternLength;
+        int pos = from;
+
+        while (pos + Long.BYTES <= limit && pos <= lastCandidate) {
+            final long word = Bits.readLong(buffer, pos);
+            long matches = zeroBytes(word ^ firstBytes) & (zeroBytes(word ^ secondBytes) << 8);
+            while (matches != 0) {
+                final int byteIndex = Long.numberOfLeadingZeros(matches) >>> 3;
+                final int candidate = pos + byteIndex;
+                if (candidate > lastCandidate) {
+                    return -1;
+                }
+                if (matchesAt(buffer, candidate, pattern, patternLength)) {
+                    return candidate;
+                }
+                matches &= ~(Long.MIN_VALUE >>> (byteIndex << 3));
+            }
+            pos += WORD_STRIDE;
+        }
+
+        for (; pos <= lastCandidate; pos++) {
+            if (matchesAt(buffer, pos, pattern, patternLength)) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesAt(final byte[] buffer, final int pos, final int pattern, final int patternLength) {
+        return Bits.readInt(buffer, pos) == pattern && (patternLength == Integer.BYTES || buffer[pos + Integer.BYTES] == 'X');
+    }
+
+    /**
+     * The message start pattern is one byte longer than an int, its fifth byte is always 'X'.
+     */
+    private static boolean matchesAt(final ByteBuffer buffer, final int pos, final int pattern, final int patternLength) {
+        return buffer.getInt(pos) == pattern && (patternLength == Integer.BYTES || buffer.get(pos + Integer.BYTES) == 'X');
+    }
+
+    /**
+     * @return a word with the high bit set in exactly those bytes of x that are zero.
+     */
+    private static long zeroBytes(final long x) {
+        final long y = (x & LOW_BITS) + LOW_BITS;
+        return ~(y | x | LOW_BITS);
+    }
+}
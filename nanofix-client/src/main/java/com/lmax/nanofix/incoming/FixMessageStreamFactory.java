@@ -16,12 +16,12 @@
 
 package com.lmax.nanofix.incoming;
 
-import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.Multimap;
+import com.lmax.nanofix.FixUtil;
 
 public class FixMessageStreamFactory implements FixTagHandler {
-    private final Multimap<Integer, String> multimap = LinkedListMultimap.create();
     private final FixMessageHandler handler;
+    private FixMessage fixMessage;
+    private int expectedTagCount = 32;
 
     public FixMessageStreamFactory(final FixMessageHandler handler) {
         this.handler = handler;
@@ -29,12 +29,17 @@ public class FixMessageStreamFactory implements FixTagHandler {
 
     @Override
     public void messageStart() {
-        multimap.clear();
+        fixMessage = new FixMessage(expectedTagCount);
+    }
+
+    @Override
+    public void onMessageIntegrity(final MessageIntegrity integrity) {
+        fixMessage.setIntegrity(integrity);
     }
 
     @Override
     public void onTag(final int tagIdentity, final byte[] message, final int tagValueOffset, final int tagValueLength) {
-        multimap.put(tagIdentity, new String(message, tagValueOffset, tagValueLength));
+        fixMessage.add(tagIdentity, new String(message, tagValueOffset, tagValueLength, FixUtil.getCharset()));
     }
 
     @Override
@@ -44,7 +49,10 @@ public class FixMessageStreamFactory implements FixTagHandler {
 
     @Override
     public void messageEnd() {
-        handler.onFixMessage(new FixMessage(multimap));
+        final FixMessage completedMessage = fixMessage;
+        fixMessage = null;
+        expectedTagCount = Math.max(expectedTagCount, completedMessage.size());
+        handler.onFixMessage(completedMessage);
     }
 
 
@@ -17,7 +17,6 @@
 package com.lmax.nanofix.incoming;
 
 import com.lmax.nanofix.FixUtil;
-import com.lmax.nanofix.byteoperations.Bits;
 
 import java.nio.ByteBuffer;
 
@@ -36,23 +35,64 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
     public static final byte ASCII_I = 73;
     public static final byte ASCII_X = 88;
 
-    private static final int FIX_MESSAGE_START_CODEC = Bits.readInt(new byte[]{
-            FixStreamMessageParser.ASCII_8, FixStreamMessageParser.ASCII_EQUALS, FixStreamMessageParser.ASCII_F, FixStreamMessageParser.ASCII_I}, 0);
-    private static final int FIX_MESSAGE_END_CODEC = Bits.readInt(new byte[]{
-            FixStreamMessageParser.ASCII_SOH, FixStreamMessageParser.ASCII_1, FixStreamMessageParser.ASCII_0, FixStreamMessageParser.ASCII_EQUALS}, 0);
+    private static final byte ASCII_9 = 57;
+    private static final int MAX_BEGIN_STRING_LENGTH = 16;
+    private static final int MAX_BODY_LENGTH_DIGITS = 9;
+    private static final int MESSAGE_START_LENGTH = 5;
+    private static final int CHECKSUM_START_LENGTH = 4;
+    private static final int CHECKSUM_FIELD_LENGTH = 8;
+    private static final int UNDECLARED = -1;
+    private static final int INCOMPLETE = -2;
 
     private final ByteBuffer fragmentedMessage;
+    private final byte[] messageCopy;
+    private final MessageIntegrity messageIntegrity;
     private final int maxMessageSize;
+    private final FramingMode framingMode;
+    private final boolean reassembleInPlace;
     private MessageParserCallback messageParserCallback;
+    private int scannedLength;
+    private int scannedSum;
+    private int framedChecksum = MessageIntegrity.UNKNOWN;
 
     public FixStreamMessageParser(final int maxMessageSize) {
+        this(maxMessageSize, FramingMode.SCAN);
+    }
+
+    public FixStreamMessageParser(final int maxMessageSize, final FramingMode framingMode) {
+        this(maxMessageSize, framingMode, false);
+    }
+
+    /**
+     * @param reassembleInPlace when true, a message that is incomplete at the end of a segment is left unconsumed, with the
+     *                          segment's position at its start, rather than copied aside. The caller must present those bytes
+     *                          again, followed by the rest of the stream, as {@link ByteChannelReader} does. Scanning then
+     *                          resumes where it stopped instead of starting again from the beginning of the message.
+     */
+    public FixStreamMessageParser(final int maxMessageSize, final FramingMode framingMode, final boolean reassembleInPlace) {
+        this(maxMessageSize, framingMode, reassembleInPlace, false);
+    }
+
+    /**
+     * @param verifyIntegrity when true, each message's BodyLength and CheckSum are checked and passed to
+     *                        {@link MessageParserCallback#onMessage(byte[], int, int, MessageIntegrity)}. The CheckSum is summed
+     *                        by the scan that frames the message, so only a message framed by its BodyLength, whose body the
+     *                        parser otherwise skips, is read again to sum it.
+     */
+    public FixStreamMessageParser(final int maxMessageSize, final FramingMode framingMode, final boolean reassembleInPlace, final boolean verifyIntegrity) {
+        this.messageIntegrity = verifyIntegrity ? new MessageIntegrity() : null;
         this.maxMessageSize = maxMessageSize;
-        this.fragmentedMessage = ByteBuffer.allocate(maxMessageSize);
+        this.framingMode = framingMode;
+        this.reassembleInPlace = reassembleInPlace;
+        this.fragmentedMessage = reassembleInPlace ? ByteBuffer.allocate(0) : ByteBuffer.allocate(maxMessageSize);
+        this.messageCopy = new byte[maxMessageSize];
     }
 
     @Override
     public void initialise(final MessageParserCallback messageParserCallback) {
         this.fragmentedMessage.clear();
+        this.scannedLength = 0;
+        this.scannedSum = 0;
         this.messageParserCallback = messageParserCallback;
     }
 
@@ -60,6 +100,11 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
     public void parse(final ByteBuffer segment) {
         final int segmentLimit = segment.limit();
         try {
+            if (reassembleInPlace) {
+                parseInPlace(segment);
+                return;
+            }
+
             if (fragmentedMessage.position() > 0) {
                 handleFragmentContinuation(segment);
             }
@@ -70,14 +115,83 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
         } catch (final Exception ex) {
             final String msg = String.format("Exception parsing segment:%n%s %n%s %n adding to %n%s %n%s",
                                              segment,
-                                             new String(segment.array(), 0, segmentLimit, FixUtil.getCharset()),
+                                             contentsOf(segment, segmentLimit),
                                              fragmentedMessage.toString(),
                                              new String(fragmentedMessage.array(), 0, fragmentedMessage.position(), FixUtil.getCharset()));
 
             LOGGER.warn(msg, ex);
             messageParserCallback.onParseError(msg);
             fragmentedMessage.clear();
+            scannedLength = 0;
+            scannedSum = 0;
+            framedChecksum = MessageIntegrity.UNKNOWN;
+            segment.position(segmentLimit);
+        }
+    }
+
+    private void parseInPlace(final ByteBuffer segment) {
+        final int limit = segment.limit();
+        while (segment.position() < limit) {
+            final int position = segment.position();
+            final int begin = FixMessageScanner.indexOfMessageStart(segment, position, limit);
+            if (begin == -1) {
+                // keep any trailing bytes that could be the start of a message split across reads
+                final int kept = Math.max(position, limit - (MESSAGE_START_LENGTH - 1));
+                skipped(kept - position);
+                segment.position(kept);
+                scannedLength = 0;
+                scannedSum = 0;
+                return;
+            }
+
+            skipped(begin - position);
+            final int end = findEndOfMessageInPlace(segment, begin, limit);
+            if (end != -1) {
+                scannedLength = 0;
+                scannedSum = 0;
+                segment.position(end);
+                callbackMessage(segment, begin, end);
+            } else if (limit - begin >= maxMessageSize) {
+                scannedLength = 0;
+                scannedSum = 0;
+                segment.position(begin + maxMessageSize);
+                messageParserCallback.onTruncatedMessage();
+                callbackMessage(segment, begin, begin + maxMessageSize);
+            } else {
+                segment.position(begin);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the message starting at begin, resuming the checksum scan, and its running sum, where a previous call
+     * left off when the message was incomplete. Records how far it got if the message is still incomplete.
+     */
+    private int findEndOfMessageInPlace(final ByteBuffer segment, final int begin, final int limit) {
+        framedChecksum = MessageIntegrity.UNKNOWN;
+        int checksumStart = framingMode == FramingMode.BODY_LENGTH ? declaredChecksumStart(segment, begin) : UNDECLARED;
+        if (checksumStart == INCOMPLETE) {
+            return -1;
+        }
+        final boolean scanned = checksumStart == UNDECLARED;
+        if (scanned) {
+            checksumStart = indexOfChecksumStart(segment, begin + scannedLength, limit);
         }
+        if (checksumStart == -1) {
+            scannedLength = Math.max(scannedLength, limit - begin - (CHECKSUM_START_LENGTH - 1));
+            return -1;
+        }
+
+        final int end = findEndOfChecksum(segment, checksumStart);
+        if (end == -1) {
+            scannedLength = checksumStart - begin;
+            // the SOH will be summed again when the scan resumes from it
+            scannedSum -= scanned ? ASCII_SOH : 0;
+        } else if (scanned && messageIntegrity != null) {
+            framedChecksum = scannedSum;
+        }
+        return end;
     }
 
     private void handleFragmentContinuation(final ByteBuffer segment) {
@@ -86,6 +200,17 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
         }
 
         final int start = segment.position();
+        if (framingMode == FramingMode.BODY_LENGTH) {
+            // the declared length says where the message ends, so take all the bytes that fit and give back any it did not need
+            final int bytesToConsume = Math.min(segment.remaining(), fragmentedMessage.remaining());
+            putIntoFragmentedMessage(segment, start, bytesToConsume);
+            segment.position(start + bytesToConsume);
+            if (!handleFragmentedMessage(segment) && !fragmentedMessage.hasRemaining()) {
+                handleTruncatedMessage();
+            }
+            return;
+        }
+
         final int end = findCurrentFragmentedMessageBoundary(segment);
         consumeIntoFragmentedMessage(segment, start, end);
         handleFragmentedMessage(segment);
@@ -98,34 +223,39 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
         final int remainingFragmentCapacity = fragmentedMessage.remaining();
         final int bytesToConsume = Math.min(newEnd - start, remainingFragmentCapacity);
 
-        fragmentedMessage.put(segment.array(), start, bytesToConsume);
+        putIntoFragmentedMessage(segment, start, bytesToConsume);
         if (!foundMessageBoundary && 0 == fragmentedMessage.remaining() || bytesToConsume == 0) {
             handleTruncatedMessage();
         }
     }
 
-    private void handleFragmentedMessage(final ByteBuffer segment) {
+    /**
+     * @return true if the fragmented message was completed and passed to the callback.
+     */
+    private boolean handleFragmentedMessage(final ByteBuffer segment) {
         final int currentPosition = fragmentedMessage.position();
 
         if (0 == currentPosition) {
-            return;
+            return false;
         }
 
         fragmentedMessage.flip();
 
         final int begin = findBeginningOfNextMessage(fragmentedMessage);
-        final int end = begin == -1 ? -1 : findEndOfCurrentMessage(fragmentedMessage);
+        final int end = begin == -1 ? -1 : findEndOfMessageAt(fragmentedMessage, begin);
 
         if (-1 != end) {
-            callbackMessage(fragmentedMessage.array(), begin, end);
+            skipped(begin);
+            callbackMessage(fragmentedMessage, begin, end);
             // our fragmented message didn't need all the bytes in the incoming segment,
             // so rewind the segment by the exact number of bytes we didn't use
             segment.position(segment.position() - (fragmentedMessage.limit() - end));
             fragmentedMessage.clear();
-        } else {
-            fragmentedMessage.limit(fragmentedMessage.capacity());
-            fragmentedMessage.position(currentPosition);
+            return true;
         }
+        fragmentedMessage.limit(fragmentedMessage.capacity());
+        fragmentedMessage.position(currentPosition);
+        return false;
     }
 
     private void consumeIntoFragmentedMessage(final ByteBuffer segment) {
@@ -133,7 +263,7 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
         if (segment.remaining() < remainingFragmentCapacity) {
             fragmentedMessage.put(segment);
         } else {
-            fragmentedMessage.put(segment.array(), segment.position(), remainingFragmentCapacity);
+            putIntoFragmentedMessage(segment, segment.position(), remainingFragmentCapacity);
             handleTruncatedMessage();
             segment.position(segment.position() + remainingFragmentCapacity);
         }
@@ -152,7 +282,7 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
 
     private void handleTruncatedMessage() {
         messageParserCallback.onTruncatedMessage();
-        callbackMessage(fragmentedMessage.array(), 0, fragmentedMessage.position());
+        callbackMessage(fragmentedMessage, 0, fragmentedMessage.position());
         fragmentedMessage.clear();
     }
 
@@ -160,9 +290,10 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
         final int origPos = segment.position();
         final int begin = findBeginningOfNextMessage(segment);
         if (-1 != begin) {
-            final int end = findEndOfCurrentMessage(segment);
+            skipped(begin - origPos);
+            final int end = findEndOfMessageAt(segment, begin);
             if (-1 != end) {
-                callbackMessage(segment.array(), begin, end);
+                callbackMessage(segment, begin, end);
             } else {
                 segment.position(begin);
 
@@ -174,49 +305,148 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
         }
     }
 
+    private void putIntoFragmentedMessage(final ByteBuffer segment, final int start, final int length) {
+        final int fragmentPosition = fragmentedMessage.position();
+        segment.get(start, fragmentedMessage.array(), fragmentPosition, length);
+        fragmentedMessage.position(fragmentPosition + length);
+    }
+
     private int findBeginningOfNextMessage(final ByteBuffer segment) {
-        final byte[] buffer = segment.array();
-        int pos = segment.position();
         final int limit = segment.limit();
+        final int pos = FixMessageScanner.indexOfMessageStart(segment, segment.position(), limit);
+        segment.position(pos == -1 ? limit : pos);
 
-        while (pos < limit) {
-            if (isStartOfMessage(buffer, pos, limit)) {
-                segment.position(pos);
-                return pos;
+        return pos;
+    }
+
+    /**
+     * @return the end of the message starting at begin, or -1 if it has not all arrived yet.
+     */
+    private int findEndOfMessageAt(final ByteBuffer segment, final int begin) {
+        framedChecksum = MessageIntegrity.UNKNOWN;
+        if (framingMode == FramingMode.BODY_LENGTH) {
+            final int checksumStart = declaredChecksumStart(segment, begin);
+            if (checksumStart == INCOMPLETE) {
+                segment.position(segment.limit());
+                return -1;
             }
+            if (checksumStart != UNDECLARED) {
+                return findEndOfChecksum(segment, checksumStart);
+            }
+        }
+        scannedSum = 0;
+        final int end = findEndOfChecksum(segment, indexOfChecksumStart(segment, begin, segment.limit()));
+        if (end != -1 && messageIntegrity != null) {
+            framedChecksum = scannedSum;
+        }
+        return end;
+    }
 
-            pos++;
+    /**
+     * When verifying integrity the bytes passed are added to the running sum on the way, so a scan from the beginning of a
+     * message leaves its CheckSum there without another pass over it.
+     */
+    private int indexOfChecksumStart(final ByteBuffer segment, final int from, final int limit) {
+        if (messageIntegrity == null) {
+            return FixMessageScanner.indexOfChecksumStart(segment, from, limit);
         }
+        final long found = FixMessageScanner.scanToChecksumStart(segment, from, limit, scannedSum);
+        scannedSum = FixMessageScanner.foundSum(found);
+        return FixMessageScanner.foundIndex(found);
+    }
 
-        segment.position(pos);
+    /**
+     * Framing follows the BodyLength whenever the header can be read, whether or not the whole message has arrived, so a
+     * message is framed the same way however the stream was split into segments.
+     *
+     * @return the index of the "&lt;SOH&gt;10=" that the message's BodyLength points at, {@link #INCOMPLETE} if the header is
+     * well formed so far but the bytes up to the CheckSum field have not all arrived, or {@link #UNDECLARED} if the header
+     * cannot be read, declares a message longer than the maximum size, or the declared length does not lead to a CheckSum field.
+     */
+    private int declaredChecksumStart(final ByteBuffer segment, final int begin) {
+        final int bodyLengthStart = bodyLengthStart(segment, begin);
+        if (bodyLengthStart < 0) {
+            return bodyLengthStart;
+        }
+        final int bodyLengthEnd = bodyLengthEnd(segment, bodyLengthStart);
+        if (bodyLengthEnd < 0) {
+            return bodyLengthEnd;
+        }
+        int bodyLength = 0;
+        for (int pos = bodyLengthStart; pos < bodyLengthEnd; pos++) {
+            bodyLength = bodyLength * 10 + segment.get(pos) - '0';
+        }
+        if (bodyLength == 0) {
+            return UNDECLARED;
+        }
 
-        return -1;
+        // BodyLength counts from the byte after its own SOH up to and including the SOH that precedes 10=
+        final int checksumStart = bodyLengthEnd + bodyLength;
+        if (checksumStart + CHECKSUM_FIELD_LENGTH - begin > maxMessageSize) {
+            return UNDECLARED;
+        }
+        if (checksumStart + CHECKSUM_START_LENGTH > segment.limit()) {
+            return INCOMPLETE;
+        }
+        return FixMessageScanner.indexOfChecksumStart(segment, checksumStart, checksumStart + CHECKSUM_START_LENGTH) == checksumStart ? checksumStart : UNDECLARED;
+    }
+
+    /**
+     * @return the index of the first digit of the BodyLength that follows the BeginString, or {@link #INCOMPLETE} or {@link #UNDECLARED}.
+     */
+    private static int bodyLengthStart(final ByteBuffer segment, final int begin) {
+        final int limit = segment.limit();
+        final int beginStringSearchLimit = begin + MAX_BEGIN_STRING_LENGTH;
+        int pos = begin + MESSAGE_START_LENGTH;
+        while (pos < limit && pos < beginStringSearchLimit && segment.get(pos) != ASCII_SOH) {
+            pos++;
+        }
+        if (pos >= beginStringSearchLimit) {
+            return UNDECLARED;
+        }
+        if (pos + 2 >= limit) {
+            return INCOMPLETE;
+        }
+        return segment.get(pos + 1) == ASCII_9 && segment.get(pos + 2) == ASCII_EQUALS ? pos + 3 : UNDECLARED;
     }
 
-    private boolean isStartOfMessage(final byte[] buffer, final int pos, final int limit) {
-        return
-                pos + 4 < limit &&
-                FIX_MESSAGE_START_CODEC == Bits.readInt(buffer, pos) &&
-                buffer[pos + 4] == ASCII_X;
+    /**
+     * @return the index of the SOH that ends the BodyLength's digits, or {@link #INCOMPLETE} or {@link #UNDECLARED}.
+     */
+    private static int bodyLengthEnd(final ByteBuffer segment, final int start) {
+        final int limit = segment.limit();
+        final int digitsLimit = start + MAX_BODY_LENGTH_DIGITS;
+        int pos = start;
+        while (pos < limit && pos < digitsLimit && segment.get(pos) != ASCII_SOH) {
+            final int digit = segment.get(pos++) - '0';
+            if (digit < 0 || digit > 9) {
+                return UNDECLARED;
+            }
+        }
+        if (pos >= digitsLimit) {
+            return UNDECLARED;
+        }
+        if (pos >= limit) {
+            return INCOMPLETE;
+        }
+        return pos == start ? UNDECLARED : pos;
     }
 
     private int findEndOfCurrentMessage(final ByteBuffer segment) {
-        final byte[] buffer = segment.array();
-        int pos = segment.position();
+        final int checksumStart = FixMessageScanner.indexOfChecksumStart(segment, segment.position(), segment.limit());
+        return findEndOfChecksum(segment, checksumStart);
+    }
+
+    private static int findEndOfChecksum(final ByteBuffer segment, final int checksumStart) {
         final int limit = segment.limit();
 
-        while (pos < limit) {
-            if (isStartOfChecksum(buffer, pos, limit)) {
-                pos += 4;
-                while (pos < limit) {
-                    if (ASCII_SOH == buffer[pos++]) {
-                        segment.position(pos);
-                        return pos;
-                    }
+        if (checksumStart != -1) {
+            for (int pos = checksumStart + 4; pos < limit; pos++) {
+                if (ASCII_SOH == segment.get(pos)) {
+                    segment.position(pos + 1);
+                    return pos + 1;
                 }
             }
-
-            pos++;
         }
 
         segment.position(limit);
@@ -224,15 +454,39 @@ public final class FixStreamMessageParser implements ByteStreamMessageParser {
         return -1;
     }
 
-    private boolean isStartOfChecksum(final byte[] buffer, final int pos, final int limit) {
-        return pos + 3 < limit &&
-               FIX_MESSAGE_END_CODEC == Bits.readInt(buffer, pos);
+    private void skipped(final int length) {
+        if (length > 0) {
+            messageParserCallback.onBytesSkipped(length);
+        }
     }
 
-    private void callbackMessage(final byte[] buffer, final int startPos, final int endPos) {
-        if (endPos - startPos > maxMessageSize) {
-            throw new IllegalStateException("Msg size [" + (endPos - startPos) + "], Max allowed size [" + maxMessageSize + "]");
+    private void callbackMessage(final ByteBuffer buffer, final int startPos, final int endPos) {
+        final int length = endPos - startPos;
+        if (length > maxMessageSize) {
+            throw new IllegalStateException("Msg size [" + length + "], Max allowed size [" + maxMessageSize + "]");
+        }
+        if (buffer.hasArray()) {
+            callbackMessage(buffer.array(), buffer.arrayOffset() + startPos, length);
+        } else {
+            buffer.get(startPos, messageCopy, 0, length);
+            callbackMessage(messageCopy, 0, length);
         }
-        messageParserCallback.onMessage(buffer, startPos, endPos - startPos);
+    }
+
+    private void callbackMessage(final byte[] message, final int offset, final int length) {
+        final int checksum = framedChecksum;
+        framedChecksum = MessageIntegrity.UNKNOWN;
+        if (messageIntegrity == null) {
+            messageParserCallback.onMessage(message, offset, length);
+        } else {
+            messageIntegrity.update(message, offset, length, checksum);
+            messageParserCallback.onMessage(message, offset, length, messageIntegrity);
+        }
+    }
+
+    private static String contentsOf(final ByteBuffer buffer, final int limit) {
+        final byte[] contents = new byte[limit];
+        buffer.get(0, contents);
+        return new String(contents, FixUtil.getCharset());
     }
 }
@@ -19,6 +19,13 @@ package com.lmax.nanofix.incoming;
 public interface FixTagHandler {
     void messageStart();
 
+    /**
+     * Called straight after {@link #messageStart()} when the message came from a {@link FixStreamMessageParser}.
+     * The integrity instance is reused and must not be retained.
+     */
+    default void onMessageIntegrity(MessageIntegrity integrity) {
+    }
+
     void onTag(int tagIdentity, byte[] message, int tagValueOffset, int tagValueLength);
 
     boolean isFinished();
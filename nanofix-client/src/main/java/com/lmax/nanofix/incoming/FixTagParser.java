@@ -38,7 +38,18 @@ public final class FixTagParser {
     }
 
     public boolean parse(final byte[] message, final int offset, final int length, final boolean throwExceptionOnParseFailure) {
+        return parse(message, offset, length, throwExceptionOnParseFailure, null);
+    }
+
+    /**
+     * @param integrity passed on to the handler before the first tag, if not null.
+     */
+    public boolean parse(final byte[] message, final int offset, final int length, final boolean throwExceptionOnParseFailure,
+                         final MessageIntegrity integrity) {
         fixTagHandler.messageStart();
+        if (integrity != null) {
+            fixTagHandler.onMessageIntegrity(integrity);
+        }
 
         int tagStart = offset;
         int equalsIndex = -1;
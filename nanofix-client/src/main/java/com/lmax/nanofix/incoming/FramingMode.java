@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+/**
+ * How {@link FixStreamMessageParser} finds the end of each message.
+ */
+public enum FramingMode {
+    /**
+     * Scan every byte of the message for the start of the 10 CheckSum field.
+     */
+    SCAN,
+
+    /**
+     * Read the 9 BodyLength field and jump straight to the CheckSum field it points at.
+     * Falls back to scanning when the declared length is missing or does not lead to a CheckSum field,
+     * so malformed messages are framed exactly as they are in {@link #SCAN} mode.
+     */
+    BODY_LENGTH
+}
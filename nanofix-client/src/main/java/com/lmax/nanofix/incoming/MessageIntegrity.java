@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+/**
+ * The BodyLength and CheckSum a message declares, next to the values computed from the bytes it arrived in.
+ * <p>
+ * The parser reuses a single instance for every message, so it must not be retained once the {@link MessageParserCallback}
+ * has returned. {@link FixMessage} keeps its own copy of the results.
+ */
+public final class MessageIntegrity {
+    public static final int UNKNOWN = -1;
+
+    private static final byte ASCII_SOH = 1;
+    private static final byte ASCII_EQUALS = 61;
+    private static final int MAX_CHECKSUM_DIGITS = 3;
+    private static final int MAX_BODY_LENGTH_DIGITS = 9;
+    private static final int MAX_BEGIN_STRING_LENGTH = 16;
+
+    private int declaredBodyLength = UNKNOWN;
+    private int computedBodyLength = UNKNOWN;
+    private int declaredChecksum = UNKNOWN;
+    private int computedChecksum = UNKNOWN;
+
+    public int getDeclaredBodyLength() {
+        return declaredBodyLength;
+    }
+
+    public int getComputedBodyLength() {
+        return computedBodyLength;
+    }
+
+    public int getDeclaredChecksum() {
+        return declaredChecksum;
+    }
+
+    public int getComputedChecksum() {
+        return computedChecksum;
+    }
+
+    public boolean isBodyLengthValid() {
+        return declaredBodyLength != UNKNOWN && declaredBodyLength == computedBodyLength;
+    }
+
+    public boolean isChecksumValid() {
+        return declaredChecksum != UNKNOWN && declaredChecksum == computedChecksum;
+    }
+
+    public boolean isValid() {
+        return isBodyLengthValid() && isChecksumValid();
+    }
+
+    /**
+     * Computes the results for a single framed message. A message that was truncated, or whose header or trailer is malformed,
+     * has {@link #UNKNOWN} for the values that could not be read and is never valid.
+     */
+    void update(final byte[] message, final int offset, final int length) {
+        update(message, offset, length, UNKNOWN);
+    }
+
+    /**
+     * @param scannedChecksum the sum of the bytes up to the CheckSum field, when the parser added them up while framing the
+     *                        message, or {@link #UNKNOWN} to have them summed here.
+     */
+    void update(final byte[] message, final int offset, final int length, final int scannedChecksum) {
+        final int end = offset + length;
+        final int checksumStart = checksumStart(message, offset, end);
+        declaredChecksum = checksumStart == UNKNOWN ? UNKNOWN : readDigits(message, checksumStart + 4, end - 1, MAX_CHECKSUM_DIGITS);
+        if (checksumStart != UNKNOWN && scannedChecksum != UNKNOWN) {
+            computedChecksum = scannedChecksum;
+        } else {
+            computedChecksum = FixMessageScanner.checksum(message, offset, checksumStart == UNKNOWN ? end : checksumStart + 1);
+        }
+
+        declaredBodyLength = UNKNOWN;
+        computedBodyLength = UNKNOWN;
+        final int bodyLengthStart = bodyLengthStart(message, offset, end);
+        if (bodyLengthStart == UNKNOWN) {
+            return;
+        }
+        final int bodyLengthEnd = indexOfSoh(message, bodyLengthStart, Math.min(end, bodyLengthStart + MAX_BODY_LENGTH_DIGITS + 1));
+        if (bodyLengthEnd == UNKNOWN) {
+            return;
+        }
+        declaredBodyLength = readDigits(message, bodyLengthStart, bodyLengthEnd, MAX_BODY_LENGTH_DIGITS);
+        // BodyLength counts from the byte after its own SOH up to and including the SOH that precedes 10=
+        if (checksumStart != UNKNOWN && checksumStart > bodyLengthEnd) {
+            computedBodyLength = checksumStart - bodyLengthEnd;
+        }
+    }
+
+    void copyFrom(final MessageIntegrity other) {
+        declaredBodyLength = other.declaredBodyLength;
+        computedBodyLength = other.computedBodyLength;
+        declaredChecksum = other.declaredChecksum;
+        computedChecksum = other.computedChecksum;
+    }
+
+    /**
+     * @return the index of the SOH that precedes the trailing "10=", or {@link #UNKNOWN} if the message does not end with
+     * a CheckSum field.
+     */
+    private static int checksumStart(final byte[] message, final int offset, final int end) {
+        if (end - offset < 5 || message[end - 1] != ASCII_SOH) {
+            return UNKNOWN;
+        }
+        final int searchLimit = Math.max(offset, end - (MAX_CHECKSUM_DIGITS + 5));
+        for (int pos = end - 2; pos >= searchLimit; pos--) {
+            if (message[pos] == ASCII_SOH) {
+                final boolean isChecksum = pos + 3 < end && message[pos + 1] == '1' && message[pos + 2] == '0' && message[pos + 3] == ASCII_EQUALS;
+                return isChecksum ? pos : UNKNOWN;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @return the index of the first digit of the BodyLength field that follows BeginString, or {@link #UNKNOWN} if the message
+     * does not start with those fields.
+     */
+    private static int bodyLengthStart(final byte[] message, final int offset, final int end) {
+        final int beginStringEnd = indexOfSoh(message, offset, Math.min(end, offset + MAX_BEGIN_STRING_LENGTH));
+        if (beginStringEnd == UNKNOWN || beginStringEnd + 2 >= end || message[beginStringEnd + 1] != '9' || message[beginStringEnd + 2] != ASCII_EQUALS) {
+            return UNKNOWN;
+        }
+        return beginStringEnd + 3;
+    }
+
+    private static int indexOfSoh(final byte[] message, final int from, final int limit) {
+        for (int pos = from; pos < limit; pos++) {
+            if (message[pos] == ASCII_SOH) {
+                return pos;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @return the non negative integer in [from, to), or {@link #UNKNOWN} if it is empty, too long or not all digits.
+     */
+    private static int readDigits(final byte[] message, final int from, final int to, final int maxDigits) {
+        if (to <= from || to - from > maxDigits) {
+            return UNKNOWN;
+        }
+        int value = 0;
+        for (int pos = from; pos < to; pos++) {
+            final int digit = message[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                return UNKNOWN;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageIntegrity{" +
+               "declaredBodyLength=" + declaredBodyLength +
+               ", computedBodyLength=" + computedBodyLength +
+               ", declaredChecksum=" + declaredChecksum +
+               ", computedChecksum=" + computedChecksum +
+               '}';
+    }
+}
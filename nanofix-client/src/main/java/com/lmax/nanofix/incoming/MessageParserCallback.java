@@ -19,8 +19,23 @@ package com.lmax.nanofix.incoming;
 public interface MessageParserCallback {
     void onMessage(byte[] buffer, int offset, int length);
 
+    /**
+     * Called by {@link FixStreamMessageParser} instead of {@link #onMessage(byte[], int, int)} when it was constructed to
+     * verify integrity, with the BodyLength and CheckSum checks it made for the message. The integrity instance is reused
+     * and must not be retained after this call returns.
+     */
+    default void onMessage(byte[] buffer, int offset, int length, MessageIntegrity integrity) {
+        onMessage(buffer, offset, length);
+    }
+
     void onTruncatedMessage();
 
+    /**
+     * Called when bytes that are not part of any message are passed over, such as junk ahead of the next BeginString.
+     */
+    default void onBytesSkipped(int length) {
+    }
+
     void onParseError(String error);
 }
 
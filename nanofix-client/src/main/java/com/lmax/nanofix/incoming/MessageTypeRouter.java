@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.util.Arrays;
+
+import com.lmax.nanofix.FixUtil;
+
+/**
+ * A dispatch table from MsgType to the handlers subscribed to it. MsgTypes are packed into a long, one byte per
+ * character, so a lookup from raw message bytes neither allocates nor compares Strings. The table is replaced on each
+ * subscription, so lookups need no locking.
+ */
+final class MessageTypeRouter {
+    static final FixMessageHandler[] NO_HANDLERS = new FixMessageHandler[0];
+    private static final long NO_KEY = 0;
+    private static final byte ASCII_SOH = 1;
+    private static final byte ASCII_EQUALS = 61;
+    private static final int MSG_TYPE_TAG = 35;
+
+    private volatile Route[] routes = new Route[0];
+
+    synchronized void subscribe(final byte[] msgType, final FixMessageHandler fixMessageHandler) {
+        final long key = keyOf(msgType, 0, msgType.length);
+        if (key == NO_KEY) {
+            throw new IllegalArgumentException("MsgType must be between 1 and " + Long.BYTES + " characters: " + new String(msgType, FixUtil.getCharset()));
+        }
+
+        final Route[] currentRoutes = routes;
+        final int index = indexOf(currentRoutes, key);
+        final Route[] newRoutes;
+        if (index == -1) {
+            newRoutes = Arrays.copyOf(currentRoutes, currentRoutes.length + 1);
+            newRoutes[currentRoutes.length] = new Route(key, new FixMessageHandler[]{fixMessageHandler});
+        } else {
+            final FixMessageHandler[] currentHandlers = currentRoutes[index].handlers;
+            final FixMessageHandler[] newHandlers = Arrays.copyOf(currentHandlers, currentHandlers.length + 1);
+            newHandlers[currentHandlers.length] = fixMessageHandler;
+            newRoutes = currentRoutes.clone();
+            newRoutes[index] = new Route(key, newHandlers);
+        }
+        routes = newRoutes;
+    }
+
+    boolean isEmpty() {
+        return routes.length == 0;
+    }
+
+    /**
+     * @return the handlers for the MsgType in the third field of the raw message, which is where FIX requires it to be.
+     */
+    FixMessageHandler[] handlersFor(final byte[] buffer, final int offset, final int length) {
+        final int end = offset + length;
+        final int beginStringEnd = indexOfSoh(buffer, offset, end);
+        final int bodyLengthEnd = beginStringEnd == -1 ? -1 : indexOfSoh(buffer, beginStringEnd + 1, end);
+        final int msgTypeStart = bodyLengthEnd + 4;
+        if (bodyLengthEnd == -1 || msgTypeStart > end || buffer[bodyLengthEnd + 1] != '3' || buffer[bodyLengthEnd + 2] != '5'
+            || buffer[bodyLengthEnd + 3] != ASCII_EQUALS) {
+            return NO_HANDLERS;
+        }
+        final int msgTypeEnd = indexOfSoh(buffer, msgTypeStart, Math.min(end, msgTypeStart + Long.BYTES + 1));
+        return msgTypeEnd == -1 ? NO_HANDLERS : handlersFor(keyOf(buffer, msgTypeStart, msgTypeEnd - msgTypeStart));
+    }
+
+    FixMessageHandler[] handlersFor(final FixMessage fixMessage) {
+        if (!fixMessage.hasValue(MSG_TYPE_TAG)) {
+            return NO_HANDLERS;
+        }
+        final byte[] msgType = fixMessage.getFirstValue(MSG_TYPE_TAG).getBytes(FixUtil.getCharset());
+        return handlersFor(keyOf(msgType, 0, msgType.length));
+    }
+
+    private FixMessageHandler[] handlersFor(final long key) {
+        final Route[] currentRoutes = routes;
+        final int index = key == NO_KEY ? -1 : indexOf(currentRoutes, key);
+        return index == -1 ? NO_HANDLERS : currentRoutes[index].handlers;
+    }
+
+    private static int indexOf(final Route[] routes, final long key) {
+        for (int i = 0; i < routes.length; i++) {
+            if (routes[i].key == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long keyOf(final byte[] msgType, final int offset, final int length) {
+        if (length < 1 || length > Long.BYTES) {
+            return NO_KEY;
+        }
+        long key = 0;
+        for (int i = offset; i < offset + length; i++) {
+            key = (key << 8) | (msgType[i] & 0xFF);
+        }
+        return key;
+    }
+
+    private static int indexOfSoh(final byte[] buffer, final int from, final int limit) {
+        for (int pos = from; pos < limit; pos++) {
+            if (buffer[pos] == ASCII_SOH) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Route {
+        private final long key;
+        private final FixMessageHandler[] handlers;
+
+        Route(final long key, final FixMessageHandler[] handlers) {
+            this.key = key;
+            this.handlers = handlers;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.lmax.nanofix.incoming;
 
+import com.lmax.nanofix.metrics.FixClientMetrics;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,23 +24,78 @@ import org.slf4j.LoggerFactory;
 public class RawFixMessageHandler implements MessageParserCallback {
     private static final Logger LOGGER = LoggerFactory.getLogger(RawFixMessageHandler.class);
     private final FixTagParser fixTagParser;
+    private final FixMessagePublisher fixMessagePublisher;
+    private final FixClientMetrics metrics;
+    private final FixMessageFlyweight fixMessageFlyweight = new FixMessageFlyweight();
 
     public RawFixMessageHandler(final FixTagParser fixTagParser) {
+        this(fixTagParser, null);
+    }
+
+    /**
+     * @param fixTagParser        parses messages for {@link FixMessageHandler} subscribers of the publisher.
+     * @param fixMessagePublisher when supplied, flyweights and tag filtered messages are published to it and full tag parsing
+     *                            is skipped unless it has a {@link FixMessageHandler} subscribed to all messages or to
+     *                            the message's type.
+     */
+    public RawFixMessageHandler(final FixTagParser fixTagParser, final FixMessagePublisher fixMessagePublisher) {
+        this(fixTagParser, fixMessagePublisher, new FixClientMetrics());
+    }
+
+    /**
+     * @param metrics counts the messages received, truncated messages and parse errors.
+     */
+    public RawFixMessageHandler(final FixTagParser fixTagParser, final FixMessagePublisher fixMessagePublisher, final FixClientMetrics metrics) {
         this.fixTagParser = fixTagParser;
+        this.fixMessagePublisher = fixMessagePublisher;
+        this.metrics = metrics;
     }
 
     @Override
     public void onMessage(final byte[] buffer, final int offset, final int length) {
-        fixTagParser.parse(buffer, offset, length, true);
+        onMessage(buffer, offset, length, null);
+    }
+
+    @Override
+    public void onMessage(final byte[] buffer, final int offset, final int length, final MessageIntegrity integrity) {
+        metrics.onMessageReceived();
+        if (fixMessagePublisher == null) {
+            fixTagParser.parse(buffer, offset, length, true, integrity);
+            return;
+        }
+
+        if (fixMessagePublisher.hasFlyweightSubscribers()) {
+            fixMessagePublisher.onFixMessage(fixMessageFlyweight.wrap(buffer, offset, length));
+        }
+        final boolean routed = fixMessagePublisher.hasMessageTypeSubscribers() && fixMessagePublisher.routeMessage(buffer, offset, length);
+        try {
+            if (routed || fixMessagePublisher.hasFixMessageSubscribers()) {
+                fixTagParser.parse(buffer, offset, length, true, integrity);
+            }
+        } finally {
+            // a message that fails to parse is never published, so its route must not be left for the next one
+            fixMessagePublisher.clearRoute();
+        }
+        if (fixMessagePublisher.hasTagFilteredSubscribers()) {
+            fixMessagePublisher.publishToTagFilteredSubscribers(buffer, offset, length, integrity);
+        }
     }
 
     @Override
     public void onTruncatedMessage() {
+        metrics.onTruncatedMessage();
         LOGGER.warn("Truncated Message received");
     }
 
+    @Override
+    public void onBytesSkipped(final int length) {
+        metrics.onBytesSkipped(length);
+        LOGGER.warn("Skipped {} bytes that were not part of a message", length);
+    }
+
     @Override
     public void onParseError(final String error) {
+        metrics.onParseError();
         LOGGER.error("Unable to parse data: " + error);
     }
 }
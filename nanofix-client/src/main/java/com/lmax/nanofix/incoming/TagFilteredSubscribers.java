@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.util.Arrays;
+
+/**
+ * Feeds one parse of each message to every subscriber of {@link FixMessagePublisher#subscribeToMessagesWithTags}, so N
+ * subscribers cost a single walk of the message, which stops once all of them have seen all of their tags.
+ * <p>
+ * Subscriptions may be added while messages are being parsed. Each message goes to the subscribers there were when it started.
+ */
+final class TagFilteredSubscribers implements FixTagHandler {
+    private volatile TagFilteringFixMessageFactory[] subscribers = new TagFilteringFixMessageFactory[0];
+    private TagFilteringFixMessageFactory[] current = subscribers;
+
+    synchronized void subscribe(final TagFilteringFixMessageFactory subscriber) {
+        final TagFilteringFixMessageFactory[] newSubscribers = Arrays.copyOf(subscribers, subscribers.length + 1);
+        newSubscribers[subscribers.length] = subscriber;
+        subscribers = newSubscribers;
+    }
+
+    boolean isEmpty() {
+        return subscribers.length == 0;
+    }
+
+    @Override
+    public void messageStart() {
+        current = subscribers;
+        for (final TagFilteringFixMessageFactory subscriber : current) {
+            subscriber.messageStart();
+        }
+    }
+
+    @Override
+    public void onMessageIntegrity(final MessageIntegrity integrity) {
+        for (final TagFilteringFixMessageFactory subscriber : current) {
+            subscriber.onMessageIntegrity(integrity);
+        }
+    }
+
+    @Override
+    public void onTag(final int tagIdentity, final byte[] message, final int tagValueOffset, final int tagValueLength) {
+        for (final TagFilteringFixMessageFactory subscriber : current) {
+            subscriber.onTag(tagIdentity, message, tagValueOffset, tagValueLength);
+        }
+    }
+
+    /**
+     * @return true once every subscriber has seen all of its tags, the union of their tag sets.
+     */
+    @Override
+    public boolean isFinished() {
+        for (final TagFilteringFixMessageFactory subscriber : current) {
+            if (!subscriber.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void messageEnd() {
+        for (final TagFilteringFixMessageFactory subscriber : current) {
+            subscriber.messageEnd();
+        }
+    }
+}
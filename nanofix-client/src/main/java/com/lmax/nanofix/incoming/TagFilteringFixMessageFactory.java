@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.util.Arrays;
+
+import com.lmax.nanofix.FixUtil;
+
+/**
+ * Builds {@link FixMessage}s that hold only the requested tags, finishing the parse as soon as every one of them has been seen.
+ * Values of other tags are never turned into Strings.
+ * <p>
+ * Only the first occurrence of each requested tag is kept. A message that lacks some of the tags is still published, with
+ * whichever of them it did contain.
+ */
+public class TagFilteringFixMessageFactory implements FixTagHandler {
+    private final FixMessageHandler handler;
+    private final int[] tagIds;
+    private final boolean[] seen;
+    private FixMessage fixMessage;
+    private int remaining;
+
+    public TagFilteringFixMessageFactory(final FixMessageHandler handler, final int... tagIds) {
+        if (tagIds.length == 0) {
+            throw new IllegalArgumentException("At least one tag must be requested");
+        }
+        this.handler = handler;
+        this.tagIds = Arrays.stream(tagIds).distinct().toArray();
+        this.seen = new boolean[this.tagIds.length];
+    }
+
+    @Override
+    public void messageStart() {
+        fixMessage = new FixMessage(tagIds.length);
+        Arrays.fill(seen, false);
+        remaining = tagIds.length;
+    }
+
+    @Override
+    public void onMessageIntegrity(final MessageIntegrity integrity) {
+        fixMessage.setIntegrity(integrity);
+    }
+
+    @Override
+    public void onTag(final int tagIdentity, final byte[] message, final int tagValueOffset, final int tagValueLength) {
+        final int index = indexOf(tagIdentity);
+        if (index != -1 && !seen[index]) {
+            seen[index] = true;
+            remaining--;
+            fixMessage.add(tagIdentity, new String(message, tagValueOffset, tagValueLength, FixUtil.getCharset()));
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return remaining == 0;
+    }
+
+    @Override
+    public void messageEnd() {
+        final FixMessage completedMessage = fixMessage;
+        fixMessage = null;
+        handler.onFixMessage(completedMessage);
+    }
+
+    /**
+     * A linear search, as subscriptions name a handful of tags.
+     */
+    private int indexOf(final int tagIdentity) {
+        for (int i = 0; i < tagIds.length; i++) {
+            if (tagIds[i] == tagIdentity) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
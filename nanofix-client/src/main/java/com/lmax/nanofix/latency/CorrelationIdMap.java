@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.latency;
+
+import java.util.Arrays;
+
+/**
+ * An open addressed map from short ASCII ids, e.g. ClOrdIDs, to long values, with the keys copied into a preallocated
+ * byte array so that neither puts nor removes allocate. Linear probing, with removals shifting later entries of the
+ * same run back so that no tombstones are left behind. Not thread safe.
+ */
+public final class CorrelationIdMap {
+    /**
+     * Returned by {@link #remove} when the id is not in the map.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private final int maxEntries;
+    private final int maxKeyLength;
+    private final int mask;
+    private final byte[] keys;
+    private final int[] keyLengths;
+    private final int[] hashes;
+    private final long[] values;
+    private int size;
+
+    /**
+     * @param maxEntries   the most ids that can be held at once.
+     * @param maxKeyLength the longest id, in bytes, that can be held.
+     */
+    public CorrelationIdMap(final int maxEntries, final int maxKeyLength) {
+        if (maxEntries < 1 || maxKeyLength < 1) {
+            throw new IllegalArgumentException("maxEntries and maxKeyLength must be positive");
+        }
+        final int capacity = Integer.highestOneBit(maxEntries * 2 - 1) << 1;
+        this.maxEntries = maxEntries;
+        this.maxKeyLength = maxKeyLength;
+        this.mask = capacity - 1;
+        this.keys = new byte[capacity * maxKeyLength];
+        this.keyLengths = new int[capacity];
+        this.hashes = new int[capacity];
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Adds the id, or replaces its value if it is already held.
+     *
+     * @return false if the id is empty or longer than the maximum key length, or the map is full.
+     */
+    public boolean put(final byte[] key, final int offset, final int length, final long value) {
+        if (length == 0 || length > maxKeyLength) {
+            return false;
+        }
+        final int hash = hash(key, offset, length);
+        int slot = hash & mask;
+        while (keyLengths[slot] != 0) {
+            if (matches(slot, hash, key, offset, length)) {
+                values[slot] = value;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == maxEntries) {
+            return false;
+        }
+        System.arraycopy(key, offset, keys, slot * maxKeyLength, length);
+        keyLengths[slot] = length;
+        hashes[slot] = hash;
+        values[slot] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return the value the id was held with, or {@link #MISSING} if it was not held.
+     */
+    public long remove(final byte[] key, final int offset, final int length) {
+        if (length == 0 || length > maxKeyLength) {
+            return MISSING;
+        }
+        final int hash = hash(key, offset, length);
+        int slot = hash & mask;
+        while (keyLengths[slot] != 0) {
+            if (matches(slot, hash, key, offset, length)) {
+                final long value = values[slot];
+                removeSlot(slot);
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+
+    public void clear() {
+        Arrays.fill(keyLengths, 0);
+        size = 0;
+    }
+
+    private void removeSlot(final int removed) {
+        int hole = removed;
+        int slot = (removed + 1) & mask;
+        while (keyLengths[slot] != 0) {
+            final int home = hashes[slot] & mask;
+            // an entry can only move back into the hole if the hole lies between its home slot and where it is now
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                System.arraycopy(keys, slot * maxKeyLength, keys, hole * maxKeyLength, keyLengths[slot]);
+                keyLengths[hole] = keyLengths[slot];
+                hashes[hole] = hashes[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keyLengths[hole] = 0;
+        size--;
+    }
+
+    private boolean matches(final int slot, final int hash, final byte[] key, final int offset, final int length) {
+        if (hashes[slot] != hash || keyLengths[slot] != length) {
+            return false;
+        }
+        final int start = slot * maxKeyLength;
+        return Arrays.equals(keys, start, start + length, key, offset, offset + length);
+    }
+
+    private static int hash(final byte[] key, final int offset, final int length) {
+        int hash = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ key[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.latency;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.lmax.nanofix.fields.Tags;
+import com.lmax.nanofix.incoming.FixMessageFlyweight;
+import com.lmax.nanofix.incoming.FixMessageFlyweightHandler;
+import com.lmax.nanofix.outgoing.WriteObserver;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Measures round trip latency by correlating outbound and inbound messages on a tag, ClOrdID by default. The outbound
+ * bytes are scanned as they are written and each id is stamped with {@link System#nanoTime()} once its write has returned.
+ * The first inbound message carrying the same id then records the time since into a histogram, and later ones are ignored.
+ * Neither side allocates: ids are held in a {@link CorrelationIdMap} and recorded through an HdrHistogram {@link Recorder}.
+ * <p>
+ * Attach with {@link com.lmax.nanofix.FixClient#attachLatencyProbe(LatencyProbe)}. Messages must be written whole and in
+ * order, so with more than one sending thread configure {@link com.lmax.nanofix.FixClientConfiguration#asyncSend}.
+ */
+public final class LatencyProbe implements WriteObserver, FixMessageFlyweightHandler {
+    private static final int DEFAULT_MAX_OUTSTANDING = 65536;
+    private static final int DEFAULT_MAX_ID_LENGTH = 64;
+    private static final long DEFAULT_HIGHEST_TRACKABLE_NANOS = 60_000_000_000L;
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final byte SOH = 1;
+    private static final byte EQUALS = '=';
+
+    private static final int FIELD_START = 0;
+    private static final int IN_TAG = 1;
+    private static final int IN_VALUE = 2;
+    private static final int SKIPPING = 3;
+
+    private final int correlationTag;
+    private final byte[] tagDigits;
+    private final long highestTrackableNanos;
+    private final CorrelationIdMap sendTimes;
+    private final byte[] outboundId;
+    private final byte[] stampedId;
+    private final byte[] inboundId;
+    private final Recorder recorder;
+    private final Object histogramLock = new Object();
+    private final Histogram accumulated;
+    private Histogram interval;
+
+    private int scanState = FIELD_START;
+    private int tagDigitsMatched;
+    private int outboundIdLength;
+
+    private long messagesStamped;
+    private long stampsDropped;
+    private long messagesMatched;
+    private long messagesUnmatched;
+
+    public LatencyProbe() {
+        this(Tags.ClOrdID.getTag());
+    }
+
+    public LatencyProbe(final int correlationTag) {
+        this(correlationTag, DEFAULT_MAX_OUTSTANDING, DEFAULT_MAX_ID_LENGTH, DEFAULT_HIGHEST_TRACKABLE_NANOS);
+    }
+
+    /**
+     * @param correlationTag        the tag carrying the id on both outbound and inbound messages.
+     * @param maxOutstanding        the most ids that can be awaiting a reply at once, further ids are not stamped.
+     * @param maxIdLength           the longest id in bytes, longer ids are not stamped.
+     * @param highestTrackableNanos the largest latency the histogram can hold, larger ones are recorded as this value.
+     */
+    public LatencyProbe(final int correlationTag, final int maxOutstanding, final int maxIdLength, final long highestTrackableNanos) {
+        this.correlationTag = correlationTag;
+        this.tagDigits = Integer.toString(correlationTag).getBytes(StandardCharsets.US_ASCII);
+        this.highestTrackableNanos = highestTrackableNanos;
+        this.sendTimes = new CorrelationIdMap(maxOutstanding, maxIdLength);
+        this.outboundId = new byte[maxIdLength];
+        this.stampedId = new byte[maxIdLength];
+        this.inboundId = new byte[maxIdLength];
+        this.recorder = new Recorder(highestTrackableNanos, SIGNIFICANT_DIGITS);
+        this.accumulated = new Histogram(highestTrackableNanos, SIGNIFICANT_DIGITS);
+    }
+
+    @Override
+    public synchronized void onBytesWritten(final ByteBuffer buffer, final int offset, final int length) {
+        final long writtenAt = System.nanoTime();
+        for (int i = offset; i < offset + length; i++) {
+            scan(buffer.get(i), writtenAt);
+        }
+    }
+
+    /**
+     * Stamps an id with a send time chosen by the caller, e.g. the intended send time of a scheduled message, so that
+     * latency is measured from when the message should have gone rather than when it did. A probe used this way should
+     * only be subscribed to inbound messages, as a write of the same id would replace the stamp.
+     *
+     * @return false if the id was not stamped, because it was too long or too many were outstanding.
+     */
+    public synchronized boolean stamp(final ByteBuffer buffer, final int offset, final int length, final long sentAtNanos) {
+        if (length <= stampedId.length) {
+            buffer.get(offset, stampedId, 0, length);
+            if (sendTimes.put(stampedId, 0, length, sentAtNanos)) {
+                messagesStamped++;
+                return true;
+            }
+        }
+        stampsDropped++;
+        return false;
+    }
+
+    /**
+     * Removes the stamp of an id whose message was never sent, e.g. one dropped by a full send queue, so that no reply is
+     * awaited for it.
+     */
+    public synchronized void unstamp(final ByteBuffer buffer, final int offset, final int length) {
+        if (length <= stampedId.length) {
+            buffer.get(offset, stampedId, 0, length);
+            if (sendTimes.remove(stampedId, 0, length) != CorrelationIdMap.MISSING) {
+                messagesStamped--;
+            }
+        }
+    }
+
+    @Override
+    public void onFixMessage(final FixMessageFlyweight fixMessage) {
+        final long receivedAt = System.nanoTime();
+        if (!fixMessage.hasValue(correlationTag)) {
+            return;
+        }
+        final int length = fixMessage.getValueLength(correlationTag);
+        if (length == 0 || length > inboundId.length) {
+            return;
+        }
+        fixMessage.getBytes(correlationTag, inboundId, 0);
+        final long writtenAt = removeSendTime(length);
+        if (writtenAt != CorrelationIdMap.MISSING) {
+            recorder.recordValue(Math.min(Math.max(receivedAt - writtenAt, 0), highestTrackableNanos));
+        }
+    }
+
+    /**
+     * @return a copy of every latency recorded since creation or the last {@link #reset()}, in nanoseconds.
+     */
+    public Histogram getHistogram() {
+        synchronized (histogramLock) {
+            accumulateInterval();
+            return accumulated.copy();
+        }
+    }
+
+    /**
+     * Writes the percentile distribution of the latencies recorded so far, in microseconds.
+     */
+    public void outputPercentileDistribution(final PrintStream out) {
+        synchronized (histogramLock) {
+            accumulateInterval();
+            accumulated.outputPercentileDistribution(out, NANOS_PER_MICRO);
+        }
+    }
+
+    /**
+     * Discards the recorded latencies and the ids awaiting a reply, along with the counts.
+     */
+    public void reset() {
+        synchronized (histogramLock) {
+            accumulateInterval();
+            accumulated.reset();
+        }
+        synchronized (this) {
+            sendTimes.clear();
+            messagesStamped = 0;
+            stampsDropped = 0;
+            messagesMatched = 0;
+            messagesUnmatched = 0;
+        }
+    }
+
+    public int getCorrelationTag() {
+        return correlationTag;
+    }
+
+    /**
+     * @return the number of outbound ids stamped with a write time.
+     */
+    public synchronized long getMessagesStamped() {
+        return messagesStamped;
+    }
+
+    /**
+     * @return the number of outbound ids that were not stamped, because they were too long or too many were outstanding.
+     */
+    public synchronized long getStampsDropped() {
+        return stampsDropped;
+    }
+
+    /**
+     * @return the number of inbound messages whose latency was recorded.
+     */
+    public synchronized long getMessagesMatched() {
+        return messagesMatched;
+    }
+
+    /**
+     * @return the number of inbound messages carrying the tag whose id was not awaiting a reply, either because it had
+     * already been matched or because the reply arrived before the write that carried it had returned.
+     */
+    public synchronized long getMessagesUnmatched() {
+        return messagesUnmatched;
+    }
+
+    /**
+     * @return the number of stamped ids still awaiting a reply.
+     */
+    public synchronized int getOutstanding() {
+        return sendTimes.size();
+    }
+
+    private void scan(final byte b, final long writtenAt) {
+        if (scanState == IN_VALUE) {
+            if (b == SOH) {
+                stamp(writtenAt);
+                scanState = FIELD_START;
+            } else if (outboundIdLength < outboundId.length) {
+                outboundId[outboundIdLength++] = b;
+            } else {
+                outboundIdLength = Integer.MAX_VALUE;
+            }
+        } else if (b == SOH) {
+            scanState = FIELD_START;
+        } else if (scanState == FIELD_START || scanState == IN_TAG) {
+            final int matched = scanState == FIELD_START ? 0 : tagDigitsMatched;
+            if (matched == tagDigits.length) {
+                scanState = b == EQUALS ? IN_VALUE : SKIPPING;
+                outboundIdLength = 0;
+            } else if (b == tagDigits[matched]) {
+                scanState = IN_TAG;
+                tagDigitsMatched = matched + 1;
+            } else {
+                scanState = SKIPPING;
+            }
+        }
+    }
+
+    private void stamp(final long writtenAt) {
+        if (outboundIdLength <= outboundId.length && sendTimes.put(outboundId, 0, outboundIdLength, writtenAt)) {
+            messagesStamped++;
+        } else {
+            stampsDropped++;
+        }
+    }
+
+    private synchronized long removeSendTime(final int idLength) {
+        final long writtenAt = sendTimes.remove(inboundId, 0, idLength);
+        if (writtenAt == CorrelationIdMap.MISSING) {
+            messagesUnmatched++;
+        } else {
+            messagesMatched++;
+        }
+        return writtenAt;
+    }
+
+    private void accumulateInterval() {
+        interval = recorder.getIntervalHistogram(interval);
+        accumulated.add(interval);
+    }
+}
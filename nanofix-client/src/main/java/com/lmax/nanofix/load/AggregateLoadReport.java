@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.load;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * The outcome of a {@link LoadOrchestrator} run: a {@link LoadReport} for each session, named by its SenderCompID, and their
+ * combination, with the sessions' latency histograms merged.
+ */
+public final class AggregateLoadReport {
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final List<String> sessionNames;
+    private final List<LoadReport> sessionReports;
+    private final LoadReport total;
+
+    public AggregateLoadReport(final List<String> sessionNames, final List<LoadReport> sessionReports) {
+        if (sessionNames.size() != sessionReports.size()) {
+            throw new IllegalArgumentException(sessionNames.size() + " session names for " + sessionReports.size() + " reports");
+        }
+        this.sessionNames = Collections.unmodifiableList(new ArrayList<>(sessionNames));
+        this.sessionReports = Collections.unmodifiableList(new ArrayList<>(sessionReports));
+        this.total = LoadReport.combine(sessionReports);
+    }
+
+    /**
+     * @return every session's report combined.
+     */
+    public LoadReport getTotal() {
+        return total;
+    }
+
+    public List<String> getSessionNames() {
+        return sessionNames;
+    }
+
+    /**
+     * @return the report of each session, in the same order as {@link #getSessionNames()}.
+     */
+    public List<LoadReport> getSessionReports() {
+        return sessionReports;
+    }
+
+    /**
+     * Writes the combined report followed by a line for each session with its achieved rate and 99th percentile latencies,
+     * in microseconds.
+     */
+    public void print(final PrintStream out) {
+        total.print(out);
+        out.println("Per session:");
+        for (int i = 0; i < sessionReports.size(); i++) {
+            final LoadReport report = sessionReports.get(i);
+            out.printf("%s: sent %d, dropped %d, %.1f msg/s, send p99 %.1f us", sessionNames.get(i), report.getMessagesSent(), report.getMessagesDropped(),
+                       report.getAchievedRate(), p99Micros(report.getSendLatency()));
+            if (report.getResponseLatency() != null) {
+                out.printf(", response p99 %.1f us", p99Micros(report.getResponseLatency()));
+            }
+            out.println();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AggregateLoadReport{sessions=" + sessionReports.size() + ", total=" + total + "}";
+    }
+
+    private static double p99Micros(final Histogram histogram) {
+        return histogram.getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.load;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+import com.lmax.nanofix.FixClient;
+import com.lmax.nanofix.FixSession;
+import com.lmax.nanofix.concurrent.WaitStrategy;
+import com.lmax.nanofix.fields.Tags;
+import com.lmax.nanofix.latency.LatencyProbe;
+import com.lmax.nanofix.outgoing.FixMessageTemplate;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Sends messages at the rates of a {@link RateSchedule}, open loop: each message goes at its intended send time whatever
+ * happened to the ones before it, and latency is measured from that intended time. A send that blocks therefore shows up
+ * in the latency of every message scheduled behind it, which a loop sleeping between sends would hide.
+ * <p>
+ * Messages are cut from templates, used in turn. Before each send the generator fills whichever of these slots the
+ * template has: MsgSeqNum from {@link #firstMsgSeqNum(long)} upwards, SendingTime with the intended send time, and the
+ * correlation tag, ClOrdID unless a {@link LatencyProbe} says otherwise, with an id counting up from
+ * {@link #firstCorrelationId(long)}. The probe is stamped with the intended send time of each id, so it should only be
+ * subscribed to inbound messages, with {@link com.lmax.nanofix.FixClient#subscribeToAllFlyweights}, and not attached to
+ * observe writes.
+ * <p>
+ * A message dropped by a full send queue is counted as dropped rather than sent. Its stamp is taken back off the probe,
+ * and its MsgSeqNum is given to the next message so the venue sees no gap.
+ */
+public final class LoadGenerator {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final long RESPONSE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Predicate<ByteBuffer> sender;
+    private final RateSchedule schedule;
+    private final FixMessageTemplate[] templates;
+    private WaitStrategy waitStrategy = WaitStrategy.YIELD;
+    private long nextMsgSeqNum = 1;
+    private long firstCorrelationId = 1;
+    private LatencyProbe latencyProbe;
+    private long responseTimeoutNanos;
+    private boolean startTimeSet;
+    private long startNanos;
+    private volatile boolean stopped;
+
+    public LoadGenerator(final FixSession session, final RateSchedule schedule, final FixMessageTemplate... templates) {
+        this(session::trySend, schedule, templates);
+    }
+
+    public LoadGenerator(final FixClient fixClient, final RateSchedule schedule, final FixMessageTemplate... templates) {
+        this(fixClient::trySend, schedule, templates);
+    }
+
+    private LoadGenerator(final Predicate<ByteBuffer> sender, final RateSchedule schedule, final FixMessageTemplate[] templates) {
+        if (templates.length == 0) {
+            throw new IllegalArgumentException("At least one template is needed");
+        }
+        this.sender = sender;
+        this.schedule = schedule;
+        this.templates = templates.clone();
+    }
+
+    /**
+     * How to wait for the next intended send time. {@link WaitStrategy#BUSY_SPIN} keeps closest to the schedule at high
+     * rates, at the cost of a core; the default yields.
+     */
+    public LoadGenerator waitStrategy(final WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+
+    public LoadGenerator firstMsgSeqNum(final long msgSeqNum) {
+        this.nextMsgSeqNum = msgSeqNum;
+        return this;
+    }
+
+    public LoadGenerator firstCorrelationId(final long correlationId) {
+        this.firstCorrelationId = correlationId;
+        return this;
+    }
+
+    /**
+     * Starts the schedule at the given {@link System#nanoTime()} rather than when {@link #run()} is called, so that several
+     * generators can share one timeline. Messages already due when the run begins are sent straight away, and their latency
+     * counts from when they were due.
+     */
+    public LoadGenerator startAt(final long nanoTime) {
+        this.startTimeSet = true;
+        this.startNanos = nanoTime;
+        return this;
+    }
+
+    /**
+     * Measures the latency of the replies to each message, correlated on the probe's tag.
+     *
+     * @param responseTimeout how long to wait after the last send for outstanding replies before reporting.
+     */
+    public LoadGenerator latencyProbe(final LatencyProbe latencyProbe, final long responseTimeout, final TimeUnit unit) {
+        this.latencyProbe = latencyProbe;
+        this.responseTimeoutNanos = unit.toNanos(responseTimeout);
+        return this;
+    }
+
+    /**
+     * Sends every message in the schedule on the calling thread, or until {@link #stop()} is called.
+     */
+    public LoadReport run() {
+        final int[] msgSeqNumSlots = slotsFor(Tags.MsgSeqNum.getTag());
+        final int[] sendingTimeSlots = slotsFor(Tags.SendingTime.getTag());
+        final int[] correlationSlots = slotsFor(latencyProbe == null ? Tags.ClOrdID.getTag() : latencyProbe.getCorrelationTag());
+        final Histogram sendLatency = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        final long messageCount = schedule.getMessageCount();
+
+        final long nowNanos = System.nanoTime();
+        final long startNanos = startTimeSet ? this.startNanos : nowNanos;
+        final long epochNanosAtStart = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) + startNanos - nowNanos;
+        long messagesSent = 0;
+        long messagesDropped = 0;
+        for (long n = 0; n < messageCount && !stopped; n++) {
+            final long intendedNanos = startNanos + schedule.intendedSendTimeNanos(n);
+            while (intendedNanos - System.nanoTime() > 0) {
+                waitStrategy.idle();
+            }
+
+            final int templateIndex = (int)(n % templates.length);
+            final FixMessageTemplate template = templates[templateIndex];
+            if (msgSeqNumSlots[templateIndex] >= 0) {
+                template.putLong(msgSeqNumSlots[templateIndex], nextMsgSeqNum);
+            }
+            if (sendingTimeSlots[templateIndex] >= 0) {
+                template.putUtcTimestamp(sendingTimeSlots[templateIndex], epochNanosAtStart + intendedNanos - startNanos);
+            }
+            final int correlationSlot = correlationSlots[templateIndex];
+            boolean stamped = false;
+            if (correlationSlot >= 0) {
+                template.putLong(correlationSlot, firstCorrelationId + n);
+                if (latencyProbe != null) {
+                    stamped = latencyProbe.stamp(template.buffer(), template.slotOffset(correlationSlot), template.slotWidth(correlationSlot), intendedNanos);
+                }
+            }
+
+            if (sender.test(template.buffer())) {
+                messagesSent++;
+                nextMsgSeqNum++;
+            } else {
+                messagesDropped++;
+                if (stamped) {
+                    latencyProbe.unstamp(template.buffer(), template.slotOffset(correlationSlot), template.slotWidth(correlationSlot));
+                }
+            }
+            sendLatency.recordValue(Math.min(System.nanoTime() - intendedNanos, HIGHEST_TRACKABLE_NANOS));
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        return new LoadReport(messagesSent, messagesDropped, elapsedNanos, sendLatency, latencyProbe == null ? null : awaitResponses());
+    }
+
+    /**
+     * Stops a run in progress after the message it is sending.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return the MsgSeqNum the next message would have been sent with.
+     */
+    public long getNextMsgSeqNum() {
+        return nextMsgSeqNum;
+    }
+
+    private Histogram awaitResponses() {
+        final long deadline = System.nanoTime() + responseTimeoutNanos;
+        while (latencyProbe.getOutstanding() > 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(RESPONSE_POLL_NANOS);
+        }
+        return latencyProbe.getHistogram();
+    }
+
+    private int[] slotsFor(final int tag) {
+        final int[] slots = new int[templates.length];
+        for (int i = 0; i < templates.length; i++) {
+            slots[i] = templates[i].hasSlot(tag) ? templates[i].slot(tag) : -1;
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+import com.lmax.nanofix.FixClient;
+import com.lmax.nanofix.FixClientConfiguration;
+import com.lmax.nanofix.FixClientFactory;
+import com.lmax.nanofix.concurrent.NamedThreadFactory;
+import com.lmax.nanofix.concurrent.WaitStrategy;
+import com.lmax.nanofix.exceptions.GeneralRuntimeException;
+import com.lmax.nanofix.fields.EncryptMethod;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.latency.LatencyProbe;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+import com.lmax.nanofix.outgoing.FixMessageTemplate;
+import com.lmax.nanofix.outgoing.TimestampPrecision;
+
+/**
+ * Runs a load test over many sessions at once. Each session is an initiating {@link FixClient} created by
+ * {@link FixClientFactory}, with its own SenderCompID and TargetCompID, and is driven by a {@link LoadGenerator} on a thread
+ * of its own.
+ * <p>
+ * {@link #logon()} connects the sessions no faster than the connect rate, so the venue is not hit by every connection at
+ * once, and sends each a Logon with ResetSeqNumFlag set, then waits for the venue's Logon in reply. {@link #run(RateSchedule)}
+ * gives every session an equal share of the schedule's rate on a common timeline and combines their reports. Sessions stay
+ * logged on between runs, carrying on their MsgSeqNums and correlation ids, until {@link #close()} logs them out.
+ * <p>
+ * Sessions only send what the generators send, and do not answer heartbeats or test requests, so the heartbeat interval
+ * should outlast any pause between runs.
+ * <p>
+ * Every session's generator has a platform thread to itself for the whole run, waiting between sends with the
+ * {@link #waitStrategy(WaitStrategy) wait strategy}. The default, {@link WaitStrategy#YIELD}, keeps a core busy per session,
+ * so once there are more sessions than cores they compete for CPU and send late. Use {@link WaitStrategy#PARK} for more
+ * sessions than that.
+ */
+public final class LoadOrchestrator implements AutoCloseable {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final long START_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int sessionCount;
+    private final IntFunction<FixClientConfiguration> configurations;
+    private final SessionTemplateFactory templateFactory;
+    private final List<Session> sessions = new ArrayList<>();
+    private IntFunction<String> senderCompIDs = session -> "NANOFIX" + session;
+    private IntFunction<String> targetCompIDs = session -> "VENUE";
+    private IntFunction<String> usernames;
+    private IntFunction<String> passwords;
+    private double connectsPerSecond = 100;
+    private int heartBtInt = 30;
+    private long timeoutNanos = TimeUnit.SECONDS.toNanos(10);
+    private WaitStrategy waitStrategy = WaitStrategy.YIELD;
+    private boolean measureResponses;
+    private int correlationTag;
+    private long responseTimeoutNanos;
+    private volatile LoadGenerator[] running = new LoadGenerator[0];
+
+    /**
+     * @param host            the venue to connect every session to.
+     * @param port            the venue's port.
+     * @param sessionCount    how many sessions to run.
+     * @param templateFactory creates the messages each session sends.
+     */
+    public LoadOrchestrator(final String host, final int port, final int sessionCount, final SessionTemplateFactory templateFactory) {
+        this(sessionCount, session -> FixClientConfiguration.createInitiatingFixClient(host, port), templateFactory);
+    }
+
+    /**
+     * @param configurations creates the configuration of each session's client, which must initiate its connection.
+     */
+    public LoadOrchestrator(final int sessionCount, final IntFunction<FixClientConfiguration> configurations, final SessionTemplateFactory templateFactory) {
+        if (sessionCount <= 0) {
+            throw new IllegalArgumentException("Session count must be positive: " + sessionCount);
+        }
+        this.sessionCount = sessionCount;
+        this.configurations = configurations;
+        this.templateFactory = templateFactory;
+    }
+
+    /**
+     * Names each session, by its index from 0. By default sessions are NANOFIX0, NANOFIX1 and so on, all targeting VENUE.
+     */
+    public LoadOrchestrator compIDs(final IntFunction<String> senderCompIDs, final IntFunction<String> targetCompIDs) {
+        this.senderCompIDs = senderCompIDs;
+        this.targetCompIDs = targetCompIDs;
+        return this;
+    }
+
+    /**
+     * Adds a Username and Password to each session's Logon.
+     */
+    public LoadOrchestrator credentials(final IntFunction<String> usernames, final IntFunction<String> passwords) {
+        this.usernames = usernames;
+        this.passwords = passwords;
+        return this;
+    }
+
+    /**
+     * The most sessions to connect per second, 100 by default.
+     */
+    public LoadOrchestrator connectRate(final double connectsPerSecond) {
+        if (connectsPerSecond <= 0) {
+            throw new IllegalArgumentException("Connect rate must be positive: " + connectsPerSecond);
+        }
+        this.connectsPerSecond = connectsPerSecond;
+        return this;
+    }
+
+    /**
+     * The HeartBtInt sent in each Logon, 30 seconds by default.
+     */
+    public LoadOrchestrator heartBtInt(final int heartBtInt) {
+        this.heartBtInt = heartBtInt;
+        return this;
+    }
+
+    /**
+     * How long each session may take to connect, and all of them to be logged on, 10 seconds by default.
+     */
+    public LoadOrchestrator timeout(final long timeout, final TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * How each session's generator waits for its next send, see {@link LoadGenerator#waitStrategy(WaitStrategy)}.
+     * Anything but {@link WaitStrategy#PARK} needs a core per session.
+     */
+    public LoadOrchestrator waitStrategy(final WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+
+    /**
+     * Measures the latency of the replies to each session's messages with a {@link LatencyProbe} of its own, correlated on
+     * the tag. Must be set before {@link #logon()}.
+     *
+     * @param responseTimeout how long each session waits after its last send for outstanding replies.
+     */
+    public LoadOrchestrator responseLatency(final int correlationTag, final long responseTimeout, final TimeUnit unit) {
+        this.measureResponses = true;
+        this.correlationTag = correlationTag;
+        this.responseTimeoutNanos = unit.toNanos(responseTimeout);
+        return this;
+    }
+
+    /**
+     * Creates, connects and logs on every session, returning once the venue has replied to all the Logons.
+     *
+     * @throws IllegalStateException if a session fails to connect or log on in time, after closing every session.
+     */
+    public LoadOrchestrator logon() {
+        if (!sessions.isEmpty()) {
+            throw new IllegalStateException("Sessions are already logged on");
+        }
+        try {
+            final long connectIntervalNanos = (long)(NANOS_PER_SECOND / connectsPerSecond);
+            final long startNanos = System.nanoTime();
+            for (int i = 0; i < sessionCount; i++) {
+                parkUntil(startNanos + i * connectIntervalNanos);
+                final Session session = new Session(i);
+                sessions.add(session);
+                session.connectAndLogon();
+            }
+            final long deadline = System.nanoTime() + timeoutNanos;
+            for (final Session session : sessions) {
+                session.awaitLogon(deadline);
+            }
+        } catch (final RuntimeException e) {
+            close();
+            throw e;
+        }
+        return this;
+    }
+
+    /**
+     * Runs the schedule across the sessions, each sending an equal share of its rate. Blocks until every session has finished.
+     */
+    public AggregateLoadReport run(final RateSchedule schedule) {
+        if (sessions.isEmpty()) {
+            throw new IllegalStateException("Sessions must be logged on before a run");
+        }
+        final RateSchedule share = schedule.scaled(1.0 / sessions.size());
+        final long startNanos = System.nanoTime() + START_DELAY_NANOS;
+        final LoadGenerator[] generators = new LoadGenerator[sessions.size()];
+        for (int i = 0; i < generators.length; i++) {
+            generators[i] = sessions.get(i).generator(share, startNanos);
+        }
+        running = generators;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(generators.length, new NamedThreadFactory("loadGenerator", true, null));
+        try {
+            final List<Future<LoadReport>> futures = new ArrayList<>(generators.length);
+            for (final LoadGenerator generator : generators) {
+                futures.add(executor.submit(generator::run));
+            }
+            final List<String> names = new ArrayList<>(generators.length);
+            final List<LoadReport> reports = new ArrayList<>(generators.length);
+            for (int i = 0; i < generators.length; i++) {
+                final Session session = sessions.get(i);
+                final LoadReport report = await(futures.get(i));
+                session.nextMsgSeqNum = generators[i].getNextMsgSeqNum();
+                session.nextCorrelationId += report.getMessagesSent() + report.getMessagesDropped();
+                names.add(session.senderCompID);
+                reports.add(report);
+            }
+            return new AggregateLoadReport(names, reports);
+        } finally {
+            for (final LoadGenerator generator : generators) {
+                generator.stop();
+            }
+            running = new LoadGenerator[0];
+            awaitStopped(executor);
+        }
+    }
+
+    /**
+     * Stops a run in progress, see {@link LoadGenerator#stop()}.
+     */
+    public void stop() {
+        for (final LoadGenerator generator : running) {
+            generator.stop();
+        }
+    }
+
+    /**
+     * @return the client of each session that has been created, for access to its metrics and subscriptions.
+     */
+    public List<FixClient> getFixClients() {
+        final List<FixClient> fixClients = new ArrayList<>(sessions.size());
+        for (final Session session : sessions) {
+            fixClients.add(session.fixClient);
+        }
+        return fixClients;
+    }
+
+    /**
+     * Sends a Logout on every connected session, then shuts down every client, see {@link FixClient#shutdown()}.
+     */
+    @Override
+    public void close() {
+        for (final Session session : sessions) {
+            session.logoutAndClose();
+        }
+        sessions.clear();
+    }
+
+    private static LoadReport await(final Future<LoadReport> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeneralRuntimeException("Interrupted while waiting for a session's run to finish", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new GeneralRuntimeException("Session's run failed", e.getCause());
+        }
+    }
+
+    /**
+     * Lets generators stopped after another session's failure finish their current send, as interrupting one part way
+     * through a write would close its session's socket.
+     */
+    private void awaitStopped(final ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void parkUntil(final long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private final class Session {
+        private final String senderCompID;
+        private final String targetCompID;
+        private final FixClient fixClient;
+        private final FixMessageTemplate[] templates;
+        private final CountDownLatch loggedOn = new CountDownLatch(1);
+        private final LatencyProbe latencyProbe;
+        private final int index;
+        private long nextMsgSeqNum = 1;
+        private long nextCorrelationId = 1;
+
+        Session(final int index) {
+            this.index = index;
+            this.senderCompID = senderCompIDs.apply(index);
+            this.targetCompID = targetCompIDs.apply(index);
+            this.templates = templateFactory.create(index, senderCompID, targetCompID);
+            this.fixClient = FixClientFactory.createFixClient(configurations.apply(index));
+            this.latencyProbe = measureResponses ? new LatencyProbe(correlationTag) : null;
+            fixClient.subscribeToMessageType(MsgType.LOGIN, message -> loggedOn.countDown());
+            if (latencyProbe != null) {
+                fixClient.subscribeToAllFlyweights(latencyProbe);
+            }
+        }
+
+        void connectAndLogon() {
+            if (!fixClient.connect(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Session " + senderCompID + " did not connect within " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+            }
+            final FixMessageBuilder logon = nextMessage(MsgType.LOGIN).encryptMethod(EncryptMethod.NONE).heartBtInt(heartBtInt).resetSeqNumFlag("Y");
+            if (usernames != null) {
+                logon.username(usernames.apply(index)).password(passwords.apply(index));
+            }
+            fixClient.send(logon.build());
+        }
+
+        void awaitLogon(final long deadline) {
+            try {
+                if (!loggedOn.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new IllegalStateException("Session " + senderCompID + " was not sent a Logon in reply");
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GeneralRuntimeException("Interrupted while waiting for session " + senderCompID + " to log on", e);
+            }
+        }
+
+        LoadGenerator generator(final RateSchedule schedule, final long startNanos) {
+            final LoadGenerator generator = new LoadGenerator(fixClient, schedule, templates)
+                    .waitStrategy(waitStrategy)
+                    .firstMsgSeqNum(nextMsgSeqNum)
+                    .firstCorrelationId(nextCorrelationId)
+                    .startAt(startNanos);
+            if (latencyProbe != null) {
+                latencyProbe.reset();
+                generator.latencyProbe(latencyProbe, responseTimeoutNanos, TimeUnit.NANOSECONDS);
+            }
+            return generator;
+        }
+
+        void logoutAndClose() {
+            if (fixClient.isConnected() && nextMsgSeqNum > 1) {
+                fixClient.send(nextMessage(MsgType.LOGOUT).build());
+                awaitSendQueueDrained(System.nanoTime() + timeoutNanos);
+            }
+            fixClient.shutdown();
+        }
+
+        /**
+         * Gives a Logout queued by {@link FixClientConfiguration#asyncSend} the chance to be written before shutting down.
+         */
+        private void awaitSendQueueDrained(final long deadline) {
+            while (fixClient.getSendQueueDepth() > 0 && deadline - System.nanoTime() > 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+
+        /**
+         * Starts a session level message, using up the next MsgSeqNum.
+         */
+        private FixMessageBuilder nextMessage(final MsgType msgType) {
+            return new FixMessageBuilder()
+                    .messageType(msgType)
+                    .senderCompID(senderCompID)
+                    .targetCompID(targetCompID)
+                    .msgSeqNum((int)nextMsgSeqNum++)
+                    .sendingTime(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()), TimestampPrecision.MILLIS);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.load;
+
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * The outcome of a {@link LoadGenerator} run. Latencies are in nanoseconds and measured from each message's intended send
+ * time, so time spent behind schedule counts against every message that was held up.
+ */
+public final class LoadReport {
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final long messagesSent;
+    private final long messagesDropped;
+    private final long elapsedNanos;
+    private final Histogram sendLatency;
+    private final Histogram responseLatency;
+
+    public LoadReport(final long messagesSent, final long messagesDropped, final long elapsedNanos, final Histogram sendLatency, final Histogram responseLatency) {
+        this.messagesSent = messagesSent;
+        this.messagesDropped = messagesDropped;
+        this.elapsedNanos = elapsedNanos;
+        this.sendLatency = sendLatency;
+        this.responseLatency = responseLatency;
+    }
+
+    /**
+     * Combines reports from runs that shared a timeline, such as one per session, adding up the messages sent and dropped and merging
+     * the histograms. The elapsed time is that of the longest run, and response latency is only kept if every run had some.
+     */
+    public static LoadReport combine(final Collection<LoadReport> reports) {
+        long messagesSent = 0;
+        long messagesDropped = 0;
+        long elapsedNanos = 0;
+        Histogram sendLatency = null;
+        Histogram responseLatency = null;
+        boolean allHaveResponseLatency = true;
+        for (final LoadReport report : reports) {
+            messagesSent += report.messagesSent;
+            messagesDropped += report.messagesDropped;
+            elapsedNanos = Math.max(elapsedNanos, report.elapsedNanos);
+            sendLatency = merge(sendLatency, report.sendLatency);
+            allHaveResponseLatency &= report.responseLatency != null;
+            if (allHaveResponseLatency) {
+                responseLatency = merge(responseLatency, report.responseLatency);
+            }
+        }
+        if (sendLatency == null) {
+            throw new IllegalArgumentException("No reports to combine");
+        }
+        return new LoadReport(messagesSent, messagesDropped, elapsedNanos, sendLatency, allHaveResponseLatency ? responseLatency : null);
+    }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    /**
+     * @return the messages dropped because the send queue was full, which are not counted as sent.
+     */
+    public long getMessagesDropped() {
+        return messagesDropped;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the messages sent per second over the run.
+     */
+    public double getAchievedRate() {
+        return elapsedNanos == 0 ? 0 : messagesSent * (double)TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return the time from each message's intended send time until its send returned.
+     */
+    public Histogram getSendLatency() {
+        return sendLatency;
+    }
+
+    /**
+     * @return the time from each message's intended send time until the first reply carrying its id, or null when the run
+     * had no {@link com.lmax.nanofix.latency.LatencyProbe}.
+     */
+    public Histogram getResponseLatency() {
+        return responseLatency;
+    }
+
+    /**
+     * Writes the achieved rate followed by the percentile distributions, in microseconds.
+     */
+    public void print(final PrintStream out) {
+        out.printf("Sent %d messages, dropped %d, in %.3f s, %.1f msg/s%n", messagesSent, messagesDropped, elapsedNanos / (double)TimeUnit.SECONDS.toNanos(1), getAchievedRate());
+        out.println("Send latency (us) from intended send time:");
+        sendLatency.outputPercentileDistribution(out, NANOS_PER_MICRO);
+        if (responseLatency != null) {
+            out.println("Response latency (us) from intended send time:");
+            responseLatency.outputPercentileDistribution(out, NANOS_PER_MICRO);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LoadReport{messagesSent=" + messagesSent + ", messagesDropped=" + messagesDropped + ", elapsedNanos=" + elapsedNanos + ", achievedRate=" + getAchievedRate()
+               + ", sendLatencyP99=" + sendLatency.getValueAtPercentile(99)
+               + (responseLatency == null ? "" : ", responseLatencyP99=" + responseLatency.getValueAtPercentile(99)) + "}";
+    }
+
+    private static Histogram merge(final Histogram total, final Histogram histogram) {
+        if (total == null) {
+            return histogram.copy();
+        }
+        total.add(histogram);
+        return total;
+    }
+}
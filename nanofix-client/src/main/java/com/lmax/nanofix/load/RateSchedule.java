@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The target send rate of a load test over time, made up of phases that each hold the rate constant or change it linearly.
+ * The intended send time of every message follows from the schedule alone, never from when earlier messages were
+ * actually sent, so a sender that falls behind catches up rather than quietly lowering the rate.
+ * <p>
+ * Message n is intended to go when the number of messages the rate adds up to since the start reaches n, so message 0
+ * goes at the start and a constant 1000 messages per second sends one every millisecond.
+ */
+public final class RateSchedule {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final List<Phase> phases = new ArrayList<>();
+    private long durationNanos;
+    private double messageCount;
+
+    /**
+     * Sends at the same rate for the whole phase.
+     */
+    public RateSchedule constant(final double messagesPerSecond, final long duration, final TimeUnit unit) {
+        return ramp(messagesPerSecond, messagesPerSecond, duration, unit);
+    }
+
+    /**
+     * Changes the rate linearly over the phase, e.g. from 0 to warm up a venue gradually.
+     */
+    public RateSchedule ramp(final double fromMessagesPerSecond, final double toMessagesPerSecond, final long duration, final TimeUnit unit) {
+        if (fromMessagesPerSecond < 0 || toMessagesPerSecond < 0) {
+            throw new IllegalArgumentException("Rates must not be negative: " + fromMessagesPerSecond + " to " + toMessagesPerSecond);
+        }
+        final long phaseNanos = unit.toNanos(duration);
+        if (phaseNanos <= 0) {
+            throw new IllegalArgumentException("Phase duration must be positive: " + duration + " " + unit);
+        }
+        final Phase phase = new Phase(durationNanos, phaseNanos, messageCount, fromMessagesPerSecond / NANOS_PER_SECOND,
+                                      (toMessagesPerSecond - fromMessagesPerSecond) / NANOS_PER_SECOND / phaseNanos);
+        phases.add(phase);
+        durationNanos += phaseNanos;
+        messageCount += (fromMessagesPerSecond + toMessagesPerSecond) / 2 * phaseNanos / NANOS_PER_SECOND;
+        return this;
+    }
+
+    /**
+     * Holds each of a series of rates, rising by the increment, for the step duration, to find the rate a venue saturates at.
+     */
+    public RateSchedule steps(final double firstMessagesPerSecond, final double increment, final int stepCount, final long stepDuration, final TimeUnit unit) {
+        for (int i = 0; i < stepCount; i++) {
+            constant(firstMessagesPerSecond + i * increment, stepDuration, unit);
+        }
+        return this;
+    }
+
+    /**
+     * Alternates bursts at the burst rate with the rest of each period at the base rate.
+     */
+    public RateSchedule burst(final double baseMessagesPerSecond, final double burstMessagesPerSecond, final long burstDuration, final long period,
+                              final int bursts, final TimeUnit unit) {
+        if (burstDuration >= period) {
+            throw new IllegalArgumentException("Burst of " + burstDuration + " " + unit + " does not fit a period of " + period);
+        }
+        for (int i = 0; i < bursts; i++) {
+            constant(burstMessagesPerSecond, burstDuration, unit);
+            constant(baseMessagesPerSecond, period - burstDuration, unit);
+        }
+        return this;
+    }
+
+    /**
+     * @return a copy of this schedule with every rate multiplied by the factor, e.g. one session's share of the total.
+     */
+    public RateSchedule scaled(final double factor) {
+        final RateSchedule scaled = new RateSchedule();
+        for (final Phase phase : phases) {
+            final double from = phase.startRate * NANOS_PER_SECOND * factor;
+            final double to = (phase.startRate + phase.acceleration * phase.durationNanos) * NANOS_PER_SECOND * factor;
+            scaled.ramp(from, to, phase.durationNanos, TimeUnit.NANOSECONDS);
+        }
+        return scaled;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return the number of messages the schedule sends.
+     */
+    public long getMessageCount() {
+        return (long)Math.ceil(messageCount - 1e-6);
+    }
+
+    /**
+     * @return the time message n is intended to be sent, in nanoseconds from the start of the schedule.
+     * @throws IllegalArgumentException if the schedule ends before message n.
+     */
+    public long intendedSendTimeNanos(final long messageIndex) {
+        if (messageIndex < 0 || messageIndex >= getMessageCount()) {
+            throw new IllegalArgumentException("Schedule of " + getMessageCount() + " messages has no message " + messageIndex);
+        }
+        int low = 0;
+        int high = phases.size() - 1;
+        // the last phase starting at or before the message, which skips over phases that send nothing
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (phases.get(mid).startCount <= messageIndex) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        final Phase phase = phases.get(low);
+        return phase.startNanos + Math.min(phase.timeOf(messageIndex - phase.startCount), phase.durationNanos);
+    }
+
+    private static final class Phase {
+        private final long startNanos;
+        private final long durationNanos;
+        private final double startCount;
+        private final double startRate;
+        private final double acceleration;
+
+        private Phase(final long startNanos, final long durationNanos, final double startCount, final double startRate, final double acceleration) {
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.startCount = startCount;
+            this.startRate = startRate;
+            this.acceleration = acceleration;
+        }
+
+        /**
+         * Solves startRate * t + acceleration * t^2 / 2 = messages for t, in a form that stays accurate as the acceleration
+         * approaches zero.
+         */
+        private long timeOf(final double messages) {
+            if (messages <= 0) {
+                return 0;
+            }
+            return Math.round(2 * messages / (startRate + Math.sqrt(startRate * startRate + 2 * acceleration * messages)));
+        }
+    }
+}
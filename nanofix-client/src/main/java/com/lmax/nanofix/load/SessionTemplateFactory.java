@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.load;
+
+import com.lmax.nanofix.outgoing.FixMessageTemplate;
+
+/**
+ * Creates the templates one session of a {@link LoadOrchestrator} sends. Templates are filled in place before each send, so
+ * every session needs its own.
+ */
+public interface SessionTemplateFactory {
+    /**
+     * @param session      the index of the session, from 0.
+     * @param senderCompID the session's SenderCompID.
+     * @param targetCompID the session's TargetCompID.
+     */
+    FixMessageTemplate[] create(int session, String senderCompID, String targetCompID);
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters updated on the hot paths of a {@link com.lmax.nanofix.FixClient}, each padded onto its own cache lines so they
+ * can be polled from a monitoring thread. Inbound counters are only updated by the thread reading, or dispatching, the
+ * session and cost a plain store; outbound ones may be updated by any sending thread and are added atomically.
+ * Counters only ever grow, so a monitor wanting rates should take the difference between two polls.
+ */
+public final class FixClientMetrics implements FixClientMetricsMXBean {
+    private static final LongSupplier ZERO = () -> 0;
+
+    private final PaddedCounter messagesIn = new PaddedCounter();
+    private final PaddedCounter bytesIn = new PaddedCounter();
+    private final PaddedCounter reads = new PaddedCounter();
+    private final PaddedCounter fragmentsReassembled = new PaddedCounter();
+    private final PaddedCounter truncatedMessages = new PaddedCounter();
+    private final PaddedCounter bytesSkipped = new PaddedCounter();
+    private final PaddedCounter parseErrors = new PaddedCounter();
+    private final PaddedCounter messagesOut = new PaddedCounter();
+    private final PaddedCounter bytesOut = new PaddedCounter();
+
+    private volatile LongSupplier pausedNanos = ZERO;
+    private volatile LongSupplier sendQueueDepth = ZERO;
+    private volatile LongSupplier inboundDispatchOccupancy = ZERO;
+    private ObjectName objectName;
+
+    /**
+     * Supplies the values that are owned by other components rather than counted here.
+     */
+    public void bindGauges(final LongSupplier pausedNanos, final LongSupplier sendQueueDepth, final LongSupplier inboundDispatchOccupancy) {
+        this.pausedNanos = pausedNanos;
+        this.sendQueueDepth = sendQueueDepth;
+        this.inboundDispatchOccupancy = inboundDispatchOccupancy;
+    }
+
+    /**
+     * Counts one read from the channel, whether or not it returned any bytes.
+     */
+    public void onRead(final int bytesRead) {
+        reads.addOrdered(1);
+        if (bytesRead > 0) {
+            bytesIn.addOrdered(bytesRead);
+        }
+    }
+
+    public void onFragmentReassembled() {
+        fragmentsReassembled.addOrdered(1);
+    }
+
+    public void onMessageReceived() {
+        messagesIn.addOrdered(1);
+    }
+
+    public void onTruncatedMessage() {
+        truncatedMessages.addOrdered(1);
+    }
+
+    public void onBytesSkipped(final int bytes) {
+        bytesSkipped.addOrdered(bytes);
+    }
+
+    public void onParseError() {
+        parseErrors.addOrdered(1);
+    }
+
+    public void onMessagesSent(final int messages) {
+        messagesOut.add(messages);
+    }
+
+    public void onBytesWritten(final long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * @return the number of messages framed from the inbound stream.
+     */
+    @Override
+    public long getMessagesIn() {
+        return messagesIn.get();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    /**
+     * @return the number of reads made from the channel, each a system call for a socket.
+     */
+    @Override
+    public long getReads() {
+        return reads.get();
+    }
+
+    @Override
+    public double getBytesPerRead() {
+        final long readCount = reads.get();
+        return readCount == 0 ? 0 : (double)bytesIn.get() / readCount;
+    }
+
+    /**
+     * @return the number of reads that completed a message whose start arrived in an earlier read.
+     */
+    @Override
+    public long getFragmentsReassembled() {
+        return fragmentsReassembled.get();
+    }
+
+    @Override
+    public long getTruncatedMessages() {
+        return truncatedMessages.get();
+    }
+
+    /**
+     * @return the number of inbound bytes passed over because they were not part of any message.
+     */
+    @Override
+    public long getBytesSkipped() {
+        return bytesSkipped.get();
+    }
+
+    @Override
+    public long getParseErrors() {
+        return parseErrors.get();
+    }
+
+    /**
+     * @return the number of messages accepted for sending, including any still in the send queue but not those it dropped.
+     */
+    @Override
+    public long getMessagesOut() {
+        return messagesOut.get();
+    }
+
+    /**
+     * @return the number of bytes written to the channel.
+     */
+    @Override
+    public long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    /**
+     * @return the total time the reading thread, and any inbound dispatcher threads, have spent held up by {@link com.lmax.nanofix.FixClient#pauseMessageConsumer()}.
+     */
+    @Override
+    public long getPausedNanos() {
+        return pausedNanos.getAsLong();
+    }
+
+    @Override
+    public long getSendQueueDepth() {
+        return sendQueueDepth.getAsLong();
+    }
+
+    @Override
+    public long getInboundDispatchOccupancy() {
+        return inboundDispatchOccupancy.getAsLong();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server as com.lmax.nanofix:type=FixClient,name=&lt;name&gt;.
+     */
+    public synchronized void registerMBean(final String name) {
+        try {
+            final ObjectName newObjectName = new ObjectName("com.lmax.nanofix:type=FixClient,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+            objectName = newObjectName;
+        } catch (final JMException e) {
+            throw new IllegalStateException("Unable to register metrics MBean for " + name, e);
+        }
+    }
+
+    /**
+     * Removes the registration made by {@link #registerMBean(String)}, if any.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (final JMException e) {
+            throw new IllegalStateException("Unable to unregister metrics MBean " + objectName, e);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    /**
+     * @return the name these metrics are registered under, or null if they are not registered.
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public String toString() {
+        return "FixClientMetrics{messagesIn=" + messagesIn + ", bytesIn=" + bytesIn + ", reads=" + reads + ", fragmentsReassembled=" + fragmentsReassembled
+               + ", truncatedMessages=" + truncatedMessages + ", bytesSkipped=" + bytesSkipped + ", parseErrors=" + parseErrors + ", messagesOut=" + messagesOut + ", bytesOut=" + bytesOut
+               + ", pausedNanos=" + getPausedNanos() + ", sendQueueDepth=" + getSendQueueDepth() + ", inboundDispatchOccupancy=" + getInboundDispatchOccupancy() + "}";
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.metrics;
+
+/**
+ * The counters of a {@link com.lmax.nanofix.FixClient}, as exposed over JMX.
+ */
+public interface FixClientMetricsMXBean {
+    long getMessagesIn();
+
+    long getBytesIn();
+
+    long getReads();
+
+    double getBytesPerRead();
+
+    long getFragmentsReassembled();
+
+    long getTruncatedMessages();
+
+    long getBytesSkipped();
+
+    long getParseErrors();
+
+    long getMessagesOut();
+
+    long getBytesOut();
+
+    long getPausedNanos();
+
+    long getSendQueueDepth();
+
+    long getInboundDispatchOccupancy();
+}
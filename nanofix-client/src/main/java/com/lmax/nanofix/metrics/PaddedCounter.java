@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A counter padded so that counters updated by different threads never share a cache line, and polling one from a
+ * monitoring thread does not disturb the thread updating it.
+ */
+public final class PaddedCounter extends PaddedCounterValue {
+    private static final VarHandle VALUE;
+
+    @SuppressWarnings("unused")
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(PaddedCounterValue.class, "value", long.class);
+        } catch (final ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public long get() {
+        return (long)VALUE.getAcquire(this);
+    }
+
+    /**
+     * Adds atomically, for a counter updated from more than one thread.
+     */
+    public void add(final long delta) {
+        VALUE.getAndAdd(this, delta);
+    }
+
+    /**
+     * Adds without an atomic read-modify-write, for a counter only ever updated by one thread at a time.
+     */
+    public void addOrdered(final long delta) {
+        VALUE.setRelease(this, value + delta);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
+
+@SuppressWarnings("unused")
+class PaddedCounterPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class PaddedCounterValue extends PaddedCounterPadding {
+    protected long value;
+}
@@ -16,22 +16,46 @@
 
 package com.lmax.nanofix.outgoing;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import javax.annotation.concurrent.Immutable;
 
+/**
+ * A message encoded once by {@link FixMessageBuilder#build()}. Sending, or resending, it writes the same bytes again
+ * without re-encoding them.
+ */
 @Immutable
 public class FixMessage {
-    private final String messageWithChecksum;
+    private final ByteBuffer encoded;
+
+    FixMessage(final byte[] messageWithChecksum) {
+        this.encoded = ByteBuffer.wrap(messageWithChecksum).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a read-only view of the encoded message, with its position at the start of the message and its limit at the end.
+     * Each call returns a new view, so it can be consumed without affecting other sends of the same message.
+     */
+    public ByteBuffer buffer() {
+        return encoded.duplicate();
+    }
 
-    FixMessage(final String messageWithChecksum) {
-        this.messageWithChecksum = messageWithChecksum;
+    /**
+     * @return the length of the encoded message in bytes.
+     */
+    public int length() {
+        return encoded.capacity();
     }
 
     public String toFixString() {
-        return messageWithChecksum;
+        final byte[] bytes = new byte[encoded.capacity()];
+        encoded.get(0, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 
     @Override
     public String toString() {
-        return "FixMessage{messageWithChecksum='" + messageWithChecksum + "'}";
+        return "FixMessage{messageWithChecksum='" + toFixString() + "'}";
     }
 }
@@ -19,7 +19,10 @@ package com.lmax.nanofix.outgoing;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
+import com.lmax.nanofix.byteoperations.ByteUtil;
 import com.lmax.nanofix.fields.BusinessRejectionReason;
 import com.lmax.nanofix.fields.EncryptMethod;
 import com.lmax.nanofix.fields.MsgType;
@@ -67,8 +70,14 @@ import static com.lmax.nanofix.fields.Tags.Username;
  */
 public class FixMessageBuilder {
     private static final String SOH = "\u0001";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
     private final StringBuilder msg = new StringBuilder();
     private final String version;
+    private final List<int[]> slots = new ArrayList<>();
+    private int bodyLength;
+    private int bodyChecksum;
+    private UtcTimestampEncoder timestampEncoder;
+    private byte[] timestamp;
 
     private String messageLengthOverride;
     private String checksumOverride;
@@ -160,7 +169,11 @@ public class FixMessageBuilder {
     }
 
     public FixMessageBuilder sendingTime(final ZonedDateTime sendingTime) {
-        return addTag(SendingTime.getTag(), com.lmax.nanofix.FixUtil.DATE_TIME_FORMATTER.format(sendingTime));
+        return addTag(SendingTime.getTag(), utcTimestamp(sendingTime.toEpochSecond(), sendingTime.getNano(), TimestampPrecision.MILLIS));
+    }
+
+    public FixMessageBuilder sendingTime(final long epochNanos, final TimestampPrecision precision) {
+        return addTag(SendingTime.getTag(), utcTimestamp(Math.floorDiv(epochNanos, NANOS_PER_SECOND), (int)Math.floorMod(epochNanos, NANOS_PER_SECOND), precision));
     }
 
     public FixMessageBuilder username(final String username) {
@@ -197,13 +210,24 @@ public class FixMessageBuilder {
     }
 
     public FixMessageBuilder transactionTime(final ZonedDateTime transactionTime) {
-        return addTag(TransactTime.getTag(), com.lmax.nanofix.FixUtil.DATE_TIME_FORMATTER.format(transactionTime));
+        return addTag(TransactTime.getTag(), utcTimestamp(transactionTime.toEpochSecond(), transactionTime.getNano(), TimestampPrecision.MILLIS));
+    }
+
+    public FixMessageBuilder transactionTime(final long epochNanos, final TimestampPrecision precision) {
+        return addTag(TransactTime.getTag(), utcTimestamp(Math.floorDiv(epochNanos, NANOS_PER_SECOND), (int)Math.floorMod(epochNanos, NANOS_PER_SECOND), precision));
     }
 
     public FixMessageBuilder orderQty(final BigDecimal orderQty) {
         return addTag(OrderQty.getTag(), orderQty.toPlainString());
     }
 
+    /**
+     * Sets the order quantity to mantissa * 10^-scale.
+     */
+    public FixMessageBuilder orderQty(final long mantissa, final int scale) {
+        return addTag(OrderQty.getTag(), decimal(mantissa, scale));
+    }
+
     public FixMessageBuilder orderType(final com.lmax.nanofix.fields.OrdType ordType) {
         return addTag(OrdType.getTag(), Integer.toString(ordType.getCode()));
     }
@@ -216,6 +240,13 @@ public class FixMessageBuilder {
         return addTag(Price.getTag(), price);
     }
 
+    /**
+     * Sets the price to mantissa * 10^-scale.
+     */
+    public FixMessageBuilder price(final long mantissa, final int scale) {
+        return addTag(Price.getTag(), decimal(mantissa, scale));
+    }
+
     public FixMessageBuilder securityID(final String symbol) {
         return addTag(SecurityID.getTag(), symbol);
     }
@@ -241,7 +272,11 @@ public class FixMessageBuilder {
     }
 
     public FixMessageBuilder origSendingTime(final ZonedDateTime origSendingTime) {
-        return addTag(OrigSendingTime.getTag(), com.lmax.nanofix.FixUtil.DATE_TIME_FORMATTER.format(origSendingTime));
+        return addTag(OrigSendingTime.getTag(), utcTimestamp(origSendingTime.toEpochSecond(), origSendingTime.getNano(), TimestampPrecision.MILLIS));
+    }
+
+    public FixMessageBuilder origSendingTime(final long epochNanos, final TimestampPrecision precision) {
+        return addTag(OrigSendingTime.getTag(), utcTimestamp(Math.floorDiv(epochNanos, NANOS_PER_SECOND), (int)Math.floorMod(epochNanos, NANOS_PER_SECOND), precision));
     }
 
     public FixMessageBuilder timeInForce(final String tag) {
@@ -260,42 +295,126 @@ public class FixMessageBuilder {
         return addTag(tag, value);
     }
 
+    /**
+     * Appends a fixed width field whose value is filled in on the template returned by {@link #buildTemplate()}.
+     * In messages built by {@link #build()} the field holds zeros.
+     *
+     * @param tag   The fix tag of the field.
+     * @param width The number of characters in the field's value.
+     * @return FixMessageBuilder
+     */
+    public FixMessageBuilder slot(final int tag, final int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Slot width must be positive: " + width);
+        }
+        final int start = msg.length();
+        msg.append(tag);
+        msg.append("=");
+        accountFor(start);
+        slots.add(new int[]{tag, bodyLength, width});
+        final int valueStart = msg.length();
+        for (int i = 0; i < width; i++) {
+            msg.append('0');
+        }
+        msg.append(SOH);
+        accountFor(valueStart);
+        return this;
+    }
+
     public FixMessage build() {
-        final String body = msg.toString();
-        final String messageWithHeader = "8=" + version + SOH + "9=" + messageLength(body) + SOH + body;
-        final String messageWithChecksum = messageWithHeader + "10=" + checksum(messageWithHeader) + SOH;
-        return new FixMessage(messageWithChecksum);
+        return new FixMessage(encode().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encodes the message once, so it can be sent repeatedly with only the values in its slots changing.
+     * An overridden message length is kept, and an overridden checksum is kept instead of being maintained as slots are filled.
+     *
+     * @return a template holding the encoded message.
+     */
+    public FixMessageTemplate buildTemplate() {
+        final int bodyStart = header().length();
+        final int[] slotTags = new int[slots.size()];
+        final int[] slotOffsets = new int[slots.size()];
+        final int[] slotWidths = new int[slots.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            final int[] slot = slots.get(i);
+            slotTags[i] = slot[0];
+            slotOffsets[i] = bodyStart + slot[1];
+            slotWidths[i] = slot[2];
+        }
+        return new FixMessageTemplate(encode().getBytes(StandardCharsets.UTF_8), slotTags, slotOffsets, slotWidths, checksumOverride == null);
+    }
+
+    private String encode() {
+        final String header = header();
+        return header + msg + "10=" + checksum(header) + SOH;
+    }
+
+    private String utcTimestamp(final long epochSecond, final int nanoOfSecond, final TimestampPrecision precision) {
+        if (timestampEncoder == null) {
+            timestampEncoder = new UtcTimestampEncoder();
+            timestamp = new byte[TimestampPrecision.NANOS.getLength()];
+        }
+        final int length = timestampEncoder.encode(epochSecond, nanoOfSecond, precision, timestamp, 0);
+        return new String(timestamp, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private static String decimal(final long mantissa, final int scale) {
+        final byte[] ascii = new byte[ByteUtil.decimalAsciiLength(mantissa, scale)];
+        ByteUtil.writeDecimalAsAscii(ascii, 0, mantissa, scale);
+        return new String(ascii, StandardCharsets.US_ASCII);
+    }
+
+    private String header() {
+        return "8=" + version + SOH + "9=" + messageLength() + SOH;
     }
 
     private FixMessageBuilder addTag(final int tag, final String value) {
+        final int start = msg.length();
         msg.append(tag);
         msg.append("=");
         msg.append(value);
         msg.append(SOH);
+        accountFor(start);
         return this;
     }
 
-    private String checksum(final String bodyWithLength) {
+    /**
+     * Adds the UTF-8 encoding of the characters appended since start to the running body length and checksum, so
+     * building the message does not need another pass over the body.
+     */
+    private void accountFor(final int start) {
+        for (int i = start; i < msg.length(); i++) {
+            final char c = msg.charAt(i);
+            if (c > 127) {
+                for (final byte b : msg.substring(i).getBytes(StandardCharsets.UTF_8)) {
+                    bodyLength++;
+                    bodyChecksum += b & 0xFF;
+                }
+                return;
+            }
+            bodyLength++;
+            bodyChecksum += c;
+        }
+    }
+
+    private String checksum(final String header) {
         if (checksumOverride != null) {
             return checksumOverride;
         }
 
-        return String.format("%03d", checksum(bodyWithLength.getBytes(StandardCharsets.UTF_8)));
-    }
-
-    private int checksum(final byte[] bytes) {
-        int result = 0;
-        for (final byte b : bytes) {
-            result += b;
+        int checksum = bodyChecksum;
+        for (int i = 0; i < header.length(); i++) {
+            checksum += header.charAt(i) & 0xFF;
         }
-        return result % 256;
+        checksum &= 0xFF;
+        return new String(new char[]{(char)('0' + checksum / 100), (char)('0' + checksum / 10 % 10), (char)('0' + checksum % 10)});
     }
 
-    private String messageLength(final String body) {
+    private String messageLength() {
         if (messageLengthOverride != null) {
             return messageLengthOverride;
         }
-        return String.valueOf(body.length());
+        return String.valueOf(bodyLength);
     }
 }
-
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.lmax.nanofix.byteoperations.ByteUtil;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.fields.Side;
+import com.lmax.nanofix.fields.Tags;
+
+/**
+ * A reusable encoder that writes FIX messages directly into a {@link ByteBuffer}, without allocating in steady state.
+ * <p>
+ * Each message is started with {@link #wrap(ByteBuffer)}, or {@link #begin()} when the encoder owns its buffer, followed by
+ * the body tags in the order they should appear. {@link #finish()} writes the 8 BeginString and 9 BodyLength header in front
+ * of the body and appends the 10 CheckSum trailer, leaving the buffer's position and limit around the complete message so it
+ * can be passed straight to {@link OutboundMessageHandler#send(ByteBuffer)}.
+ * <p>
+ * Space for the header is reserved when the message is started, sized for the largest body the remaining buffer could hold,
+ * so the message may start a few bytes after the original position of the buffer. Values are encoded as ASCII.
+ * Instances are not thread safe.
+ */
+public final class FixMessageEncoder {
+    private static final byte SOH = 1;
+    private static final byte EQUALS = '=';
+    private static final int CHECKSUM_LENGTH = 7;
+
+    private final byte[] beginStringPrefix;
+    private final ByteBuffer ownedBuffer;
+    private final UtcTimestampEncoder timestampEncoder = new UtcTimestampEncoder();
+
+    private ByteBuffer buffer;
+    private int bodyStart;
+    private int position;
+
+    /**
+     * Constructs an encoder for FIX messages with a version 4.4 begin string, that writes into buffers passed to {@link #wrap(ByteBuffer)}.
+     */
+    public FixMessageEncoder() {
+        this("FIX.4.4");
+    }
+
+    /**
+     * Constructs an encoder that writes into buffers passed to {@link #wrap(ByteBuffer)}.
+     *
+     * @param version The FIX Begin String (fix tag 8) to be used in each message.
+     */
+    public FixMessageEncoder(final String version) {
+        this(version, null);
+    }
+
+    /**
+     * Constructs an encoder that owns a direct buffer of the given capacity, reused by every call to {@link #begin()}.
+     *
+     * @param version  The FIX Begin String (fix tag 8) to be used in each message.
+     * @param capacity The size in bytes of the largest message that can be encoded.
+     */
+    public FixMessageEncoder(final String version, final int capacity) {
+        this(version, ByteBuffer.allocateDirect(capacity));
+    }
+
+    private FixMessageEncoder(final String version, final ByteBuffer ownedBuffer) {
+        this.beginStringPrefix = ("8=" + version + "\u00019=").getBytes(StandardCharsets.US_ASCII);
+        this.ownedBuffer = ownedBuffer;
+    }
+
+    /**
+     * Starts a new message in the encoder's own buffer, discarding any message previously encoded into it.
+     *
+     * @return this encoder.
+     */
+    public FixMessageEncoder begin() {
+        if (ownedBuffer == null) {
+            throw new IllegalStateException("Encoder was constructed without a buffer, use wrap(ByteBuffer)");
+        }
+        ownedBuffer.clear();
+        return wrap(ownedBuffer);
+    }
+
+    /**
+     * Starts a new message at the current position of the buffer. The buffer's position and limit are not changed until {@link #finish()}.
+     *
+     * @param buffer the buffer to encode into.
+     * @return this encoder.
+     */
+    public FixMessageEncoder wrap(final ByteBuffer buffer) {
+        final int bodyLengthDigits = ByteUtil.asciiDigitCount(buffer.remaining());
+        this.buffer = buffer;
+        this.bodyStart = buffer.position() + beginStringPrefix.length + bodyLengthDigits + 1;
+        this.position = bodyStart;
+        checkCapacity(CHECKSUM_LENGTH);
+        return this;
+    }
+
+    public FixMessageEncoder messageType(final MsgType type) {
+        return append(Tags.MsgType.getTag(), type.getCode());
+    }
+
+    public FixMessageEncoder senderCompID(final CharSequence senderCompID) {
+        return append(Tags.SenderCompID.getTag(), senderCompID);
+    }
+
+    public FixMessageEncoder targetCompID(final CharSequence targetCompID) {
+        return append(Tags.TargetCompID.getTag(), targetCompID);
+    }
+
+    public FixMessageEncoder msgSeqNum(final long msgSeqNum) {
+        return append(Tags.MsgSeqNum.getTag(), msgSeqNum);
+    }
+
+    public FixMessageEncoder sendingTime(final long epochNanos, final TimestampPrecision precision) {
+        return appendUtcTimestamp(Tags.SendingTime.getTag(), epochNanos, precision);
+    }
+
+    public FixMessageEncoder transactTime(final long epochNanos, final TimestampPrecision precision) {
+        return appendUtcTimestamp(Tags.TransactTime.getTag(), epochNanos, precision);
+    }
+
+    public FixMessageEncoder clOrdID(final CharSequence clOrdId) {
+        return append(Tags.ClOrdID.getTag(), clOrdId);
+    }
+
+    public FixMessageEncoder symbol(final CharSequence symbol) {
+        return append(Tags.Symbol.getTag(), symbol);
+    }
+
+    public FixMessageEncoder side(final Side side) {
+        return append(Tags.Side.getTag(), side.getCode());
+    }
+
+    public FixMessageEncoder orderQty(final long orderQty) {
+        return append(Tags.OrderQty.getTag(), orderQty);
+    }
+
+    /**
+     * Appends the order quantity mantissa * 10^-scale.
+     */
+    public FixMessageEncoder orderQty(final long mantissa, final int scale) {
+        return appendDecimal(Tags.OrderQty.getTag(), mantissa, scale);
+    }
+
+    public FixMessageEncoder price(final CharSequence price) {
+        return append(Tags.Price.getTag(), price);
+    }
+
+    /**
+     * Appends the price mantissa * 10^-scale.
+     */
+    public FixMessageEncoder price(final long mantissa, final int scale) {
+        return appendDecimal(Tags.Price.getTag(), mantissa, scale);
+    }
+
+    public FixMessageEncoder append(final int tag, final CharSequence value) {
+        final int length = value.length();
+        putTag(tag, length);
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c > 127) {
+                throw new IllegalArgumentException("Character " + c + " is not " + StandardCharsets.US_ASCII);
+            }
+            buffer.put(position++, (byte)c);
+        }
+        buffer.put(position++, SOH);
+        return this;
+    }
+
+    public FixMessageEncoder append(final int tag, final long value) {
+        putTag(tag, 20);
+        position += ByteUtil.putLongAsAscii(buffer, position, value);
+        buffer.put(position++, SOH);
+        return this;
+    }
+
+    public FixMessageEncoder append(final int tag, final byte[] value, final int offset, final int length) {
+        putTag(tag, length);
+        for (int i = 0; i < length; i++) {
+            buffer.put(position++, value[offset + i]);
+        }
+        buffer.put(position++, SOH);
+        return this;
+    }
+
+    /**
+     * Appends a float field, mantissa * 10^-scale, written as plain ASCII with no exponent, e.g. 12345 with a scale of 2 as 123.45.
+     */
+    public FixMessageEncoder appendDecimal(final int tag, final long mantissa, final int scale) {
+        final int length = ByteUtil.decimalAsciiLength(mantissa, scale);
+        putTag(tag, length);
+        position += ByteUtil.putDecimalAsAscii(buffer, position, mantissa, scale);
+        buffer.put(position++, SOH);
+        return this;
+    }
+
+    /**
+     * Appends a UTCTimestamp field, yyyyMMdd-HH:mm:ss with fractional seconds of the given precision.
+     */
+    public FixMessageEncoder appendUtcTimestamp(final int tag, final long epochNanos, final TimestampPrecision precision) {
+        putTag(tag, precision.getLength());
+        position += timestampEncoder.encodeEpochNanos(epochNanos, precision, buffer, position);
+        buffer.put(position++, SOH);
+        return this;
+    }
+
+    /**
+     * Completes the message by writing the header in front of the body and appending the checksum.
+     *
+     * @return the buffer, with its position at the start of the message and its limit at the end.
+     */
+    public ByteBuffer finish() {
+        final int bodyLength = position - bodyStart;
+        final int bodyLengthDigits = ByteUtil.asciiDigitCount(bodyLength);
+        final int messageStart = bodyStart - beginStringPrefix.length - bodyLengthDigits - 1;
+
+        int index = messageStart;
+        for (final byte b : beginStringPrefix) {
+            buffer.put(index++, b);
+        }
+        index += ByteUtil.putLongAsAscii(buffer, index, bodyLength);
+        buffer.put(index, SOH);
+
+        int checksum = 0;
+        for (int i = messageStart; i < position; i++) {
+            checksum += buffer.get(i);
+        }
+        checksum &= 0xFF;
+
+        buffer.put(position++, (byte)'1');
+        buffer.put(position++, (byte)'0');
+        buffer.put(position++, EQUALS);
+        buffer.put(position++, (byte)('0' + checksum / 100));
+        buffer.put(position++, (byte)('0' + checksum / 10 % 10));
+        buffer.put(position++, (byte)('0' + checksum % 10));
+        buffer.put(position++, SOH);
+
+        buffer.limit(position);
+        buffer.position(messageStart);
+        return buffer;
+    }
+
+    private void putTag(final int tag, final int valueLength) {
+        checkCapacity(11 + valueLength + 1 + CHECKSUM_LENGTH);
+        position += ByteUtil.putLongAsAscii(buffer, position, tag);
+        buffer.put(position++, EQUALS);
+    }
+
+    private void checkCapacity(final int bytes) {
+        if (position + bytes > buffer.limit()) {
+            throw new BufferOverflowException();
+        }
+    }
+}
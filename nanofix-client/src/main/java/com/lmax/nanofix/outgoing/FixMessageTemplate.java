@@ -0,0 +1,219 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.lmax.nanofix.byteoperations.ByteUtil;
+
+/**
+ * A message encoded once by {@link FixMessageBuilder#buildTemplate()}, with fixed width slots for the values that change
+ * from one send to the next.
+ * <p>
+ * Filling a slot overwrites its bytes in place. Slots never change width, so the BodyLength stays correct, and the checksum
+ * is adjusted by the difference between the old and new bytes rather than recomputed over the whole message. Numbers are
+ * zero padded to the width of their slot, which FIX allows for int, qty and price fields.
+ * Instances are not thread safe.
+ */
+public final class FixMessageTemplate {
+    private static final int CHECKSUM_LENGTH = 7;
+    private static final int NOT_MAINTAINED = -1;
+
+    private final byte[] message;
+    private final ByteBuffer buffer;
+    private final int[] slotTags;
+    private final int[] slotOffsets;
+    private final int[] slotWidths;
+    private final int checksumOffset;
+    private int checksum;
+    private UtcTimestampEncoder timestampEncoder;
+    private byte[] timestamp;
+
+    FixMessageTemplate(final byte[] message, final int[] slotTags, final int[] slotOffsets, final int[] slotWidths, final boolean maintainChecksum) {
+        this.message = message;
+        this.buffer = ByteBuffer.wrap(message).asReadOnlyBuffer();
+        this.slotTags = slotTags;
+        this.slotOffsets = slotOffsets;
+        this.slotWidths = slotWidths;
+        this.checksumOffset = maintainChecksum ? message.length - 4 : NOT_MAINTAINED;
+        for (int i = 0; i < message.length - CHECKSUM_LENGTH; i++) {
+            checksum += message[i] & 0xFF;
+        }
+    }
+
+    /**
+     * @return the index of the first slot for the tag, to pass to the put methods.
+     */
+    public int slot(final int tag) {
+        for (int i = 0; i < slotTags.length; i++) {
+            if (slotTags[i] == tag) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Template has no slot for tag " + tag);
+    }
+
+    public boolean hasSlot(final int tag) {
+        for (final int slotTag : slotTags) {
+            if (slotTag == tag) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the index of the slot's first byte in the {@link #buffer()}.
+     */
+    public int slotOffset(final int slot) {
+        return slotOffsets[slot];
+    }
+
+    public int slotWidth(final int slot) {
+        return slotWidths[slot];
+    }
+
+    /**
+     * Fills the slot with the value, zero padded to the slot's width.
+     */
+    public FixMessageTemplate putLong(final int slot, final long value) {
+        return putDecimal(slot, value, 0);
+    }
+
+    /**
+     * Fills the slot with mantissa * 10^-scale, zero padded to the slot's width, e.g. a mantissa of 146909 and scale of 5
+     * in a slot of width 8 is written as 01.46909.
+     */
+    public FixMessageTemplate putDecimal(final int slot, final long mantissa, final int scale) {
+        final int requiredWidth = ByteUtil.decimalAsciiLength(mantissa, scale);
+        final int offset = slotOffsets[slot];
+        final int width = slotWidths[slot];
+        final int sign = mantissa < 0 ? 1 : 0;
+        long remaining = Math.abs(mantissa);
+        if (requiredWidth > width) {
+            throw new IllegalArgumentException("Value needs " + requiredWidth + " characters, slot for tag " + slotTags[slot] + " is " + width + " wide");
+        }
+
+        int delta = 0;
+        int index = offset + width - 1;
+        for (int i = 0; i < scale; i++) {
+            delta += write(index--, (byte)('0' + remaining % 10));
+            remaining /= 10;
+        }
+        if (scale > 0) {
+            delta += write(index--, (byte)'.');
+        }
+        while (index >= offset + sign) {
+            delta += write(index--, (byte)('0' + remaining % 10));
+            remaining /= 10;
+        }
+        if (sign == 1) {
+            delta += write(offset, (byte)'-');
+        }
+        return patched(delta);
+    }
+
+    /**
+     * Fills the slot with a UTCTimestamp, with milli, micro or nano second precision to match the slot's width of 21, 24 or 27.
+     */
+    public FixMessageTemplate putUtcTimestamp(final int slot, final long epochNanos) {
+        final TimestampPrecision precision = TimestampPrecision.forLength(slotWidths[slot]);
+        if (timestampEncoder == null) {
+            timestampEncoder = new UtcTimestampEncoder();
+            timestamp = new byte[TimestampPrecision.NANOS.getLength()];
+        }
+        final int length = timestampEncoder.encodeEpochNanos(epochNanos, precision, timestamp, 0);
+        return put(slot, timestamp, 0, length);
+    }
+
+    /**
+     * Fills the slot with ASCII characters, exactly as many as the slot is wide.
+     */
+    public FixMessageTemplate put(final int slot, final CharSequence value) {
+        final int width = checkWidth(slot, value.length());
+        final int offset = slotOffsets[slot];
+        int delta = 0;
+        for (int i = 0; i < width; i++) {
+            final char c = value.charAt(i);
+            if (c > 127) {
+                throw new IllegalArgumentException("Character " + c + " is not " + StandardCharsets.US_ASCII);
+            }
+            delta += write(offset + i, (byte)c);
+        }
+        return patched(delta);
+    }
+
+    /**
+     * Fills the slot with bytes copied from the array, exactly as many as the slot is wide.
+     */
+    public FixMessageTemplate put(final int slot, final byte[] value, final int valueOffset, final int length) {
+        final int width = checkWidth(slot, length);
+        final int offset = slotOffsets[slot];
+        int delta = 0;
+        for (int i = 0; i < width; i++) {
+            delta += write(offset + i, value[valueOffset + i]);
+        }
+        return patched(delta);
+    }
+
+    /**
+     * @return a read only view of the complete message, between its position and limit, ready for
+     * {@link OutboundMessageHandler#send(ByteBuffer)}. The same view is returned every time, and it reflects later puts.
+     */
+    public ByteBuffer buffer() {
+        return buffer.clear();
+    }
+
+    public int length() {
+        return message.length;
+    }
+
+    public String toFixString() {
+        return new String(message, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "FixMessageTemplate{message='" + toFixString() + "'}";
+    }
+
+    private int checkWidth(final int slot, final int length) {
+        final int width = slotWidths[slot];
+        if (length != width) {
+            throw new IllegalArgumentException("Value has " + length + " characters, slot for tag " + slotTags[slot] + " is " + width + " wide");
+        }
+        return width;
+    }
+
+    private int write(final int index, final byte value) {
+        final int delta = (value & 0xFF) - (message[index] & 0xFF);
+        message[index] = value;
+        return delta;
+    }
+
+    private FixMessageTemplate patched(final int delta) {
+        checksum += delta;
+        if (checksumOffset != NOT_MAINTAINED) {
+            final int value = checksum & 0xFF;
+            message[checksumOffset] = (byte)('0' + value / 100);
+            message[checksumOffset + 1] = (byte)('0' + value / 10 % 10);
+            message[checksumOffset + 2] = (byte)('0' + value % 10);
+        }
+        return this;
+    }
+}
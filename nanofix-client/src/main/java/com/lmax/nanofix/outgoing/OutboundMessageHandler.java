@@ -17,72 +17,431 @@
 package com.lmax.nanofix.outgoing;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.WritableByteChannel;
 import java.util.Collection;
+import java.util.concurrent.ThreadFactory;
 
+import com.lmax.nanofix.FixUtil;
+import com.lmax.nanofix.metrics.FixClientMetrics;
 import com.lmax.nanofix.transport.ConnectionObserver;
 import com.lmax.nanofix.transport.TransportClosedException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 public class OutboundMessageHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboundMessageHandler.class);
+    private static final long WRITABLE_CHECK_INTERVAL_MILLIS = 50;
 
     private final ConnectionObserver connectionObserver;
+    private final OutboundSendQueue sendQueue;
+    private final FixClientMetrics metrics;
+    private final ThreadFactory threadFactory;
+    private final int[] pendingStarts = new int[2];
+    private final Object writeLock = new Object();
+    private final Object channelLock = new Object();
+    private Thread writerThread;
+    private Selector writeSelector;
+    private boolean stopped;
     private volatile WritableByteChannel writableByteChannel;
+    private volatile WriteObserver writeObserver;
 
     public OutboundMessageHandler(final ConnectionObserver connectionObserver) {
+        this(connectionObserver, new FixClientMetrics());
+    }
+
+    /**
+     * @param metrics counts the messages sent and the bytes written.
+     */
+    public OutboundMessageHandler(final ConnectionObserver connectionObserver, final FixClientMetrics metrics) {
+        this.connectionObserver = connectionObserver;
+        this.sendQueue = null;
+        this.metrics = metrics;
+        this.threadFactory = null;
+    }
+
+    /**
+     * Sends are copied into the queue and written to the channel by a thread from the factory, so callers only wait for
+     * the channel when the queue is full and its policy is {@link SendQueueFullPolicy#BLOCK}. A write failure is logged
+     * by the writer thread, the bytes still queued at that point are discarded, and later sends throw
+     * {@link TransportClosedException} until a new channel is initialised. The thread runs from {@link #start()} until
+     * {@link #stop()}.
+     */
+    public OutboundMessageHandler(final ConnectionObserver connectionObserver, final OutboundSendQueue sendQueue, final ThreadFactory threadFactory) {
+        this(connectionObserver, sendQueue, threadFactory, new FixClientMetrics());
+    }
+
+    public OutboundMessageHandler(final ConnectionObserver connectionObserver, final OutboundSendQueue sendQueue, final ThreadFactory threadFactory,
+                                  final FixClientMetrics metrics) {
         this.connectionObserver = connectionObserver;
+        this.sendQueue = sendQueue;
+        this.metrics = metrics;
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Starts the thread writing queued sends to the channel, if there is a send queue.
+     */
+    public synchronized void start() {
+        if (sendQueue == null || writerThread != null) {
+            return;
+        }
+        writerThread = threadFactory.newThread(this::drainSendQueue);
+        writerThread.start();
+    }
+
+    /**
+     * Stops the thread writing queued sends, discarding any bytes it has not yet written. Senders waiting for space in the
+     * queue, and any that send afterwards, get a {@link TransportClosedException}.
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (writerThread != null) {
+            writerThread.interrupt();
+            writerThread.join();
+            writerThread = null;
+        }
+        if (sendQueue != null) {
+            synchronized (channelLock) {
+                stopped = true;
+                sendQueue.close();
+            }
+        }
+        synchronized (writeLock) {
+            if (writeSelector != null) {
+                try {
+                    writeSelector.close();
+                } catch (IOException e) {
+                    //Don't care
+                }
+                writeSelector = null;
+            }
+        }
     }
 
     public void send(FixMessage message) {
-        final byte[] bytes = message.toFixString().getBytes();
-        sendBytes(bytes);
+        send(message.buffer());
     }
 
+    /**
+     * Sends all the messages with {@link #send(ByteBuffer[])}.
+     */
     public void send(Collection<FixMessage> messages) {
-        int totalBytes = 0;
+        final ByteBuffer[] buffers = new ByteBuffer[messages.size()];
+        int index = 0;
         for (final FixMessage message : messages) {
-            totalBytes += message.toFixString().getBytes().length;
+            buffers[index++] = message.buffer();
         }
-        byte[] bytes = new byte[totalBytes];
+        send(buffers);
+    }
 
-        int nextIndex = 0;
-        for (final FixMessage message : messages) {
-            byte[] from = message.toFixString().getBytes();
-            int bytesToCopy = from.length;
-            System.arraycopy(from, 0, bytes, nextIndex, bytesToCopy);
-            nextIndex += bytesToCopy;
+    public void send(final String message) {
+        sendBytes(message.getBytes(FixUtil.getCharset()));
+    }
+
+    public void sendBytes(final byte[] bytes) {
+        send(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Sends the buffer with {@link #trySend(ByteBuffer)}. A message dropped by a full send queue is only counted by the
+     * queue.
+     */
+    public void send(final ByteBuffer buffer) {
+        trySend(buffer);
+    }
+
+    /**
+     * Writes the remaining bytes of the buffer, e.g. a message completed by {@link FixMessageEncoder#finish()}.
+     * Partial writes are retried until the whole buffer has been written, or queued when there is a send queue. Writes
+     * from different threads never interleave.
+     *
+     * @param buffer the bytes to send, between its position and limit.
+     * @return false if the send queue was full and the message was dropped.
+     */
+    public boolean trySend(final ByteBuffer buffer) {
+        final WritableByteChannel channel = requireChannel();
+        if (sendQueue != null) {
+            final boolean queued = sendQueue.offer(buffer);
+            if (queued) {
+                metrics.onMessagesSent(1);
+            }
+            return queued;
+        }
+        synchronized (writeLock) {
+            write(channel, buffer, 1);
         }
+        return true;
+    }
 
-        sendBytes(bytes);
+    private void write(final WritableByteChannel channel, final ByteBuffer buffer, final int messages) {
+        final int start = buffer.position();
+        try {
+            writeFully(channel, buffer);
+            metrics.onMessagesSent(messages);
+            notifyWritten(buffer, start);
+        } catch (ClosedChannelException e) {
+            connectionObserver.connectionClosed();
+            throw new TransportClosedException("Unable to write to channel", e);
+        } catch (IOException e) {
+            closeAfterWriteFailure(channel, e);
+        }
     }
 
-    public void send(final String message) {
-        sendBytes(message.getBytes());
+    /**
+     * Sends the buffers with {@link #trySend(ByteBuffer[])}. Messages dropped by a full send queue are only counted by the
+     * queue.
+     */
+    public void send(final ByteBuffer[] buffers) {
+        trySend(buffers);
     }
 
-    public void sendBytes(final byte[] bytes) {
-        if (writableByteChannel == null) {
-            throw new RuntimeException("Writable Byte Channel not initialized. Is the socket open? You can wait for the socket to be open by calling fixClient.awaitConnection");
+    /**
+     * Writes the remaining bytes of each buffer in turn. A channel that supports gathering writes is handed all the buffers
+     * at once, so a batch goes out in as few system calls as the operating system allows, and a partial write resumes
+     * from the first buffer that still has bytes remaining. Any other channel is sent a single buffer holding every message.
+     * With a send queue the messages are queued together, or all dropped when there is no room for them.
+     *
+     * @param buffers the messages to send, each between its position and limit.
+     * @return false if the send queue was full and the messages were dropped.
+     */
+    public boolean trySend(final ByteBuffer[] buffers) {
+        final WritableByteChannel channel = requireChannel();
+        if (sendQueue != null) {
+            final boolean queued = sendQueue.offer(buffers);
+            if (queued) {
+                metrics.onMessagesSent(buffers.length);
+            }
+            return queued;
+        }
+        if (!(channel instanceof GatheringByteChannel)) {
+            final ByteBuffer combined = concatenate(buffers);
+            synchronized (writeLock) {
+                write(channel, combined, buffers.length);
+            }
+            return true;
         }
+        synchronized (writeLock) {
+            gatheringWrite((GatheringByteChannel)channel, buffers);
+        }
+        return true;
+    }
+
+    private void gatheringWrite(final GatheringByteChannel channel, final ByteBuffer[] buffers) {
+        final WriteObserver observer = writeObserver;
+        final int[] starts = observer == null ? null : positionsOf(buffers, new int[buffers.length]);
+        final long bytesRemaining = remaining(buffers);
         try {
-            writableByteChannel.write(ByteBuffer.wrap(bytes));
+            writeFully(channel, buffers);
+            metrics.onMessagesSent(buffers.length);
+            metrics.onBytesWritten(bytesRemaining - remaining(buffers));
+            notifyWritten(observer, buffers, starts);
         } catch (ClosedChannelException e) {
             connectionObserver.connectionClosed();
             throw new TransportClosedException("Unable to write to channel", e);
         } catch (IOException e) {
+            closeAfterWriteFailure(channel, e);
+        }
+    }
+
+    private WritableByteChannel requireChannel() {
+        final WritableByteChannel channel = writableByteChannel;
+        if (channel == null) {
+            throw new RuntimeException("Writable Byte Channel not initialized. Is the socket open? You can wait for the socket to be open by calling fixClient.awaitConnection");
+        }
+        return channel;
+    }
+
+    private void closeAfterWriteFailure(final WritableByteChannel channel, final IOException e) {
+        try {
+            channel.close();
+        } catch (IOException e1) {
+            //Don't care
+        }
+        connectionObserver.connectionClosed();
+        throw new TransportClosedException("Unable to write to channel", e);
+    }
+
+    private void drainSendQueue() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final ByteBuffer[] pending;
+            try {
+                pending = sendQueue.awaitPending();
+            } catch (final InterruptedException e) {
+                return;
+            }
+            final WritableByteChannel channel = writableByteChannel;
+            final WriteObserver observer = writeObserver;
+            positionsOf(pending, pendingStarts);
+            boolean failed = false;
             try {
-                writableByteChannel.close();
+                if (channel instanceof GatheringByteChannel) {
+                    writeFully((GatheringByteChannel)channel, pending);
+                } else {
+                    for (final ByteBuffer buffer : pending) {
+                        writeFully(channel, buffer);
+                    }
+                }
+                metrics.onBytesWritten(written(pending, pendingStarts));
+                notifyWritten(observer, pending, pendingStarts);
+            } catch (ClosedChannelException e) {
+                failed = true;
                 connectionObserver.connectionClosed();
-                throw new TransportClosedException("Unable to write to channel", e);
-            } catch (IOException e1) {
-                //Don't care
+                LOGGER.warn("Discarding {} queued bytes, the channel is closed", sendQueue.getBytesPending());
+            } catch (IOException e) {
+                failed = true;
+                LOGGER.warn("Discarding {} queued bytes after failing to write to the channel", sendQueue.getBytesPending(), e);
+                try {
+                    closeAfterWriteFailure(channel, e);
+                } catch (final TransportClosedException closed) {
+                    // already logged
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Discarding {} queued bytes after failing to write them", sendQueue.getBytesPending(), e);
+            } finally {
+                sendQueue.release();
+            }
+            if (failed) {
+                closeSendQueue(channel);
+            }
+        }
+    }
+
+    /**
+     * Stops queueing for a channel that failed, unless it has already been replaced by a new one.
+     */
+    private void closeSendQueue(final WritableByteChannel failedChannel) {
+        synchronized (channelLock) {
+            if (writableByteChannel == failedChannel) {
+                sendQueue.close();
+            }
+        }
+    }
+
+    private void notifyWritten(final ByteBuffer buffer, final int start) {
+        metrics.onBytesWritten(buffer.position() - start);
+        final WriteObserver observer = writeObserver;
+        if (observer != null && buffer.position() > start) {
+            observer.onBytesWritten(buffer, start, buffer.position() - start);
+        }
+    }
+
+    private static void notifyWritten(final WriteObserver observer, final ByteBuffer[] buffers, final int[] starts) {
+        if (observer == null) {
+            return;
+        }
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i].position() > starts[i]) {
+                observer.onBytesWritten(buffers[i], starts[i], buffers[i].position() - starts[i]);
+            }
+        }
+    }
+
+    private static long remaining(final ByteBuffer[] buffers) {
+        long remaining = 0;
+        for (final ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        return remaining;
+    }
+
+    private static long written(final ByteBuffer[] buffers, final int[] starts) {
+        long written = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            written += buffers[i].position() - starts[i];
+        }
+        return written;
+    }
+
+    private static int[] positionsOf(final ByteBuffer[] buffers, final int[] positions) {
+        for (int i = 0; i < buffers.length; i++) {
+            positions[i] = buffers[i].position();
+        }
+        return positions;
+    }
+
+    private void writeFully(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) == 0) {
+                awaitWritable(channel, buffer.remaining());
             }
         }
     }
 
+    private void writeFully(final GatheringByteChannel channel, final ByteBuffer[] buffers) throws IOException {
+        int first = 0;
+        while (first < buffers.length) {
+            if (!buffers[first].hasRemaining()) {
+                first++;
+            } else if (channel.write(buffers, first, buffers.length - first) == 0) {
+                awaitWritable(channel, buffers[first].remaining());
+            }
+        }
+    }
+
+    /**
+     * A blocking channel only writes nothing when it cannot make progress at all, while a non blocking one does so whenever
+     * the socket's send buffer is full. The wait for room uses a selector of this handler's own, as the channel may also be
+     * registered for reads with an event loop. Only one thread writes at a time, so the selector is never shared.
+     *
+     * @throws IOException if the channel is blocking, as the rest of the write can never be sent, or has been closed.
+     */
+    private void awaitWritable(final WritableByteChannel channel, final int bytesRemaining) throws IOException {
+        if (!(channel instanceof SelectableChannel) || ((SelectableChannel)channel).isBlocking()) {
+            throw new IOException("Channel accepted none of the last " + bytesRemaining + " bytes of the write");
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Interrupted with " + bytesRemaining + " bytes of the write remaining");
+        }
+        final SelectableChannel selectableChannel = (SelectableChannel)channel;
+        if (writeSelector == null) {
+            writeSelector = Selector.open();
+        }
+        if (selectableChannel.keyFor(writeSelector) == null) {
+            selectableChannel.register(writeSelector, SelectionKey.OP_WRITE);
+        }
+        writeSelector.select(WRITABLE_CHECK_INTERVAL_MILLIS);
+        writeSelector.selectedKeys().clear();
+        if (!channel.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private static ByteBuffer concatenate(final ByteBuffer[] buffers) {
+        int totalBytes = 0;
+        for (final ByteBuffer buffer : buffers) {
+            totalBytes += buffer.remaining();
+        }
+        final ByteBuffer combined = ByteBuffer.allocate(totalBytes);
+        for (final ByteBuffer buffer : buffers) {
+            combined.put(buffer);
+        }
+        return combined.flip();
+    }
 
+    /**
+     * Writes to the channel from now on, reopening the send queue if it was closed by a failure of the previous channel.
+     */
     public void initialiseOutboundChannel(final WritableByteChannel writableByteChannel) {
-        this.writableByteChannel = writableByteChannel;
+        synchronized (channelLock) {
+            this.writableByteChannel = writableByteChannel;
+            if (sendQueue != null && !stopped) {
+                sendQueue.open();
+            }
+        }
+    }
+
+    /**
+     * Replaces the observer told about each successful write, or removes it when null. With a send queue the observer is
+     * called on the writer thread, otherwise on the thread that sent.
+     */
+    public void setWriteObserver(final WriteObserver writeObserver) {
+        this.writeObserver = writeObserver;
     }
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.lmax.nanofix.transport.TransportClosedException;
+
+/**
+ * A bounded queue of outbound bytes, held in a ring allocated up front, between the threads sending messages and the single
+ * thread writing them to the channel.
+ * <p>
+ * Senders copy each message into the ring under a lock. The writer takes everything queued so far as one or two views of the
+ * ring, one if the bytes wrap around its end, writes them without holding the lock, then releases the space. Senders can keep
+ * queueing into the free part of the ring while a write is in progress.
+ * <p>
+ * Once the channel fails, or the writer is stopped, the queue is closed: what it holds is discarded and senders, including
+ * any waiting for space, are refused until it is opened again for a new channel.
+ */
+public final class OutboundSendQueue {
+    private final ByteBuffer ring;
+    private final int capacity;
+    private final SendQueueFullPolicy fullPolicy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final ByteBuffer[] oneRegion;
+    private final ByteBuffer[] twoRegions;
+
+    private volatile long head;
+    private volatile long tail;
+    private volatile long messagesQueued;
+    private volatile long messagesWritten;
+    private volatile long messagesDropped;
+    private long pendingTail;
+    private long pendingMessages;
+    private boolean closed;
+
+    /**
+     * @param capacity the most bytes that can be waiting to be written. A message larger than this can never be queued.
+     */
+    public OutboundSendQueue(final int capacity, final SendQueueFullPolicy fullPolicy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.fullPolicy = fullPolicy;
+        this.ring = ByteBuffer.allocateDirect(capacity);
+        this.oneRegion = new ByteBuffer[]{ring.duplicate()};
+        this.twoRegions = new ByteBuffer[]{oneRegion[0], ring.duplicate()};
+    }
+
+    /**
+     * Copies the remaining bytes of the message into the queue, consuming them.
+     *
+     * @return false if the queue was full and the message was dropped, or the sender was interrupted waiting for space.
+     * @throws SendQueueFullException if the queue was full and the policy is {@link SendQueueFullPolicy#FAIL}.
+     * @throws TransportClosedException if the queue has been closed.
+     */
+    public boolean offer(final ByteBuffer message) {
+        final int length = message.remaining();
+        lock.lock();
+        try {
+            if (!awaitSpace(length, 1)) {
+                message.position(message.limit());
+                return false;
+            }
+            copyIn(message);
+            messagesQueued++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies the remaining bytes of all the messages into the queue as one reservation, so either all of them are queued,
+     * next to each other, or none are.
+     *
+     * @return false if the queue was full and the messages were dropped, or the sender was interrupted waiting for space.
+     * @throws SendQueueFullException if the queue was full and the policy is {@link SendQueueFullPolicy#FAIL}.
+     * @throws TransportClosedException if the queue has been closed.
+     */
+    public boolean offer(final ByteBuffer[] messages) {
+        long length = 0;
+        for (final ByteBuffer message : messages) {
+            length += message.remaining();
+        }
+        lock.lock();
+        try {
+            if (!awaitSpace(length, messages.length)) {
+                for (final ByteBuffer message : messages) {
+                    message.position(message.limit());
+                }
+                return false;
+            }
+            for (final ByteBuffer message : messages) {
+                copyIn(message);
+            }
+            messagesQueued += messages.length;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false if the messages should be dropped.
+     */
+    private boolean awaitSpace(final long length, final int messageCount) {
+        if (length > capacity) {
+            throw new IllegalArgumentException("Message of " + length + " bytes is larger than the send queue capacity of " + capacity);
+        }
+        while (!closed && capacity - (tail - head) < length) {
+            if (fullPolicy == SendQueueFullPolicy.DROP) {
+                messagesDropped += messageCount;
+                return false;
+            }
+            if (fullPolicy == SendQueueFullPolicy.FAIL) {
+                throw new SendQueueFullException("Send queue full, " + getBytesPending() + " bytes pending, " + length + " bytes offered");
+            }
+            try {
+                notFull.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                messagesDropped += messageCount;
+                return false;
+            }
+        }
+        if (closed) {
+            throw new TransportClosedException("Send queue closed, the channel failed or the writer was stopped");
+        }
+        return true;
+    }
+
+    private void copyIn(final ByteBuffer message) {
+        final int length = message.remaining();
+        final int start = (int)(tail % capacity);
+        final int firstPart = Math.min(length, capacity - start);
+        ring.put(start, message, message.position(), firstPart);
+        ring.put(0, message, message.position() + firstPart, length - firstPart);
+        message.position(message.limit());
+        tail += length;
+    }
+
+    /**
+     * @return the number of messages queued but not yet completely written.
+     */
+    public long getQueueDepth() {
+        return messagesQueued - messagesWritten;
+    }
+
+    public long getBytesPending() {
+        return tail - head;
+    }
+
+    public long getMessagesDropped() {
+        return messagesDropped;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Waits until there are bytes to write and returns views over all of them, which stay valid until {@link #release()}.
+     */
+    ByteBuffer[] awaitPending() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (tail == head) {
+                notEmpty.await();
+            }
+            pendingTail = tail;
+            pendingMessages = messagesQueued;
+
+            final int start = (int)(head % capacity);
+            final int length = (int)(pendingTail - head);
+            final int firstPart = Math.min(length, capacity - start);
+            oneRegion[0].limit(start + firstPart).position(start);
+            if (firstPart == length) {
+                return oneRegion;
+            }
+            twoRegions[1].limit(length - firstPart).position(0);
+            return twoRegions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards everything queued and refuses further offers until {@link #open()}, waking any sender waiting for space. Only
+     * called when no views returned by {@link #awaitPending()} are still in use.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            head = tail;
+            messagesWritten = messagesQueued;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void open() {
+        lock.lock();
+        try {
+            closed = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the space of the bytes last returned by {@link #awaitPending()}, which have been written or abandoned.
+     */
+    void release() {
+        lock.lock();
+        try {
+            head = pendingTail;
+            messagesWritten = pendingMessages;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+/**
+ * What {@link OutboundSendQueue#offer(java.nio.ByteBuffer)} does with a message that does not fit in the queue.
+ */
+public enum SendQueueFullPolicy {
+    /**
+     * Wait for the writer thread to make room.
+     */
+    BLOCK,
+
+    /**
+     * Discard the message and count it as dropped.
+     */
+    DROP,
+
+    /**
+     * Throw a {@link SendQueueFullException}.
+     */
+    FAIL
+}
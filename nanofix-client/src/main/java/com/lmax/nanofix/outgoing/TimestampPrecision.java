@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+/**
+ * The number of fractional second digits written by a {@link UtcTimestampEncoder}.
+ */
+public enum TimestampPrecision {
+    /**
+     * yyyyMMdd-HH:mm:ss.SSS
+     */
+    MILLIS(3),
+
+    /**
+     * yyyyMMdd-HH:mm:ss.SSSSSS
+     */
+    MICROS(6),
+
+    /**
+     * yyyyMMdd-HH:mm:ss.SSSSSSSSS
+     */
+    NANOS(9);
+
+    private final int fractionDigits;
+
+    TimestampPrecision(final int fractionDigits) {
+        this.fractionDigits = fractionDigits;
+    }
+
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
+
+    /**
+     * @return the number of characters in a timestamp of this precision.
+     */
+    public int getLength() {
+        return UtcTimestampEncoder.SECONDS_PREFIX_LENGTH + fractionDigits;
+    }
+
+    /**
+     * @return the precision of timestamps with the given number of characters.
+     * @throws IllegalArgumentException if no precision has that length.
+     */
+    public static TimestampPrecision forLength(final int length) {
+        for (final TimestampPrecision precision : values()) {
+            if (precision.getLength() == length) {
+                return precision;
+            }
+        }
+        throw new IllegalArgumentException("No timestamp precision is " + length + " characters long");
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes UTCTimestamp values, yyyyMMdd-HH:mm:ss followed by milli, micro or nano seconds, straight into bytes without
+ * allocating.
+ * <p>
+ * Everything up to the fractional seconds is cached. The time of day is only recomputed when the second changes, and the
+ * date only when the day changes, so consecutive stamps from a running clock mostly cost a copy and a few digits.
+ * Instances are not thread safe.
+ */
+public final class UtcTimestampEncoder {
+    static final int SECONDS_PREFIX_LENGTH = 18;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L};
+
+    private final byte[] secondsPrefix = {'0', '0', '0', '0', '0', '0', '0', '0', '-', '0', '0', ':', '0', '0', ':', '0', '0', '.'};
+    private long cachedEpochSecond = Long.MIN_VALUE;
+    private long cachedEpochDay = Long.MIN_VALUE;
+
+    /**
+     * @return the number of bytes written.
+     */
+    public int encodeEpochMillis(final long epochMillis, final TimestampPrecision precision, final byte[] buffer, final int offset) {
+        return encode(Math.floorDiv(epochMillis, 1_000L), (int)(Math.floorMod(epochMillis, 1_000L) * NANOS_PER_MILLI), precision, buffer, offset);
+    }
+
+    /**
+     * @return the number of bytes written.
+     */
+    public int encodeEpochNanos(final long epochNanos, final TimestampPrecision precision, final byte[] buffer, final int offset) {
+        return encode(Math.floorDiv(epochNanos, NANOS_PER_SECOND), (int)Math.floorMod(epochNanos, NANOS_PER_SECOND), precision, buffer, offset);
+    }
+
+    /**
+     * @param nanoOfSecond between 0 and 999,999,999, truncated to the precision.
+     * @return the number of bytes written.
+     */
+    public int encode(final long epochSecond, final int nanoOfSecond, final TimestampPrecision precision, final byte[] buffer, final int offset) {
+        updatePrefix(epochSecond);
+        System.arraycopy(secondsPrefix, 0, buffer, offset, SECONDS_PREFIX_LENGTH);
+
+        final int fractionDigits = precision.getFractionDigits();
+        int fraction = (int)(nanoOfSecond / POWERS_OF_TEN[9 - fractionDigits]);
+        for (int i = offset + SECONDS_PREFIX_LENGTH + fractionDigits - 1; i >= offset + SECONDS_PREFIX_LENGTH; i--) {
+            buffer[i] = (byte)('0' + fraction % 10);
+            fraction /= 10;
+        }
+        return SECONDS_PREFIX_LENGTH + fractionDigits;
+    }
+
+    /**
+     * Writes at an absolute index in the buffer, without changing its position.
+     *
+     * @return the number of bytes written.
+     */
+    public int encodeEpochNanos(final long epochNanos, final TimestampPrecision precision, final ByteBuffer buffer, final int index) {
+        updatePrefix(Math.floorDiv(epochNanos, NANOS_PER_SECOND));
+        for (int i = 0; i < SECONDS_PREFIX_LENGTH; i++) {
+            buffer.put(index + i, secondsPrefix[i]);
+        }
+
+        final int fractionDigits = precision.getFractionDigits();
+        long fraction = Math.floorMod(epochNanos, NANOS_PER_SECOND) / POWERS_OF_TEN[9 - fractionDigits];
+        for (int i = index + SECONDS_PREFIX_LENGTH + fractionDigits - 1; i >= index + SECONDS_PREFIX_LENGTH; i--) {
+            buffer.put(i, (byte)('0' + fraction % 10));
+            fraction /= 10;
+        }
+        return SECONDS_PREFIX_LENGTH + fractionDigits;
+    }
+
+    private void updatePrefix(final long epochSecond) {
+        if (epochSecond == cachedEpochSecond) {
+            return;
+        }
+        final long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        if (epochDay != cachedEpochDay) {
+            writeDate(epochDay);
+            cachedEpochDay = epochDay;
+        }
+        final int secondOfDay = (int)Math.floorMod(epochSecond, SECONDS_PER_DAY);
+        writeTwoDigits(9, secondOfDay / 3600);
+        writeTwoDigits(12, secondOfDay / 60 % 60);
+        writeTwoDigits(15, secondOfDay % 60);
+        cachedEpochSecond = epochSecond;
+    }
+
+    /**
+     * Converts days since 1970-01-01 to a proleptic Gregorian year, month and day, using the days from civil algorithm
+     * run backwards over 400 year eras.
+     */
+    private void writeDate(final long epochDay) {
+        final long shiftedDay = epochDay + 719_468;
+        final long era = Math.floorDiv(shiftedDay, 146_097);
+        final long dayOfEra = shiftedDay - era * 146_097;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        final int day = (int)(dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        final int month = (int)(shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Year " + year + " can not be written as a UTCTimestamp");
+        }
+        writeTwoDigits(0, (int)(year / 100));
+        writeTwoDigits(2, (int)(year % 100));
+        writeTwoDigits(4, month);
+        writeTwoDigits(6, day);
+    }
+
+    private void writeTwoDigits(final int index, final int value) {
+        secondsPrefix[index] = (byte)('0' + value / 10);
+        secondsPrefix[index + 1] = (byte)('0' + value % 10);
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Notified by {@link OutboundMessageHandler} on the writing thread once bytes have been handed to the channel.
+ * The bytes are reported in the order they were written, but a call may hold several messages or only part of one.
+ */
+public interface WriteObserver {
+    /**
+     * @param buffer the buffer that was written from, which must not be modified.
+     * @param offset the absolute index in the buffer of the first byte written.
+     * @param length the number of bytes written.
+     */
+    void onBytesWritten(ByteBuffer buffer, int offset, int length);
+}
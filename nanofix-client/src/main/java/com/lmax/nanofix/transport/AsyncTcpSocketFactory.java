@@ -41,6 +41,10 @@ public class AsyncTcpSocketFactory implements SocketFactory {
 
     @Override
     public DelegatingServerSocketChannel bind(final InetSocketAddress socketAddress) {
+        return bindServerSocket(socketAddress);
+    }
+
+    static DelegatingServerSocketChannel bindServerSocket(final InetSocketAddress socketAddress) {
         try {
             final ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
             serverSocketChannel.socket().bind(socketAddress, SINGLE_CONNECTION_BACKLOG);
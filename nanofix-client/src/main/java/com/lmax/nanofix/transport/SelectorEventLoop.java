@@ -0,0 +1,378 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.lmax.nanofix.exceptions.GeneralRuntimeException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connects, accepts and reads the sockets of many sessions on a fixed number of I/O threads, each waiting on its own
+ * {@link Selector}, instead of dedicating blocking threads to every session.
+ * <p>
+ * Sessions are spread over the I/O threads in turn as their sockets are opened, and a socket is read on the thread that
+ * opened it. Sockets are non-blocking, so writes from other threads never wait on the event loop. A read handler runs on an
+ * I/O thread and holds up every other session on that thread for as long as it takes, so it must never wait; a session is
+ * paused by {@link ReadRegistration#pause() no longer selecting its socket for reads} instead.
+ */
+public final class SelectorEventLoop implements SocketFactory, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SelectorEventLoop.class);
+    private static final long CLOSED_CHANNEL_CHECK_INTERVAL_MILLIS = 50;
+
+    private final IoThread[] ioThreads;
+    private final AtomicInteger nextIoThread = new AtomicInteger();
+
+    /**
+     * @param ioThreadCount the number of threads sharing the sessions' sockets.
+     */
+    public SelectorEventLoop(final int ioThreadCount, final ThreadFactory threadFactory) {
+        if (ioThreadCount <= 0) {
+            throw new IllegalArgumentException("I/O thread count must be positive: " + ioThreadCount);
+        }
+        ioThreads = new IoThread[ioThreadCount];
+        for (int i = 0; i < ioThreadCount; i++) {
+            try {
+                ioThreads[i] = new IoThread(Selector.open());
+            } catch (IOException e) {
+                throw new GeneralRuntimeException("Failed to open selector", e);
+            }
+        }
+        for (final IoThread ioThread : ioThreads) {
+            threadFactory.newThread(ioThread).start();
+        }
+    }
+
+    @Override
+    public DelegatingServerSocketChannel bind(final InetSocketAddress socketAddress) {
+        return AsyncTcpSocketFactory.bindServerSocket(socketAddress);
+    }
+
+    @Override
+    public void createSocketOnIncomingConnection(final DelegatingServerSocketChannel serverSocketChannel, final SocketEstablishedCallback socketEstablishedCallback) {
+        final IoThread ioThread = ioThreadFor(serverSocketChannel.serverSocketChannel);
+        ioThread.execute(() -> ioThread.accept(serverSocketChannel.serverSocketChannel, socketEstablishedCallback));
+    }
+
+    @Override
+    public void createSocketOnOutgoingConnection(final InetSocketAddress socketAddress, final SocketEstablishedCallback socketEstablishedCallback) {
+        final IoThread ioThread = nextIoThread();
+        ioThread.execute(() -> ioThread.connect(socketAddress, socketEstablishedCallback));
+    }
+
+    /**
+     * Calls the handler on an I/O thread whenever the socket has bytes to read, and once more after the socket is closed.
+     * The handler is forgotten as soon as it returns false.
+     *
+     * @param socketChannel a socket opened by this event loop, or any other connected socket.
+     * @return pauses and resumes reading the socket.
+     */
+    public ReadRegistration registerReader(final SocketChannel socketChannel, final ReadHandler readHandler) {
+        final IoThread ioThread = ioThreadFor(socketChannel);
+        ioThread.execute(() -> ioThread.addReader(socketChannel, readHandler));
+        return new ReadRegistration(ioThread, socketChannel);
+    }
+
+    /**
+     * Stops the I/O threads, closing the sockets being read so their handlers see them close.
+     */
+    @Override
+    public void close() {
+        for (final IoThread ioThread : ioThreads) {
+            ioThread.running = false;
+            ioThread.selector.wakeup();
+        }
+    }
+
+    /**
+     * @return the I/O thread the channel is already registered with, so each socket is only ever handled by one thread.
+     */
+    private IoThread ioThreadFor(final SelectableChannel channel) {
+        for (final IoThread ioThread : ioThreads) {
+            if (channel.keyFor(ioThread.selector) != null) {
+                return ioThread;
+            }
+        }
+        return nextIoThread();
+    }
+
+    private IoThread nextIoThread() {
+        return ioThreads[Math.floorMod(nextIoThread.getAndIncrement(), ioThreads.length)];
+    }
+
+    public interface ReadHandler {
+        /**
+         * @return false once the socket has been closed and no more reads are wanted.
+         */
+        boolean onReadable(SocketChannel socketChannel);
+    }
+
+    /**
+     * Pauses reading a socket without holding up the other sockets on its I/O thread. Bytes that arrive while paused wait
+     * in the socket's receive buffer, and once that fills the sender is held up by TCP flow control.
+     */
+    public static final class ReadRegistration {
+        private final IoThread ioThread;
+        private final SocketChannel socketChannel;
+
+        private ReadRegistration(final IoThread ioThread, final SocketChannel socketChannel) {
+            this.ioThread = ioThread;
+            this.socketChannel = socketChannel;
+        }
+
+        /**
+         * Stops calling the read handler when bytes arrive. A read already in progress completes.
+         */
+        public void pause() {
+            ioThread.execute(() -> ioThread.readInterest(socketChannel, 0));
+        }
+
+        public void resume() {
+            ioThread.execute(() -> ioThread.readInterest(socketChannel, SelectionKey.OP_READ));
+        }
+    }
+
+    private interface ReadyHandler {
+        void onReady(SelectionKey key) throws IOException;
+    }
+
+    private static final class IoThread implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final List<Reader> readers = new ArrayList<>();
+        private volatile boolean running = true;
+
+        private IoThread(final Selector selector) {
+            this.selector = selector;
+        }
+
+        void execute(final Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            long nextClosedChannelCheck = System.currentTimeMillis() + CLOSED_CHANNEL_CHECK_INTERVAL_MILLIS;
+            try {
+                while (running) {
+                    selector.select(CLOSED_CHANNEL_CHECK_INTERVAL_MILLIS);
+                    runTasks();
+                    processSelectedKeys();
+
+                    final long now = System.currentTimeMillis();
+                    if (now >= nextClosedChannelCheck) {
+                        removeClosedReaders();
+                        nextClosedChannelCheck = now + CLOSED_CHANNEL_CHECK_INTERVAL_MILLIS;
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Selector failed, closing all of its sockets", e);
+            } finally {
+                closeAll();
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Exception thrown: ", e);
+                }
+            }
+        }
+
+        private void processSelectedKeys() {
+            final Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+            while (selectedKeys.hasNext()) {
+                final SelectionKey key = selectedKeys.next();
+                selectedKeys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                try {
+                    ((ReadyHandler)key.attachment()).onReady(key);
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.error("Exception thrown while handling socket, channel: {}", key.channel(), e);
+                }
+            }
+        }
+
+        /**
+         * Closing a socket from another thread cancels its key without the selector reporting anything, so the reader
+         * would otherwise never be told.
+         */
+        private void removeClosedReaders() {
+            for (int i = readers.size() - 1; i >= 0; i--) {
+                final Reader reader = readers.get(i);
+                if (!reader.socketChannel.isOpen()) {
+                    reader.readHandler.onReadable(reader.socketChannel);
+                    readers.remove(i);
+                }
+            }
+        }
+
+        private void closeAll() {
+            for (final Reader reader : readers) {
+                try {
+                    reader.socketChannel.close();
+                } catch (IOException e) {
+                    //Don't care
+                }
+                reader.readHandler.onReadable(reader.socketChannel);
+            }
+            readers.clear();
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close selector", e);
+            }
+        }
+
+        void accept(final ServerSocketChannel serverSocketChannel, final SocketEstablishedCallback socketEstablishedCallback) {
+            try {
+                serverSocketChannel.configureBlocking(false);
+                interest(serverSocketChannel, SelectionKey.OP_ACCEPT, key ->
+                {
+                    final SocketChannel socketChannel = serverSocketChannel.accept();
+                    if (socketChannel != null) {
+                        key.interestOps(0);
+                        socketChannel.configureBlocking(false);
+                        socketEstablishedCallback.onSocketEstablished(socketChannel);
+                    }
+                });
+            } catch (ClosedChannelException e) {
+                LOGGER.warn("Server socket closed,  while waiting to accept a new inbound connection.", e);
+            } catch (IOException e) {
+                LOGGER.error("IOException occurred while waiting for a connection", e);
+            }
+        }
+
+        void connect(final InetSocketAddress socketAddress, final SocketEstablishedCallback socketEstablishedCallback) {
+            SocketChannel socketChannel = null;
+            try {
+                socketChannel = SocketChannel.open();
+                socketChannel.configureBlocking(false);
+                if (socketChannel.connect(socketAddress)) {
+                    socketEstablishedCallback.onSocketEstablished(socketChannel);
+                    return;
+                }
+                final SocketChannel connectingChannel = socketChannel;
+                interest(socketChannel, SelectionKey.OP_CONNECT, key ->
+                {
+                    try {
+                        if (connectingChannel.finishConnect()) {
+                            key.interestOps(0);
+                            socketEstablishedCallback.onSocketEstablished(connectingChannel);
+                        }
+                    } catch (IOException e) {
+                        failedToConnect(connectingChannel, socketAddress, e);
+                    }
+                });
+            } catch (IOException e) {
+                failedToConnect(socketChannel, socketAddress, e);
+            }
+        }
+
+        void addReader(final SocketChannel socketChannel, final ReadHandler readHandler) {
+            final Reader reader = new Reader(socketChannel, readHandler);
+            try {
+                socketChannel.configureBlocking(false);
+                interest(socketChannel, SelectionKey.OP_READ, reader);
+                readers.add(reader);
+            } catch (IOException e) {
+                readHandler.onReadable(socketChannel);
+            }
+        }
+
+        /**
+         * Tasks run in order, so this always follows the reader being added.
+         */
+        void readInterest(final SocketChannel socketChannel, final int interestOps) {
+            final SelectionKey key = socketChannel.keyFor(selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(interestOps);
+            }
+        }
+
+        /**
+         * Keys are reused rather than cancelled, since a cancelled key can not be replaced until the next select.
+         */
+        private void interest(final SelectableChannel channel, final int interestOps, final ReadyHandler readyHandler) throws IOException {
+            final SelectionKey key = channel.keyFor(selector);
+            if (key == null) {
+                channel.register(selector, interestOps, readyHandler);
+            } else {
+                key.interestOps(interestOps);
+                key.attach(readyHandler);
+            }
+        }
+
+        private static void failedToConnect(final SocketChannel socketChannel, final InetSocketAddress socketAddress, final IOException e) {
+            LOGGER.error(String.format("Can't connect - host:%s, port:%d", socketAddress.getHostName(), socketAddress.getPort()), e);
+            if (socketChannel != null) {
+                try {
+                    socketChannel.close();
+                } catch (IOException e1) {
+                    //Don't care
+                }
+            }
+        }
+
+        private final class Reader implements ReadyHandler {
+            private final SocketChannel socketChannel;
+            private final ReadHandler readHandler;
+
+            private Reader(final SocketChannel socketChannel, final ReadHandler readHandler) {
+                this.socketChannel = socketChannel;
+                this.readHandler = readHandler;
+            }
+
+            /**
+             * A key selected in the same round as its reader was paused is skipped.
+             */
+            @Override
+            public void onReady(final SelectionKey key) {
+                if ((key.interestOps() & SelectionKey.OP_READ) == 0) {
+                    return;
+                }
+                if (!readHandler.onReadable(socketChannel)) {
+                    key.cancel();
+                    readers.remove(this);
+                }
+            }
+        }
+    }
+}
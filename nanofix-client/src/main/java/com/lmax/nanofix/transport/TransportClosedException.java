@@ -17,6 +17,10 @@
 package com.lmax.nanofix.transport;
 
 public class TransportClosedException extends RuntimeException {
+    public TransportClosedException(final String message) {
+        super(message);
+    }
+
     public TransportClosedException(final String message, final Throwable cause) {
         super(message, cause);
     }
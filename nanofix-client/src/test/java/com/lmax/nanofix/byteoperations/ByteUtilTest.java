@@ -16,6 +16,7 @@
 
 package com.lmax.nanofix.byteoperations;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 import org.junit.Assert;
@@ -63,6 +64,30 @@ public class ByteUtilTest {
         ByteUtil.packLongWithUnsignedShortInts(int1, int2, int3, int4);
     }
 
+    @Test
+    public void shouldPutLongAsVariableWidthAscii() {
+        final ByteBuffer buffer = ByteBuffer.allocate(24);
+
+        assertEquals(1, ByteUtil.putLongAsAscii(buffer, 2, 0L));
+        assertEquals("0", new String(buffer.array(), 2, 1, StandardCharsets.US_ASCII));
+
+        assertEquals(4, ByteUtil.putLongAsAscii(buffer, 0, -907L));
+        assertEquals("-907", new String(buffer.array(), 0, 4, StandardCharsets.US_ASCII));
+
+        assertEquals(19, ByteUtil.putLongAsAscii(buffer, 1, Long.MAX_VALUE));
+        assertEquals(Long.toString(Long.MAX_VALUE), new String(buffer.array(), 1, 19, StandardCharsets.US_ASCII));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void shouldCountAsciiDigits() {
+        assertEquals(1, ByteUtil.asciiDigitCount(0L));
+        assertEquals(1, ByteUtil.asciiDigitCount(9L));
+        assertEquals(2, ByteUtil.asciiDigitCount(10L));
+        assertEquals(18, ByteUtil.asciiDigitCount(999999999999999999L));
+        assertEquals(19, ByteUtil.asciiDigitCount(Long.MAX_VALUE));
+    }
+
     @Test
     public void shouldWriteLongAsAscii() {
         final byte[] longAsAsciiBytes = new byte[19];
@@ -194,6 +219,36 @@ public class ByteUtilTest {
         ByteUtil.asciiEncode(testSequence, 0, result, 0, result.length);
     }
 
+    @Test
+    public void shouldWriteDecimalsAsPlainAscii() {
+        checkDecimalWrittenAsAscii(146909, 5, "1.46909");
+        checkDecimalWrittenAsAscii(-146909, 5, "-1.46909");
+        checkDecimalWrittenAsAscii(5, 2, "0.05");
+        checkDecimalWrittenAsAscii(-5, 3, "-0.005");
+        checkDecimalWrittenAsAscii(100000, 4, "10.0000");
+        checkDecimalWrittenAsAscii(250, 0, "250");
+        checkDecimalWrittenAsAscii(0, 0, "0");
+        checkDecimalWrittenAsAscii(Long.MAX_VALUE, 18, "9.223372036854775807");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeDecimalScale() {
+        ByteUtil.decimalAsciiLength(1, -1);
+    }
+
+    private void checkDecimalWrittenAsAscii(final long mantissa, final int scale, final String expected) {
+        final byte[] bytes = new byte[32];
+        final int length = ByteUtil.writeDecimalAsAscii(bytes, 3, mantissa, scale);
+        assertEquals(expected, new String(bytes, 3, length, StandardCharsets.US_ASCII));
+        assertEquals(expected.length(), ByteUtil.decimalAsciiLength(mantissa, scale));
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(32);
+        assertEquals(expected.length(), ByteUtil.putDecimalAsAscii(buffer, 5, mantissa, scale));
+        final byte[] written = new byte[length];
+        buffer.position(5);
+        buffer.get(written);
+        assertEquals(expected, new String(written, StandardCharsets.US_ASCII));
+    }
 
     private void checkIntegerEncodedAsAsciiValue(final String integerAsString) {
         final byte[] bytes = integerAsString.getBytes(StandardCharsets.US_ASCII);
@@ -53,6 +53,39 @@ public class ThreadBlockerTest {
 
     }
 
+    @Test
+    public void shouldAccumulateTimeSpentPaused() throws Exception {
+        final ThreadBlocker threadBlocker = new ThreadBlocker();
+        threadBlocker.mayWait();
+        Assert.assertThat(threadBlocker.getPausedNanos(), is(0L));
+
+        threadBlocker.pause();
+        final Thread thread = new Thread(threadBlocker::mayWait);
+        thread.start();
+        waitForThreadState(thread, Thread.State.WAITING, 100);
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+        threadBlocker.resume();
+        thread.join();
+
+        Assert.assertThat(threadBlocker.getPausedNanos() >= TimeUnit.MILLISECONDS.toNanos(20), is(true));
+    }
+
+    @Test
+    public void shouldReleaseEveryWaitingThreadOnResume() throws Exception {
+        final ThreadBlocker threadBlocker = new ThreadBlocker();
+        threadBlocker.pause();
+        final Thread first = new Thread(threadBlocker::mayWait);
+        final Thread second = new Thread(threadBlocker::mayWait);
+        first.start();
+        second.start();
+        waitForThreadState(first, Thread.State.WAITING, 100);
+        waitForThreadState(second, Thread.State.WAITING, 100);
+
+        threadBlocker.resume();
+        waitForThreadState(first, Thread.State.TERMINATED, 100);
+        waitForThreadState(second, Thread.State.TERMINATED, 100);
+    }
+
     private void waitForThreadState(final Thread thread, final Thread.State expectedState, final int timeoutMillis) {
         final int numberOfRetries = 10;
         final int waitBetweenRetries = timeoutMillis / 10;
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.lmax.nanofix.concurrent.ThreadBlocker;
+import com.lmax.nanofix.concurrent.WaitStrategy;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncMessageDispatcherTest {
+    private static final int SLOT_SIZE = 64;
+
+    private AsyncMessageDispatcher dispatcher;
+
+    @After
+    public void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.halt();
+        }
+    }
+
+    @Test
+    public void shouldDeliverEveryMessageInOrderToEveryConsumerAcrossRingWraps() throws Exception {
+        final RecordingCallback first = new RecordingCallback();
+        final RecordingCallback second = new RecordingCallback();
+        dispatcher = new AsyncMessageDispatcher(4, SLOT_SIZE, WaitStrategy.YIELD, Thread::new, first, second);
+        dispatcher.start();
+
+        final int messageCount = 1000;
+        for (int i = 0; i < messageCount; i++) {
+            final byte[] message = ("message-" + i).getBytes();
+            dispatcher.onMessage(message, 0, message.length);
+        }
+        dispatcher.halt();
+
+        for (RecordingCallback callback : Arrays.asList(first, second)) {
+            assertThat(callback.messages.size(), is(messageCount));
+            for (int i = 0; i < messageCount; i++) {
+                assertArrayEquals(("message-" + i).getBytes(), callback.messages.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldForwardTruncationAndParseErrors() throws Exception {
+        final RecordingCallback callback = new RecordingCallback();
+        dispatcher = new AsyncMessageDispatcher(8, SLOT_SIZE, WaitStrategy.PARK, Thread::new, callback);
+        dispatcher.start();
+
+        final byte[] message = "8=FIX.4.4".getBytes();
+        dispatcher.onTruncatedMessage();
+        dispatcher.onMessage(message, 0, message.length);
+        dispatcher.onParseError("bad segment");
+        dispatcher.onMessage(message, 0, message.length);
+        dispatcher.halt();
+
+        assertThat(callback.events, is(Arrays.asList("truncated", "message", "error:bad segment", "message")));
+    }
+
+    @Test
+    public void shouldForwardSkippedBytesWithoutCopyingThem() throws Exception {
+        final RecordingCallback callback = new RecordingCallback();
+        dispatcher = new AsyncMessageDispatcher(8, SLOT_SIZE, WaitStrategy.PARK, Thread::new, callback);
+        dispatcher.start();
+
+        final byte[] message = "8=FIX.4.4".getBytes();
+        dispatcher.onBytesSkipped(SLOT_SIZE * 4);
+        dispatcher.onMessage(message, 0, message.length);
+        dispatcher.halt();
+
+        assertThat(callback.events, is(Arrays.asList("skipped:" + SLOT_SIZE * 4, "message")));
+    }
+
+    @Test
+    public void shouldPassMessageIntegrityToConsumers() throws Exception {
+        final RecordingCallback callback = new RecordingCallback();
+        dispatcher = new AsyncMessageDispatcher(8, SLOT_SIZE, WaitStrategy.PARK, Thread::new, callback);
+        dispatcher.start();
+
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=11|35=0|34=11|10=215|");
+        final MessageIntegrity integrity = new MessageIntegrity();
+        integrity.update(message, 0, message.length);
+        dispatcher.onMessage(message, 0, message.length, integrity);
+        dispatcher.halt();
+
+        assertThat(callback.validMessages, is(1));
+    }
+
+    @Test
+    public void shouldReportMessagesWaitingForTheSlowestConsumer() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final RecordingCallback blocked = new RecordingCallback() {
+            @Override
+            public void onMessage(final byte[] buffer, final int offset, final int length) {
+                started.countDown();
+                awaitUninterruptibly(release);
+                super.onMessage(buffer, offset, length);
+            }
+        };
+        dispatcher = new AsyncMessageDispatcher(8, SLOT_SIZE, WaitStrategy.PARK, Thread::new, blocked);
+        dispatcher.start();
+
+        final byte[] message = "message".getBytes();
+        for (int i = 0; i < 3; i++) {
+            dispatcher.onMessage(message, 0, message.length);
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThat(dispatcher.getOccupancy(), is(3L));
+        release.countDown();
+        dispatcher.halt();
+        assertThat(dispatcher.getOccupancy(), is(0L));
+    }
+
+    @Test
+    public void shouldHoldBackMessagesAlreadyInTheRingWhileBlockerIsPaused() throws Exception {
+        final ThreadBlocker blocker = new ThreadBlocker();
+        final RecordingCallback callback = new RecordingCallback();
+        dispatcher = new AsyncMessageDispatcher(8, SLOT_SIZE, WaitStrategy.PARK, blocker, Thread::new, callback);
+        dispatcher.start();
+
+        blocker.pause();
+        final byte[] message = "message".getBytes();
+        dispatcher.onMessage(message, 0, message.length);
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(dispatcher.getOccupancy(), is(1L));
+
+        blocker.resume();
+        dispatcher.halt();
+        assertThat(callback.messages.size(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSlotCountThatIsNotAPowerOfTwo() {
+        new AsyncMessageDispatcher(6, SLOT_SIZE, WaitStrategy.PARK, Thread::new, new RecordingCallback());
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingCallback implements MessageParserCallback {
+        private final List<byte[]> messages = new ArrayList<>();
+        private final List<String> events = new ArrayList<>();
+        private int validMessages;
+
+        @Override
+        public void onMessage(final byte[] buffer, final int offset, final int length) {
+            messages.add(Arrays.copyOfRange(buffer, offset, offset + length));
+            events.add("message");
+        }
+
+        @Override
+        public void onMessage(final byte[] buffer, final int offset, final int length, final MessageIntegrity integrity) {
+            onMessage(buffer, offset, length);
+            if (integrity.isValid()) {
+                validMessages++;
+            }
+        }
+
+        @Override
+        public void onTruncatedMessage() {
+            events.add("truncated");
+        }
+
+        @Override
+        public void onBytesSkipped(final int length) {
+            events.add("skipped:" + length);
+        }
+
+        @Override
+        public void onParseError(final String error) {
+            events.add("error:" + error);
+        }
+    }
+}
@@ -27,8 +27,11 @@ import com.lmax.nanofix.transport.ConnectionObserver;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 public class ByteChannelReaderTest {
@@ -87,4 +90,26 @@ public class ByteChannelReaderTest {
         verify(readableByteChannel).close();
         verify(connectionObserver).connectionClosed();
     }
+
+    @Test
+    public void shouldParseEachReadWhenReadingAvailableBytes() throws Exception {
+        given(readableByteChannel.read(any(ByteBuffer.class))).willReturn(1, 0);
+
+        assertTrue(inputStreamReader.readAvailable(readableByteChannel));
+        assertTrue(inputStreamReader.readAvailable(readableByteChannel));
+
+        verify(byteStreamMessageParser).parse(any(ByteBuffer.class));
+        verify(connectionObserver, never()).connectionClosed();
+    }
+
+    @Test
+    public void shouldCloseChannelWhenReadingAvailableBytesReachesEndOfStream() throws Exception {
+        given(readableByteChannel.read(any(ByteBuffer.class))).willReturn(-1);
+        given(readableByteChannel.isOpen()).willReturn(true);
+
+        assertFalse(inputStreamReader.readAvailable(readableByteChannel));
+
+        verify(readableByteChannel).close();
+        verify(connectionObserver).connectionClosed();
+    }
 }
@@ -42,4 +42,32 @@ public class FixMessageFactoryTest {
         fixMessageStreamFactory.onTag(2, msg1, 1, 2);
         fixMessageStreamFactory.messageEnd();
     }
+
+    @Test
+    public void shouldKeepACopyOfTheMessageIntegrity() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=11|35=0|34=11|10=214|");
+        final MessageIntegrity integrity = new MessageIntegrity();
+        integrity.update(message, 0, message.length);
+        final FixMessage[] received = new FixMessage[1];
+
+        final FixTagParser parser = new FixTagParser(new FixMessageStreamFactory(fixMessage -> received[0] = fixMessage));
+        parser.parse(message, 0, message.length, true, integrity);
+        integrity.update(message, 0, 0);
+
+        Assert.assertThat(received[0].getIntegrity().isBodyLengthValid(), is(true));
+        Assert.assertThat(received[0].getIntegrity().isChecksumValid(), is(false));
+        Assert.assertThat(received[0].getIntegrity().getComputedChecksum(), is(215));
+    }
+
+    @Test
+    public void shouldReportUnknownIntegrityWhenItWasNotVerified() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=11|35=0|34=11|10=215|");
+        final FixMessage[] received = new FixMessage[1];
+
+        final FixTagParser parser = new FixTagParser(new FixMessageStreamFactory(fixMessage -> received[0] = fixMessage));
+        parser.parse(message, 0, message.length, true);
+
+        Assert.assertThat(received[0].getIntegrity().isValid(), is(false));
+        Assert.assertThat(received[0].getIntegrity().getDeclaredChecksum(), is(MessageIntegrity.UNKNOWN));
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.nio.charset.StandardCharsets;
+
+import com.lmax.nanofix.FixUtil;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class FixMessageFlyweightTest {
+    private static final byte[] EXECUTION_REPORT = FixMessageUtil.getExecutionReport();
+
+    private final FixMessageFlyweight flyweight = new FixMessageFlyweight();
+
+    @Test
+    public void shouldDecodeTypedValues() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=40|35=8|34=1005699|31=-1.46909|60=-12|58=hello|10=000|");
+        flyweight.wrap(message, 0, message.length);
+
+        Assert.assertThat(flyweight.getInt(34), is(1005699));
+        Assert.assertThat(flyweight.getLong(60), is(-12L));
+        Assert.assertThat(flyweight.getDecimal(31, new FixDecimal()).getMantissa(), is(-146909L));
+        Assert.assertThat(flyweight.getDecimal(31, new FixDecimal()).getScale(), is(5));
+        Assert.assertThat(flyweight.getCharSequence(58).toString(), is("hello"));
+        Assert.assertThat(flyweight.getValueLength(35), is(1));
+    }
+
+    @Test
+    public void shouldCopyValueBytes() {
+        flyweight.wrap(EXECUTION_REPORT, 0, EXECUTION_REPORT.length);
+        final byte[] destination = new byte[32];
+
+        final int length = flyweight.getBytes(11, destination, 2);
+
+        Assert.assertThat(new String(destination, 2, length, StandardCharsets.US_ASCII), is("xxxxxxxxxxxxxxxxxxx"));
+    }
+
+    @Test
+    public void shouldReturnFirstOccurrenceOfRepeatedTag() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.2|9=20|35=W|45=3|45=7|10=000|");
+        flyweight.wrap(message, 0, message.length);
+
+        Assert.assertThat(flyweight.getInt(45), is(3));
+    }
+
+    @Test
+    public void shouldOnlyViewWrappedRegionOfBuffer() {
+        final byte[] buffer = new byte[EXECUTION_REPORT.length + 20];
+        System.arraycopy(EXECUTION_REPORT, 0, buffer, 10, EXECUTION_REPORT.length);
+        flyweight.wrap(buffer, 10, EXECUTION_REPORT.length);
+
+        Assert.assertThat(flyweight.getCharSequence(8).toString(), is("FIX.4.4"));
+        Assert.assertThat(flyweight.getInt(10), is(128));
+        Assert.assertThat(flyweight.toString(), is(FixMessageUtil.convertFixControlCharacters(EXECUTION_REPORT)));
+    }
+
+    @Test
+    public void shouldReindexWhenWrappingAnotherMessage() {
+        final byte[] logon = FixMessageUtil.getLogonMessage();
+        flyweight.wrap(EXECUTION_REPORT, 0, EXECUTION_REPORT.length);
+        Assert.assertThat(flyweight.getCharSequence(35).toString(), is("8"));
+
+        flyweight.wrap(logon, 0, logon.length);
+
+        Assert.assertThat(flyweight.getCharSequence(35).toString(), is("A"));
+        Assert.assertThat(flyweight.hasValue(11), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowWhenTagIsNotPresent() {
+        flyweight.wrap(EXECUTION_REPORT, 0, EXECUTION_REPORT.length);
+
+        flyweight.getInt(999);
+    }
+
+    @Test
+    public void shouldProduceDetachedCopy() {
+        final byte[] buffer = FixMessageUtil.getExecutionReport();
+        flyweight.wrap(buffer, 0, buffer.length);
+
+        final FixMessageFlyweight copy = flyweight.copy();
+        buffer[buffer.length - 3] = '9';
+
+        Assert.assertThat(copy.getInt(10), is(128));
+        Assert.assertThat(flyweight.getInt(10), is(198));
+    }
+
+    @Test
+    public void shouldDecodeIntoFixMessage() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.2|9=20|35=W|45=3|45=7|10=000|");
+        flyweight.wrap(message, 0, message.length);
+
+        final FixMessage fixMessage = flyweight.toFixMessage();
+
+        Assert.assertThat(fixMessage.toHumanString(), is("8=FIX.4.2|9=20|35=W|45=3|45=7|10=000|"));
+    }
+
+    @Test
+    public void shouldDecodeIntoFixMessageWithTheFixCharset() {
+        final byte[] message = "8=FIX.4.2|9=20|35=W|58=caf\u00e9|10=000|".replace('|', '\u0001').getBytes(StandardCharsets.UTF_8);
+        flyweight.wrap(message, 0, message.length);
+
+        final FixMessage fixMessage = flyweight.toFixMessage();
+
+        Assert.assertThat(fixMessage.getFirstValue(58), is(new String("caf\u00e9".getBytes(StandardCharsets.UTF_8), FixUtil.getCharset())));
+    }
+}
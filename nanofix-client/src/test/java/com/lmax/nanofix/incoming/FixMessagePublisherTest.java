@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FixMessagePublisherTest {
+    private static final byte[] HEARTBEAT = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=11|35=0|34=11|10=215|");
+    private static final byte[] EXECUTION_REPORT = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=17|35=8|34=12|11=abc|10=000|");
+    private static final byte[] SECURITY_LIST = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=12|35=y|34=13|10=000|");
+    private static final byte[] TRADE_CAPTURE_REPORT = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=12|35=AE|34=14|10=000|");
+
+    private final FixMessagePublisher publisher = new FixMessagePublisher();
+    private final CountingFixMessageFactory messageFactory = new CountingFixMessageFactory(publisher);
+    private final RawFixMessageHandler rawFixMessageHandler = new RawFixMessageHandler(new FixTagParser(messageFactory), publisher);
+
+    @Test
+    public void shouldOnlyPublishMessagesOfTheSubscribedType() {
+        final List<FixMessage> executionReports = new ArrayList<>();
+        final List<FixMessage> tradeCaptureReports = new ArrayList<>();
+        publisher.subscribeToMessageType("8", executionReports::add);
+        publisher.subscribeToMessageType("AE", tradeCaptureReports::add);
+
+        publishAll(HEARTBEAT, EXECUTION_REPORT, TRADE_CAPTURE_REPORT, SECURITY_LIST);
+
+        assertThat(executionReports.size(), is(1));
+        assertThat(executionReports.get(0).getFirstValue(11), is("abc"));
+        assertThat(tradeCaptureReports.size(), is(1));
+        assertThat(tradeCaptureReports.get(0).getFirstValue(34), is("14"));
+    }
+
+    @Test
+    public void shouldNotDecodeMessagesOfTypesWithoutSubscribers() {
+        publisher.subscribeToMessageType("8", fixMessage -> { });
+
+        publishAll(HEARTBEAT, EXECUTION_REPORT, SECURITY_LIST);
+
+        assertThat(messageFactory.messagesDecoded, is(1));
+    }
+
+    @Test
+    public void shouldPublishToTypeAndAllMessageSubscribers() {
+        final List<FixMessage> allMessages = new ArrayList<>();
+        final List<FixMessage> heartbeats = new ArrayList<>();
+        publisher.subscribeToAllMessages(allMessages::add);
+        publisher.subscribeToMessageType("0", heartbeats::add);
+        publisher.subscribeToMessageType("0", heartbeats::add);
+
+        publishAll(HEARTBEAT, EXECUTION_REPORT);
+
+        assertThat(allMessages.size(), is(2));
+        assertThat(heartbeats.size(), is(2));
+        assertThat(messageFactory.messagesDecoded, is(2));
+    }
+
+    @Test
+    public void shouldNotRouteTheNextMessageToTheTypeOfOneThatFailedToParse() {
+        final List<FixMessage> executionReports = new ArrayList<>();
+        final List<FixMessage> heartbeats = new ArrayList<>();
+        publisher.subscribeToMessageType("8", executionReports::add);
+        publisher.subscribeToMessageType("0", heartbeats::add);
+        final byte[] malformedExecutionReport = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=17|35=8|x4=12|11=abc|10=000|");
+
+        try {
+            publishAll(malformedExecutionReport);
+        } catch (final FixParseException e) {
+            // expected
+        }
+        final Multimap<Integer, String> heartbeat = ArrayListMultimap.create();
+        heartbeat.put(35, "0");
+        publisher.onFixMessage(new FixMessage(heartbeat));
+
+        assertThat(executionReports.size(), is(0));
+        assertThat(heartbeats.size(), is(1));
+    }
+
+    @Test
+    public void shouldShareOneParseBetweenTagFilteredSubscribersAndStopOnceAllHaveTheirTags() {
+        final List<FixMessage> msgSeqNums = new ArrayList<>();
+        final List<FixMessage> msgTypes = new ArrayList<>();
+        publisher.subscribeToMessagesWithTags(msgSeqNums::add, 34);
+        publisher.subscribeToMessagesWithTags(msgTypes::add, 35, 9);
+        // an invalid tag id after both subscribers' tags would fail the parse if it were reached
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=20|35=8|34=12|x1=abc|10=000|");
+
+        publishAll(message);
+
+        assertThat(msgSeqNums.size(), is(1));
+        assertThat(msgSeqNums.get(0).getFirstValue(34), is("12"));
+        assertThat(msgTypes.size(), is(1));
+        assertThat(msgTypes.get(0).getFirstValue(35), is("8"));
+        assertThat(msgTypes.get(0).getFirstValue(9), is("20"));
+    }
+
+    @Test
+    public void shouldRouteMessagesPublishedWithoutRawBytes() {
+        final List<FixMessage> heartbeats = new ArrayList<>();
+        publisher.subscribeToMessageType("0", heartbeats::add);
+        final Multimap<Integer, String> tags = ArrayListMultimap.create();
+        tags.put(35, "0");
+
+        publisher.onFixMessage(new FixMessage(tags));
+
+        assertThat(heartbeats.size(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEmptyMsgType() {
+        publisher.subscribeToMessageType("", fixMessage -> { });
+    }
+
+    private void publishAll(final byte[]... messages) {
+        for (byte[] message : messages) {
+            rawFixMessageHandler.onMessage(message, 0, message.length);
+        }
+    }
+
+    private static final class CountingFixMessageFactory implements FixTagHandler {
+        private final FixMessageStreamFactory delegate;
+        private int messagesDecoded;
+
+        CountingFixMessageFactory(final FixMessageHandler handler) {
+            this.delegate = new FixMessageStreamFactory(handler);
+        }
+
+        @Override
+        public void messageStart() {
+            messagesDecoded++;
+            delegate.messageStart();
+        }
+
+        @Override
+        public void onTag(final int tagIdentity, final byte[] message, final int tagValueOffset, final int tagValueLength) {
+            delegate.onTag(tagIdentity, message, tagValueOffset, tagValueLength);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public void messageEnd() {
+            delegate.messageEnd();
+        }
+    }
+}
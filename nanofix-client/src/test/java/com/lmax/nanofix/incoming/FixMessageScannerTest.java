@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FixMessageScannerTest {
+    private static final byte[] MESSAGE_START = {'8', '=', 'F', 'I', 'X'};
+    private static final byte[] CHECKSUM_START = {1, '1', '0', '='};
+
+    @Test
+    public void shouldFindPatternsAtEveryOffsetWithinAWord() {
+        for (int offset = 0; offset < 20; offset++) {
+            final byte[] bytes = new byte[32];
+            System.arraycopy(MESSAGE_START, 0, bytes, offset, MESSAGE_START.length);
+            System.arraycopy(CHECKSUM_START, 0, bytes, offset + 7, CHECKSUM_START.length);
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+            assertThat(FixMessageScanner.indexOfMessageStart(buffer, 0, bytes.length), is(offset));
+            assertThat(FixMessageScanner.indexOfChecksumStart(buffer, 0, bytes.length), is(offset + 7));
+        }
+    }
+
+    @Test
+    public void shouldNotFindPatternThatExtendsBeyondLimit() {
+        final ByteBuffer buffer = ByteBuffer.wrap(FixMessageUtil.convertFixControlCharacters("35=0|10=123|8=FIX.4.4|"));
+
+        assertThat(FixMessageScanner.indexOfChecksumStart(buffer, 0, 7), is(-1));
+        assertThat(FixMessageScanner.indexOfChecksumStart(buffer, 0, 8), is(4));
+        assertThat(FixMessageScanner.indexOfMessageStart(buffer, 0, 16), is(-1));
+        assertThat(FixMessageScanner.indexOfMessageStart(buffer, 0, 17), is(12));
+        assertThat(FixMessageScanner.indexOfMessageStart(buffer, 13, 22), is(-1));
+    }
+
+    @Test
+    public void shouldSkipPartialMatchesOfFirstByte() {
+        final ByteBuffer buffer = ByteBuffer.wrap(FixMessageUtil.convertFixControlCharacters("88=8=F8=FI||10|1=|10=8=FIX"));
+
+        assertThat(FixMessageScanner.indexOfMessageStart(buffer, 0, buffer.limit()), is(21));
+        assertThat(FixMessageScanner.indexOfChecksumStart(buffer, 0, buffer.limit()), is(17));
+    }
+
+    @Test
+    public void shouldMatchByteAtATimeScanOverRandomInput() {
+        final Random random = new Random(42);
+        final byte[] alphabet = {1, '1', '0', '=', '8', 'F', 'I', 'X'};
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            final byte[] bytes = new byte[random.nextInt(40)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            final int from = bytes.length == 0 ? 0 : random.nextInt(bytes.length);
+
+            for (final ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(bytes), direct(bytes, ByteOrder.BIG_ENDIAN), direct(bytes, ByteOrder.LITTLE_ENDIAN)}) {
+                assertThat(FixMessageScanner.indexOfMessageStart(buffer, from, bytes.length), is(naiveIndexOf(bytes, from, MESSAGE_START)));
+                assertThat(FixMessageScanner.indexOfChecksumStart(buffer, from, bytes.length), is(naiveIndexOf(bytes, from, CHECKSUM_START)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldSumTheBytesScannedUpToTheChecksumStartOverRandomInput() {
+        final Random random = new Random(42);
+        final byte[] alphabet = {1, '1', '0', '=', '8', 'F', (byte)0xFF, (byte)0x80};
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            final byte[] bytes = new byte[random.nextInt(80)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            final int from = bytes.length == 0 ? 0 : random.nextInt(bytes.length);
+            final int sum = random.nextInt(256);
+            final int index = naiveIndexOf(bytes, from, CHECKSUM_START);
+            int expectedSum = sum;
+            for (int pos = from; pos < (index == -1 ? bytes.length - (CHECKSUM_START.length - 1) : index + 1); pos++) {
+                expectedSum += bytes[pos] & 0xFF;
+            }
+
+            for (final ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(bytes), direct(bytes, ByteOrder.BIG_ENDIAN), direct(bytes, ByteOrder.LITTLE_ENDIAN)}) {
+                final long found = FixMessageScanner.scanToChecksumStart(buffer, from, bytes.length, sum);
+                assertThat(FixMessageScanner.foundIndex(found), is(index));
+                assertThat(FixMessageScanner.foundSum(found), is(expectedSum % 256));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReturnIndexRelativeToSliceOfHeapBuffer() {
+        final byte[] bytes = FixMessageUtil.convertFixControlCharacters("xxxxx8=FIX.4.4|35=0|10=123|");
+        final ByteBuffer slice = ByteBuffer.wrap(bytes, 3, bytes.length - 3).slice();
+
+        assertThat(FixMessageScanner.indexOfMessageStart(slice, 0, slice.limit()), is(2));
+        assertThat(FixMessageScanner.indexOfChecksumStart(slice, 0, slice.limit()), is(16));
+    }
+
+    private static ByteBuffer direct(final byte[] bytes, final ByteOrder order) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).order(order);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+
+    private static int naiveIndexOf(final byte[] bytes, final int from, final byte[] pattern) {
+        for (int i = from; i + pattern.length <= bytes.length; i++) {
+            boolean matches = true;
+            for (int j = 0; j < pattern.length && matches; j++) {
+                matches = bytes[i + j] == pattern[j];
+            }
+            if (matches) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void shouldMatchByteAtATimeChecksumOverRandomInput() {
+        final Random random = new Random(42);
+        final byte[] bytes = new byte[4096];
+        random.nextBytes(bytes);
+
+        for (int i = 0; i < 1000; i++) {
+            final int from = random.nextInt(64);
+            final int limit = from + random.nextInt(bytes.length - from);
+            int expected = 0;
+            for (int pos = from; pos < limit; pos++) {
+                expected += bytes[pos] & 0xFF;
+            }
+
+            assertThat(FixMessageScanner.checksum(bytes, from, limit), is(expected % 256));
+        }
+    }
+}
@@ -16,6 +16,9 @@
 
 package com.lmax.nanofix.incoming;
 
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 
@@ -91,4 +94,72 @@ public class FixMessageTest {
 
     }
 
+    @Test
+    public void shouldReturnValuesOfRepeatedTagInOrder() {
+        final Multimap<Integer, String> multimap = ArrayListMultimap.create();
+        multimap.put(1, "firstKey");
+        multimap.put(2, "secondKey");
+        multimap.put(2, "anotherSecondKey");
+
+        final FixMessage fixMessage = new FixMessage(multimap);
+        Assert.assertThat(fixMessage.getFirstValue(2), is("secondKey"));
+        Assert.assertThat(fixMessage.getValues(2), is(Arrays.asList("secondKey", "anotherSecondKey")));
+        Assert.assertThat(fixMessage.getValues(3).isEmpty(), is(true));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldThrowWhenGettingFirstValueOfMissingTag() {
+        new FixMessage(ArrayListMultimap.<Integer, String>create()).getFirstValue(23);
+    }
+
+    @Test
+    public void shouldReplaceAllOccurrencesOfTagInPlace() {
+        final Multimap<Integer, String> multimap = ArrayListMultimap.create();
+        multimap.put(1, "firstKey");
+        multimap.put(2, "secondKey");
+        multimap.put(2, "anotherSecondKey");
+        multimap.put(3, "thirdKey");
+
+        final FixMessage fixMessage = new FixMessage(multimap);
+        fixMessage.replace(2, "replaced");
+        fixMessage.replace(4, "added");
+
+        Assert.assertThat(fixMessage.getValues(2), is(Arrays.asList("replaced")));
+        Assert.assertThat(fixMessage.toHumanString(), is("1=firstKey|2=replaced|3=thirdKey|4=added|"));
+    }
+
+    @Test
+    public void shouldIndexMessagesLargerThanInitialCapacity() {
+        final FixMessage fixMessage = new FixMessage(1);
+        for (int tag = 1; tag <= 500; tag++) {
+            fixMessage.add(tag * 7, Integer.toString(tag));
+            fixMessage.add(tag * 7, "repeat" + tag);
+        }
+
+        for (int tag = 1; tag <= 500; tag++) {
+            Assert.assertThat(fixMessage.getValues(tag * 7), is(Arrays.asList(Integer.toString(tag), "repeat" + tag)));
+        }
+        Assert.assertThat(fixMessage.hasValue(8), is(false));
+    }
+
+    @Test
+    public void shouldDecodeDecimalValue() {
+        final FixMessage fixMessage = new FixMessage(2);
+        fixMessage.add(44, "-1.46909");
+        fixMessage.add(38, "250");
+
+        final FixDecimal decimal = new FixDecimal();
+        Assert.assertThat(fixMessage.getDecimal(44, decimal).getMantissa(), is(-146909L));
+        Assert.assertThat(decimal.getScale(), is(5));
+        Assert.assertThat(fixMessage.getDecimal(38, decimal).getMantissa(), is(250L));
+        Assert.assertThat(decimal.getScale(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDecimalValueWithTwoDecimalPoints() {
+        final FixMessage fixMessage = new FixMessage(1);
+        fixMessage.add(44, "1.2.3");
+
+        fixMessage.getDecimal(44, new FixDecimal());
+    }
 }
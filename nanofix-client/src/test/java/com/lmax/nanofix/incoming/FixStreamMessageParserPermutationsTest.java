@@ -1,6 +1,7 @@
 package com.lmax.nanofix.incoming;
 
 import com.google.common.primitives.Bytes;
+import com.lmax.nanofix.transport.ConnectionObserver;
 
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
@@ -8,6 +9,7 @@ import org.hamcrest.TypeSafeMatcher;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -24,6 +26,7 @@ import static org.junit.Assert.assertThat;
 public class FixStreamMessageParserPermutationsTest {
 
     private static final int MAX_MESSAGE_SIZE = 2048;
+    private static final int IN_PLACE_BUFFER_SIZE = 320;
 
     private static final byte[] MESSAGE_1 = FixMessageUtil.convertFixControlCharacters(
             "8=FIX.4.2|9=208|35=X|49=LMXBL|56=user|34=52|52=19700101-00:00:00.000|262=123456|268=2|279=1|269=0|55=XYZ|48=349857|22=8|207=LMAX|270=0.00009|271=55.9|290=2|279=1|269=1|" +
@@ -59,6 +62,28 @@ public class FixStreamMessageParserPermutationsTest {
         }
     }
 
+    @Test
+    public void parseAllMessagesWithRandomSegmentLengthsUsingBodyLengthFraming() {
+        final ByteBuffer bb = ByteBuffer.wrap(ALL_MESSAGE_BYTES);
+
+        final int iterations = 1000;
+
+        for (int i = 0; i < iterations; i++) {
+            performIteration(bb, ALL_MESSAGES, new RandomBytesConsumer(1, 32), FramingMode.BODY_LENGTH);
+        }
+    }
+
+    @Test
+    public void parseAllMessagesVerifyingIntegrityWithRandomSegmentLengths() {
+        final ByteBuffer bb = ByteBuffer.wrap(ALL_MESSAGE_BYTES);
+
+        final int iterations = 1000;
+
+        for (int i = 0; i < iterations; i++) {
+            performIteration(bb, ALL_MESSAGES, new RandomBytesConsumer(1, 32), FramingMode.SCAN, true);
+        }
+    }
+
     @Test
     public void parseMessagesOneByteAtATime() {
         final ByteBuffer bb = ByteBuffer.wrap(ALL_MESSAGE_BYTES);
@@ -84,6 +109,52 @@ public class FixStreamMessageParserPermutationsTest {
         }
     }
 
+    @Test
+    public void parseAllMessagesReassembledInPlaceWithRandomReadLengths() {
+        final int iterations = 1000;
+
+        for (int i = 0; i < iterations; i++) {
+            performInPlaceIteration(ALL_MESSAGE_BYTES, ALL_MESSAGES, new RandomBytesConsumer(1, 64), FramingMode.SCAN);
+        }
+    }
+
+    @Test
+    public void parseAllMessagesReassembledInPlaceWithRandomReadLengthsUsingBodyLengthFraming() {
+        final int iterations = 1000;
+
+        for (int i = 0; i < iterations; i++) {
+            performInPlaceIteration(ALL_MESSAGE_BYTES, ALL_MESSAGES, new RandomBytesConsumer(1, 64), FramingMode.BODY_LENGTH);
+        }
+    }
+
+    @Test
+    public void parseMessagesReassembledInPlaceOneByteAtATime() {
+        performInPlaceIteration(ALL_MESSAGE_BYTES, ALL_MESSAGES, new RandomBytesConsumer(1, 1), FramingMode.SCAN);
+    }
+
+    @Test
+    public void parseAllMessagesReassembledInPlaceVerifyingIntegrityWithRandomReadLengths() {
+        final int iterations = 1000;
+
+        for (int i = 0; i < iterations; i++) {
+            performInPlaceIteration(ALL_MESSAGE_BYTES, ALL_MESSAGES, new RandomBytesConsumer(1, 64), FramingMode.SCAN, true);
+            performInPlaceIteration(ALL_MESSAGE_BYTES, ALL_MESSAGES, new RandomBytesConsumer(1, 64), FramingMode.BODY_LENGTH, true);
+        }
+        performInPlaceIteration(ALL_MESSAGE_BYTES, ALL_MESSAGES, new RandomBytesConsumer(1, 1), FramingMode.SCAN, true);
+    }
+
+    @Test
+    public void parseMessagesReassembledInPlaceWithJunkBetweenMessages() {
+        final byte[] junk = FixMessageUtil.convertFixControlCharacters("junk|8=FI|10=|");
+        final byte[] msgBytes = Bytes.concat(MESSAGE_1, junk, MESSAGE_2, junk, MESSAGE_5);
+
+        final int iterations = 1000;
+
+        for (int i = 0; i < iterations; i++) {
+            performInPlaceIteration(msgBytes, asList(MESSAGE_1, MESSAGE_2, MESSAGE_5), new RandomBytesConsumer(1, 64), FramingMode.SCAN);
+        }
+    }
+
     @Test
     public void messageBoundaryConditions() {
         final byte[] msgBytes = Bytes.concat(MESSAGE_1, MESSAGE_2, MESSAGE_3);
@@ -127,7 +198,20 @@ public class FixStreamMessageParserPermutationsTest {
 
     @SuppressWarnings("checkstyle:regexpsinglelinejava")
     private void performIteration(final ByteBuffer bb, final List<byte[]> expectedMessages, final BytesToConsumeCalculator bytesConsumer) {
+        performIteration(bb, expectedMessages, bytesConsumer, FramingMode.SCAN);
+    }
+
+    @SuppressWarnings("checkstyle:regexpsinglelinejava")
+    private void performIteration(final ByteBuffer bb, final List<byte[]> expectedMessages, final BytesToConsumeCalculator bytesConsumer,
+                                  final FramingMode framingMode) {
+        performIteration(bb, expectedMessages, bytesConsumer, framingMode, false);
+    }
+
+    @SuppressWarnings("checkstyle:regexpsinglelinejava")
+    private void performIteration(final ByteBuffer bb, final List<byte[]> expectedMessages, final BytesToConsumeCalculator bytesConsumer,
+                                  final FramingMode framingMode, final boolean verifyIntegrity) {
         final List<byte[]> messages = new ArrayList<>();
+        final List<Integer> checksums = new ArrayList<>();
         final List<Integer> offsetsUsedForIteration = new ArrayList<>();
 
         final MessageParserCallback callback = new MessageParserCallback() {
@@ -136,6 +220,12 @@ public class FixStreamMessageParserPermutationsTest {
                 messages.add(Arrays.copyOfRange(buffer, offset, offset + length));
             }
 
+            @Override
+            public void onMessage(byte[] buffer, int offset, int length, MessageIntegrity integrity) {
+                onMessage(buffer, offset, length);
+                checksums.add(integrity.getComputedChecksum());
+            }
+
             @Override
             public void onTruncatedMessage() {
             }
@@ -145,7 +235,7 @@ public class FixStreamMessageParserPermutationsTest {
             }
         };
 
-        final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE);
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE, framingMode, false, verifyIntegrity);
         parser.initialise(callback);
 
         try {
@@ -164,6 +254,9 @@ public class FixStreamMessageParserPermutationsTest {
 
             assertThat(messages.size(), is(expectedMessages.size()));
             assertThat(messages, containsAllItems(expectedMessages));
+            if (verifyIntegrity) {
+                assertThat(checksums, is(checksumsOf(messages)));
+            }
         } catch (AssertionError | RuntimeException e) {
             handleException(bb, offsetsUsedForIteration, e);
             throw e;
@@ -171,6 +264,94 @@ public class FixStreamMessageParserPermutationsTest {
         bb.clear();
     }
 
+    /**
+     * Feeds the bytes through a {@link ByteChannelReader} whose buffer is barely larger than the largest message, so split
+     * messages are regularly compacted to the start of the buffer before they complete.
+     */
+    private void performInPlaceIteration(final byte[] bytes, final List<byte[]> expectedMessages, final BytesToConsumeCalculator bytesConsumer,
+                                         final FramingMode framingMode) {
+        performInPlaceIteration(bytes, expectedMessages, bytesConsumer, framingMode, false);
+    }
+
+    private void performInPlaceIteration(final byte[] bytes, final List<byte[]> expectedMessages, final BytesToConsumeCalculator bytesConsumer,
+                                         final FramingMode framingMode, final boolean verifyIntegrity) {
+        final List<byte[]> messages = new ArrayList<>();
+        final List<Integer> checksums = new ArrayList<>();
+        final List<Integer> offsetsUsedForIteration = new ArrayList<>();
+
+        final MessageParserCallback callback = new MessageParserCallback() {
+            @Override
+            public void onMessage(byte[] buffer, int offset, int length) {
+                messages.add(Arrays.copyOfRange(buffer, offset, offset + length));
+            }
+
+            @Override
+            public void onMessage(byte[] buffer, int offset, int length, MessageIntegrity integrity) {
+                onMessage(buffer, offset, length);
+                checksums.add(integrity.getComputedChecksum());
+            }
+
+            @Override
+            public void onTruncatedMessage() {
+            }
+
+            @Override
+            public void onParseError(String error) {
+            }
+        };
+
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(IN_PLACE_BUFFER_SIZE, framingMode, true, verifyIntegrity);
+        parser.initialise(callback);
+        final ByteChannelReader reader = new ByteChannelReader(parser, () -> { }, new NoOpConnectionObserver(), IN_PLACE_BUFFER_SIZE, false);
+
+        final ReadableByteChannel channel = new ReadableByteChannel() {
+            private int position;
+
+            @Override
+            public int read(final ByteBuffer dst) {
+                if (position == bytes.length) {
+                    return -1;
+                }
+                final int bytesToRead = Math.min(Math.min(bytesConsumer.getBytesToConsume(position), bytes.length - position), dst.remaining());
+                dst.put(bytes, position, bytesToRead);
+                position += bytesToRead;
+                offsetsUsedForIteration.add(position);
+                return bytesToRead;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try {
+            reader.blockingStart(channel);
+
+            assertThat(messages.size(), is(expectedMessages.size()));
+            assertThat(messages, containsAllItems(expectedMessages));
+            if (verifyIntegrity) {
+                assertThat(checksums, is(checksumsOf(messages)));
+            }
+        } catch (AssertionError | RuntimeException e) {
+            handleException(ByteBuffer.wrap(bytes), offsetsUsedForIteration, e);
+            throw e;
+        }
+    }
+
+    private static List<Integer> checksumsOf(final List<byte[]> messages) {
+        final List<Integer> checksums = new ArrayList<>();
+        for (final byte[] message : messages) {
+            final int checksumStart = FixMessageUtil.convertFixControlCharacters(message).lastIndexOf("|10=");
+            checksums.add(FixMessageScanner.checksum(message, 0, checksumStart + 1));
+        }
+        return checksums;
+    }
+
     private void handleException(ByteBuffer bb, List<Integer> offsetsUsedForIteration, Throwable e) {
         System.out.println("Failed! Message segments used for test: ");
         int start = 0;
@@ -210,6 +391,16 @@ public class FixStreamMessageParserPermutationsTest {
         };
     }
 
+    private static class NoOpConnectionObserver implements ConnectionObserver {
+        @Override
+        public void connectionEstablished() {
+        }
+
+        @Override
+        public void connectionClosed() {
+        }
+    }
+
     private interface BytesToConsumeCalculator {
         int getBytesToConsume(int fromPosition);
     }
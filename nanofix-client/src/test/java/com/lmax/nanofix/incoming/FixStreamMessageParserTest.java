@@ -515,6 +515,351 @@ public final class FixStreamMessageParserTest {
         assertArrayEquals(expectedResult, result);
     }
 
+    @Test
+    public void shouldParseFragmentedMessagesFromDirectBuffers() {
+        final byte[] newOrderSingle = FixMessageUtil.getNewOrderSingle();
+        final byte[] executionReport = FixMessageUtil.getExecutionReport();
+        final byte[] stream = new byte[newOrderSingle.length + executionReport.length];
+        System.arraycopy(newOrderSingle, 0, stream, 0, newOrderSingle.length);
+        System.arraycopy(executionReport, 0, stream, newOrderSingle.length, executionReport.length);
+
+        final List<byte[]> messages = new ArrayList<>();
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE);
+        parser.initialise(createMessageParserCallback(new MyMessageParserCallbackTestFactory(messages)));
+
+        final ByteBuffer segment = ByteBuffer.allocateDirect(100);
+        for (int offset = 0; offset < stream.length; offset += segment.capacity()) {
+            segment.clear();
+            segment.put(stream, offset, Math.min(segment.capacity(), stream.length - offset));
+            segment.flip();
+            parser.parse(segment);
+        }
+
+        assertThat(messages.size(), is(2));
+        assertArrayEquals(newOrderSingle, messages.get(0));
+        assertArrayEquals(executionReport, messages.get(1));
+    }
+
+    @Test
+    public void shouldParseMessageFromSliceOfHeapBuffer() {
+        final byte[] newOrderSingle = FixMessageUtil.getNewOrderSingle();
+        final ByteBuffer backingBuffer = ByteBuffer.allocate(newOrderSingle.length + 10);
+        backingBuffer.position(10);
+        final ByteBuffer segment = backingBuffer.slice();
+        segment.put(newOrderSingle).flip();
+
+        final List<byte[]> messages = new ArrayList<>();
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE);
+        parser.initialise(createMessageParserCallback(new MyMessageParserCallbackTestFactory(messages)));
+
+        parser.parse(segment);
+
+        assertThat(messages.size(), is(1));
+        assertArrayEquals(newOrderSingle, messages.get(0));
+    }
+
+    @Test
+    public void shouldFrameMessageUsingBodyLengthWhenValueContainsChecksumPattern() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=29|35=A|95=8|96=ab|10=xy|108=30|10=162|");
+        final List<byte[]> messages = parseWithBodyLengthFraming(message);
+
+        assertThat(messages.size(), is(1));
+        assertArrayEquals(message, messages.get(0));
+    }
+
+    @Test
+    public void shouldFallBackToScanningWhenBodyLengthIsTooShort() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=5|35=A|108=30|10=162|");
+        final List<byte[]> messages = parseWithBodyLengthFraming(message);
+
+        assertThat(messages.size(), is(1));
+        assertArrayEquals(message, messages.get(0));
+    }
+
+    @Test
+    public void shouldFallBackToScanningWhenBodyLengthIsTooLong() {
+        final byte[] first = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=500|35=A|108=30|10=162|");
+        final byte[] second = FixMessageUtil.getLogonMessage();
+        // the declared length can only be found to be wrong once the bytes it covers have arrived
+        final int followingMessages = 500 / second.length + 1;
+        final byte[] stream = new byte[first.length + followingMessages * second.length];
+        System.arraycopy(first, 0, stream, 0, first.length);
+        for (int i = 0; i < followingMessages; i++) {
+            System.arraycopy(second, 0, stream, first.length + i * second.length, second.length);
+        }
+
+        final List<byte[]> messages = parseWithBodyLengthFraming(stream);
+
+        assertThat(messages.size(), is(1 + followingMessages));
+        assertArrayEquals(first, messages.get(0));
+        assertArrayEquals(second, messages.get(1));
+    }
+
+    @Test
+    public void shouldFallBackToScanningWhenBodyLengthIsBeyondMaxMessageSize() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=99999|35=A|108=30|10=162|");
+        final List<byte[]> messages = parseWithBodyLengthFraming(message);
+
+        assertThat(messages.size(), is(1));
+        assertArrayEquals(message, messages.get(0));
+    }
+
+    @Test
+    public void shouldFrameMessageSplitAnywhereUsingBodyLengthWhenValueContainsChecksumPattern() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=29|35=A|95=8|96=ab|10=xy|108=30|10=162|");
+        for (int split = 1; split < message.length; split++) {
+            final List<byte[]> messages = new ArrayList<>();
+            final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE, FramingMode.BODY_LENGTH);
+            parser.initialise(createMessageParserCallback(new MyMessageParserCallbackTestFactory(messages)));
+
+            parser.parse(ByteBuffer.wrap(message, 0, split));
+            parser.parse(ByteBuffer.wrap(Arrays.copyOfRange(message, split, message.length)));
+
+            assertThat("split at " + split, messages.size(), is(1));
+            assertArrayEquals("split at " + split, message, messages.get(0));
+        }
+    }
+
+    @Test
+    public void shouldFrameMessageSplitAnywhereUsingBodyLengthWhenReassemblingInPlace() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=29|35=A|95=8|96=ab|10=xy|108=30|10=162|");
+        for (int split = 1; split < message.length; split++) {
+            final List<byte[]> messages = new ArrayList<>();
+            final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE, FramingMode.BODY_LENGTH, true);
+            parser.initialise(createMessageParserCallback(new MyMessageParserCallbackTestFactory(messages)));
+            final ByteBuffer buffer = ByteBuffer.wrap(message, 0, split);
+
+            parser.parse(buffer);
+            assertThat("split at " + split, messages.size(), is(0));
+            buffer.limit(message.length);
+            parser.parse(buffer);
+
+            assertThat("split at " + split, messages.size(), is(1));
+            assertArrayEquals("split at " + split, message, messages.get(0));
+        }
+    }
+
+    @Test
+    public void shouldFallBackToScanningWhenBodyLengthIsNotANumber() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=1x|35=A|108=30|10=162|");
+        final List<byte[]> messages = parseWithBodyLengthFraming(message);
+
+        assertThat(messages.size(), is(1));
+        assertArrayEquals(message, messages.get(0));
+    }
+
+    @Test
+    public void shouldLeaveIncompleteMessageUnconsumedWhenReassemblingInPlace() {
+        final byte[] newOrderSingle = FixMessageUtil.getNewOrderSingle();
+        final byte[] executionReport = FixMessageUtil.getExecutionReport();
+        final ByteBuffer buffer = ByteBuffer.allocate(newOrderSingle.length + executionReport.length);
+        buffer.put(newOrderSingle).put(executionReport, 0, 20).flip();
+
+        final List<byte[]> messages = new ArrayList<>();
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE, FramingMode.SCAN, true);
+        parser.initialise(createMessageParserCallback(new MyMessageParserCallbackTestFactory(messages)));
+
+        parser.parse(buffer);
+
+        assertThat(messages.size(), is(1));
+        assertArrayEquals(newOrderSingle, messages.get(0));
+        assertThat(buffer.position(), is(newOrderSingle.length));
+
+        buffer.limit(buffer.capacity()).position(newOrderSingle.length + 20);
+        buffer.put(executionReport, 20, executionReport.length - 20).flip().position(newOrderSingle.length);
+        parser.parse(buffer);
+
+        assertThat(messages.size(), is(2));
+        assertArrayEquals(executionReport, messages.get(1));
+        assertThat(buffer.position(), is(buffer.limit()));
+    }
+
+    @Test
+    public void shouldKeepPossibleMessageStartAfterJunkWhenReassemblingInPlace() {
+        final byte[] junk = FixMessageUtil.convertFixControlCharacters("junk|8=FI");
+        final ByteBuffer buffer = ByteBuffer.wrap(junk);
+
+        final List<byte[]> messages = new ArrayList<>();
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE, FramingMode.SCAN, true);
+        parser.initialise(createMessageParserCallback(new MyMessageParserCallbackTestFactory(messages)));
+
+        parser.parse(buffer);
+
+        assertThat(messages.size(), is(0));
+        assertThat(buffer.position(), is(junk.length - 4));
+    }
+
+    @Test
+    public void shouldReportJunkSkippedBetweenMessages() {
+        final byte[] newOrderSingle = FixMessageUtil.getNewOrderSingle();
+        final byte[] junk = FixMessageUtil.convertFixControlCharacters("junk|");
+        final byte[] trailingJunk = FixMessageUtil.convertFixControlCharacters("junk|8=FI");
+
+        for (final boolean reassembleInPlace : new boolean[]{true, false}) {
+            final ByteBuffer buffer = ByteBuffer.allocate(junk.length + newOrderSingle.length + trailingJunk.length);
+            buffer.put(junk).put(newOrderSingle).put(trailingJunk).flip();
+            final List<Integer> skipped = new ArrayList<>();
+            final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE, FramingMode.SCAN, reassembleInPlace);
+            parser.initialise(new MessageParserCallback() {
+                @Override
+                public void onMessage(final byte[] buffer, final int offset, final int length) {
+                }
+
+                @Override
+                public void onTruncatedMessage() {
+                }
+
+                @Override
+                public void onBytesSkipped(final int length) {
+                    skipped.add(length);
+                }
+
+                @Override
+                public void onParseError(final String error) {
+                }
+            });
+
+            parser.parse(buffer);
+
+            assertThat(skipped, is(reassembleInPlace ? Arrays.asList(junk.length, trailingJunk.length - 4) : Arrays.asList(junk.length)));
+        }
+    }
+
+    @Test
+    public void shouldTruncateIncompleteMessageOnceItReachesMaxMessageSizeWhenReassemblingInPlace() {
+        final byte[] newOrderSingle = FixMessageUtil.getNewOrderSingle();
+        final int maxMessageSize = newOrderSingle.length - 10;
+        final ByteBuffer buffer = ByteBuffer.wrap(newOrderSingle, 0, newOrderSingle.length - 5);
+
+        final List<byte[]> messages = new ArrayList<>();
+        final int[] truncatedMessages = new int[1];
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(maxMessageSize, FramingMode.SCAN, true);
+        parser.initialise(new MessageParserCallback() {
+            @Override
+            public void onMessage(final byte[] buffer, final int offset, final int length) {
+                messages.add(Arrays.copyOfRange(buffer, offset, offset + length));
+            }
+
+            @Override
+            public void onTruncatedMessage() {
+                truncatedMessages[0]++;
+            }
+
+            @Override
+            public void onParseError(final String error) {
+            }
+        });
+
+        parser.parse(buffer);
+
+        assertThat(truncatedMessages[0], is(1));
+        assertThat(messages.size(), is(1));
+        assertArrayEquals(Arrays.copyOf(newOrderSingle, maxMessageSize), messages.get(0));
+    }
+
+    @Test
+    public void shouldReportValidBodyLengthAndChecksum() {
+        final MessageIntegrity integrity = parseForIntegrity("8=FIX.4.4|9=11|35=0|34=11|10=215|");
+
+        assertThat(integrity.isValid(), is(true));
+        assertThat(integrity.getDeclaredBodyLength(), is(11));
+        assertThat(integrity.getComputedBodyLength(), is(11));
+        assertThat(integrity.getDeclaredChecksum(), is(215));
+        assertThat(integrity.getComputedChecksum(), is(215));
+    }
+
+    @Test
+    public void shouldReportIncorrectChecksum() {
+        final MessageIntegrity integrity = parseForIntegrity("8=FIX.4.4|9=11|35=0|34=11|10=214|");
+
+        assertThat(integrity.isBodyLengthValid(), is(true));
+        assertThat(integrity.isChecksumValid(), is(false));
+        assertThat(integrity.getDeclaredChecksum(), is(214));
+        assertThat(integrity.getComputedChecksum(), is(215));
+    }
+
+    @Test
+    public void shouldReportIncorrectBodyLength() {
+        final MessageIntegrity integrity = parseForIntegrity("8=FIX.4.4|9=12|35=0|34=11|10=216|");
+
+        assertThat(integrity.isBodyLengthValid(), is(false));
+        assertThat(integrity.isChecksumValid(), is(true));
+        assertThat(integrity.getDeclaredBodyLength(), is(12));
+        assertThat(integrity.getComputedBodyLength(), is(11));
+    }
+
+    @Test
+    public void shouldReportUnknownValuesForMalformedChecksumAndBodyLength() {
+        final MessageIntegrity integrity = parseForIntegrity("8=FIX.4.4|9=1x|35=0|34=11|10=2a4|");
+
+        assertThat(integrity.isValid(), is(false));
+        assertThat(integrity.getDeclaredBodyLength(), is(MessageIntegrity.UNKNOWN));
+        assertThat(integrity.getDeclaredChecksum(), is(MessageIntegrity.UNKNOWN));
+    }
+
+    @Test
+    public void shouldNotVerifyIntegrityUnlessAskedTo() {
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=11|35=0|34=11|10=215|");
+        final List<byte[]> messages = new ArrayList<>();
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE, FramingMode.SCAN, true);
+        parser.initialise(new MessageParserCallback() {
+            @Override
+            public void onMessage(final byte[] buffer, final int offset, final int length) {
+                messages.add(Arrays.copyOfRange(buffer, offset, offset + length));
+            }
+
+            @Override
+            public void onMessage(final byte[] buffer, final int offset, final int length, final MessageIntegrity integrity) {
+                throw new AssertionError("Integrity was verified");
+            }
+
+            @Override
+            public void onTruncatedMessage() {
+            }
+
+            @Override
+            public void onParseError(final String error) {
+            }
+        });
+
+        parser.parse(ByteBuffer.wrap(message));
+
+        assertThat(messages.size(), is(1));
+    }
+
+    private static MessageIntegrity parseForIntegrity(final String message) {
+        final MessageIntegrity result = new MessageIntegrity();
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE, FramingMode.SCAN, false, true);
+        parser.initialise(new MessageParserCallback() {
+            @Override
+            public void onMessage(final byte[] buffer, final int offset, final int length) {
+            }
+
+            @Override
+            public void onMessage(final byte[] buffer, final int offset, final int length, final MessageIntegrity integrity) {
+                result.copyFrom(integrity);
+            }
+
+            @Override
+            public void onTruncatedMessage() {
+            }
+
+            @Override
+            public void onParseError(final String error) {
+            }
+        });
+        parser.parse(ByteBuffer.wrap(FixMessageUtil.convertFixControlCharacters(message)));
+        return result;
+    }
+
+    private static List<byte[]> parseWithBodyLengthFraming(final byte[] stream) {
+        final List<byte[]> messages = new ArrayList<>();
+        final ByteStreamMessageParser parser = new FixStreamMessageParser(MAX_MESSAGE_SIZE, FramingMode.BODY_LENGTH);
+        parser.initialise(createMessageParserCallback(new MyMessageParserCallbackTestFactory(messages)));
+        parser.parse(ByteBuffer.wrap(stream));
+        return messages;
+    }
+
     private static MessageParserCallback createMessageParserCallback(final MessageParserCallbackTestFactory impl) {
         return new MessageParserCallback() {
             @Override
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.incoming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TagFilteringFixMessageFactoryTest {
+
+    @Test
+    public void shouldStopParsingOnceAllRequestedTagsHaveBeenSeen() {
+        final List<FixMessage> messages = new ArrayList<>();
+        final CountingTagHandler countingTagHandler = new CountingTagHandler(new TagFilteringFixMessageFactory(messages::add, 34, 35));
+        final byte[] logon = FixMessageUtil.getLogonMessage();
+
+        new FixTagParser(countingTagHandler).parse(logon, 0, logon.length, true);
+
+        assertThat(countingTagHandler.tagCount, is(4));
+        assertThat(messages.size(), is(1));
+        assertThat(messages.get(0).size(), is(2));
+        assertThat(messages.get(0).getFirstValue(35), is("A"));
+        assertThat(messages.get(0).getFirstValue(34), is("1"));
+        assertThat(messages.get(0).hasValue(49), is(false));
+    }
+
+    @Test
+    public void shouldPublishMessageMissingSomeOfTheRequestedTags() {
+        final List<FixMessage> messages = new ArrayList<>();
+        final byte[] logon = FixMessageUtil.getLogonMessage();
+
+        new FixTagParser(new TagFilteringFixMessageFactory(messages::add, 108, 11)).parse(logon, 0, logon.length, true);
+
+        assertThat(messages.size(), is(1));
+        assertThat(messages.get(0).getFirstValue(108), is("2"));
+        assertThat(messages.get(0).hasValue(11), is(false));
+    }
+
+    @Test
+    public void shouldKeepOnlyTheFirstOccurrenceOfARequestedTag() {
+        final List<FixMessage> messages = new ArrayList<>();
+        final byte[] message = FixMessageUtil.convertFixControlCharacters("8=FIX.4.4|9=21|35=W|269=0|269=1|10=000|");
+
+        new FixTagParser(new TagFilteringFixMessageFactory(messages::add, 269, 11)).parse(message, 0, message.length, true);
+
+        assertThat(messages.get(0).getValues(269).size(), is(1));
+        assertThat(messages.get(0).getFirstValue(269), is("0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSubscriptionWithoutTags() {
+        new TagFilteringFixMessageFactory(fixMessage -> { });
+    }
+
+    private static final class CountingTagHandler implements FixTagHandler {
+        private final FixTagHandler delegate;
+        private int tagCount;
+
+        CountingTagHandler(final FixTagHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void messageStart() {
+            delegate.messageStart();
+        }
+
+        @Override
+        public void onTag(final int tagIdentity, final byte[] message, final int tagValueOffset, final int tagValueLength) {
+            tagCount++;
+            delegate.onTag(tagIdentity, message, tagValueOffset, tagValueLength);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public void messageEnd() {
+            delegate.messageEnd();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.latency;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CorrelationIdMapTest {
+    private final CorrelationIdMap map = new CorrelationIdMap(4, 8);
+
+    @Test
+    public void shouldRemoveIdsWithTheirValues() {
+        put("order-1", 11);
+        put("order-2", 12);
+
+        assertThat(remove("order-2"), is(12L));
+        assertThat(remove("order-1"), is(11L));
+        assertThat(remove("order-1"), is(CorrelationIdMap.MISSING));
+        assertThat(map.size(), is(0));
+    }
+
+    @Test
+    public void shouldReplaceValueOfIdAlreadyHeld() {
+        put("order-1", 11);
+        put("order-1", 21);
+
+        assertThat(map.size(), is(1));
+        assertThat(remove("order-1"), is(21L));
+    }
+
+    @Test
+    public void shouldRefuseIdsWhenFullOrTooLong() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(put("id-" + i, i), is(true));
+        }
+
+        assertThat(put("id-4", 4), is(false));
+        assertThat(remove("id-2"), is(2L));
+        assertThat(put("id-4", 4), is(true));
+        assertThat(put("too-long-id", 5), is(false));
+        assertThat(put("", 6), is(false));
+    }
+
+    @Test
+    public void shouldFindEveryIdAfterRemovalsFromTheMiddleOfARun() {
+        final CorrelationIdMap large = new CorrelationIdMap(1000, 8);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 1000; i++) {
+                final byte[] id = ("id" + i).getBytes(StandardCharsets.US_ASCII);
+                assertThat(large.put(id, 0, id.length, i), is(true));
+            }
+            for (int i = 0; i < 1000; i += 2) {
+                final byte[] id = ("id" + i).getBytes(StandardCharsets.US_ASCII);
+                assertThat(large.remove(id, 0, id.length), is((long)i));
+            }
+            for (int i = 1; i < 1000; i += 2) {
+                final byte[] id = ("id" + i).getBytes(StandardCharsets.US_ASCII);
+                assertThat(large.remove(id, 0, id.length), is((long)i));
+            }
+            assertThat(large.size(), is(0));
+        }
+    }
+
+    private boolean put(final String id, final long value) {
+        final byte[] bytes = ("xx" + id).getBytes(StandardCharsets.US_ASCII);
+        return map.put(bytes, 2, bytes.length - 2, value);
+    }
+
+    private long remove(final String id) {
+        final byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+        return map.remove(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.latency;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.incoming.FixMessageFlyweight;
+import com.lmax.nanofix.outgoing.FixMessage;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LatencyProbeTest {
+    private final LatencyProbe probe = new LatencyProbe();
+    private final FixMessageFlyweight flyweight = new FixMessageFlyweight();
+
+    @Test
+    public void shouldRecordLatencyOfFirstReplyCarryingTheClOrdID() {
+        written(order("order-1"));
+
+        received(executionReport("order-1"));
+        received(executionReport("order-1"));
+
+        assertThat(probe.getMessagesStamped(), is(1L));
+        assertThat(probe.getMessagesMatched(), is(1L));
+        assertThat(probe.getMessagesUnmatched(), is(1L));
+        assertThat(probe.getOutstanding(), is(0));
+        assertThat(probe.getHistogram().getTotalCount(), is(1L));
+    }
+
+    @Test
+    public void shouldFindIdsInWritesThatSplitMessagesAnywhere() {
+        final ByteBuffer stream = ByteBuffer.allocate(512);
+        stream.put(order("order-1").buffer()).put(order("order-22").buffer()).put(order("order-333").buffer()).flip();
+        for (int offset = 0; offset < stream.limit(); offset += 7) {
+            probe.onBytesWritten(stream, offset, Math.min(7, stream.limit() - offset));
+        }
+
+        assertThat(probe.getMessagesStamped(), is(3L));
+        received(executionReport("order-22"));
+        received(executionReport("order-333"));
+        received(executionReport("order-1"));
+        assertThat(probe.getMessagesMatched(), is(3L));
+    }
+
+    @Test
+    public void shouldCorrelateOnConfiguredTagOnly() {
+        final LatencyProbe testRequests = new LatencyProbe(112);
+        final ByteBuffer buffer = new FixMessageBuilder().messageType(MsgType.TEST_REQUEST).append(1120, "other").testReqId("ping").build().buffer();
+        testRequests.onBytesWritten(buffer, 0, buffer.limit());
+
+        final byte[] heartbeat = new FixMessageBuilder().append(35, "0").testReqId("ping").build().toFixString().getBytes(StandardCharsets.US_ASCII);
+        testRequests.onFixMessage(flyweight.wrap(heartbeat, 0, heartbeat.length));
+
+        assertThat(testRequests.getMessagesStamped(), is(1L));
+        assertThat(testRequests.getMessagesMatched(), is(1L));
+    }
+
+    @Test
+    public void shouldExportPercentilesAndResetThem() {
+        written(order("order-1"));
+        received(executionReport("order-1"));
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        probe.outputPercentileDistribution(new PrintStream(output, true));
+        assertThat(output.toString(), containsString("Total count = 1"));
+
+        probe.reset();
+        assertThat(probe.getHistogram().getTotalCount(), is(0L));
+        assertThat(probe.getMessagesMatched(), is(0L));
+    }
+
+    private void written(final FixMessage message) {
+        final ByteBuffer buffer = message.buffer();
+        probe.onBytesWritten(buffer, buffer.position(), buffer.remaining());
+    }
+
+    private void received(final FixMessage message) {
+        final byte[] bytes = message.toFixString().getBytes(StandardCharsets.US_ASCII);
+        probe.onFixMessage(flyweight.wrap(bytes, 0, bytes.length));
+    }
+
+    private static FixMessage order(final String clOrdId) {
+        return new FixMessageBuilder().messageType(MsgType.NEW_ORDER_SINGLE).msgSeqNum(1).clOrdID(clOrdId).symbol("EUR/USD").price(146909, 5).build();
+    }
+
+    private static FixMessage executionReport(final String clOrdId) {
+        return new FixMessageBuilder().messageType(MsgType.EXECUTION_REPORT).msgSeqNum(2).clOrdID(clOrdId).append(150, "0").build();
+    }
+}
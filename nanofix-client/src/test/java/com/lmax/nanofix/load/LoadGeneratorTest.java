@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.load;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.nanofix.FixSession;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.latency.LatencyProbe;
+import com.lmax.nanofix.outgoing.FixMessageBuilder;
+import com.lmax.nanofix.outgoing.FixMessageTemplate;
+import com.lmax.nanofix.outgoing.OutboundMessageHandler;
+import com.lmax.nanofix.outgoing.OutboundSendQueue;
+import com.lmax.nanofix.outgoing.SendQueueFullPolicy;
+import com.lmax.nanofix.transport.ConnectionObserver;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LoadGeneratorTest {
+    private final CapturingChannel channel = new CapturingChannel();
+    private FixSession session;
+
+    @Before
+    public void setUp() {
+        final OutboundMessageHandler outboundMessageHandler = new OutboundMessageHandler(new NoOpConnectionObserver());
+        outboundMessageHandler.initialiseOutboundChannel(channel);
+        session = new FixSession(outboundMessageHandler);
+    }
+
+    @Test
+    public void shouldSendEveryScheduledMessageWithItsOwnSeqNumAndId() {
+        final LoadGenerator loadGenerator = new LoadGenerator(session, new RateSchedule().constant(2000, 50, TimeUnit.MILLISECONDS), order("1"), order("2"))
+                .firstMsgSeqNum(10)
+                .firstCorrelationId(500);
+
+        final LoadReport report = loadGenerator.run();
+
+        assertThat(report.getMessagesSent(), is(100L));
+        assertThat(report.getSendLatency().getTotalCount(), is(100L));
+        assertThat(report.getResponseLatency() == null, is(true));
+        assertThat(loadGenerator.getNextMsgSeqNum(), is(110L));
+        final String sent = channel.written.toString(StandardCharsets.US_ASCII);
+        assertThat(sent, containsString("\u000134=0000000010\u0001"));
+        assertThat(sent, containsString("\u000111=00000500\u000155=EURUSD\u000154=1\u0001"));
+        assertThat(sent, containsString("\u000134=0000000109\u0001"));
+        assertThat(sent, containsString("\u000111=00000599\u000155=EURUSD\u000154=2\u0001"));
+    }
+
+    @Test
+    public void shouldStampProbeWithIntendedSendTimes() {
+        final LatencyProbe latencyProbe = new LatencyProbe();
+        final LoadReport report = new LoadGenerator(session, new RateSchedule().constant(1000, 20, TimeUnit.MILLISECONDS), order("1"))
+                .latencyProbe(latencyProbe, 0, TimeUnit.MILLISECONDS)
+                .run();
+
+        assertThat(latencyProbe.getMessagesStamped(), is(20L));
+        assertThat(latencyProbe.getOutstanding(), is(20));
+        assertThat(report.getResponseLatency().getTotalCount(), is(0L));
+    }
+
+    @Test
+    public void shouldCountDroppedMessagesWithoutStampingThemOrUsingTheirSeqNums() {
+        final OutboundSendQueue sendQueue = new OutboundSendQueue(1024, SendQueueFullPolicy.DROP);
+        final OutboundMessageHandler unwrittenHandler = new OutboundMessageHandler(new NoOpConnectionObserver(), sendQueue, Executors.defaultThreadFactory());
+        unwrittenHandler.initialiseOutboundChannel(channel);
+        final LatencyProbe latencyProbe = new LatencyProbe();
+        final LoadGenerator loadGenerator = new LoadGenerator(new FixSession(unwrittenHandler), new RateSchedule().constant(1000, 50, TimeUnit.MILLISECONDS), order("1"))
+                .firstMsgSeqNum(1)
+                .latencyProbe(latencyProbe, 0, TimeUnit.MILLISECONDS);
+
+        final LoadReport report = loadGenerator.run();
+
+        assertThat(report.getMessagesDropped() > 0, is(true));
+        assertThat(report.getMessagesSent() + report.getMessagesDropped(), is(50L));
+        assertThat(sendQueue.getQueueDepth(), is(report.getMessagesSent()));
+        assertThat(latencyProbe.getOutstanding(), is((int)report.getMessagesSent()));
+        assertThat(loadGenerator.getNextMsgSeqNum(), is(report.getMessagesSent() + 1));
+    }
+
+    private static FixMessageTemplate order(final String side) {
+        return new FixMessageBuilder().messageType(MsgType.NEW_ORDER_SINGLE).slot(34, 10).slot(52, 21).slot(11, 8).symbol("EURUSD").append(54, side)
+                .buildTemplate();
+    }
+
+    private static final class NoOpConnectionObserver implements ConnectionObserver {
+        @Override
+        public void connectionEstablished() {
+        }
+
+        @Override
+        public void connectionClosed() {
+        }
+    }
+
+    private static final class CapturingChannel implements WritableByteChannel {
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+        @Override
+        public int write(final ByteBuffer src) {
+            final int length = src.remaining();
+            while (src.hasRemaining()) {
+                written.write(src.get());
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class LoadReportTest {
+
+    @Test
+    public void shouldAddUpMessagesAndMergeLatenciesWhenCombined() {
+        final LoadReport first = new LoadReport(10, 2, 2_000, histogram(100, 200), histogram(1_000));
+        final LoadReport second = new LoadReport(30, 1, 4_000, histogram(300), histogram(3_000, 5_000));
+
+        final LoadReport total = LoadReport.combine(Arrays.asList(first, second));
+
+        assertThat(total.getMessagesSent(), is(40L));
+        assertThat(total.getMessagesDropped(), is(3L));
+        assertThat(total.getElapsedNanos(), is(4_000L));
+        assertThat(total.getSendLatency().getTotalCount(), is(3L));
+        assertThat(total.getSendLatency().getMaxValue(), is(300L));
+        assertThat(total.getResponseLatency().getTotalCount(), is(3L));
+        assertThat(first.getSendLatency().getTotalCount(), is(2L));
+    }
+
+    @Test
+    public void shouldOnlyCombineResponseLatencyWhenEveryRunMeasuredIt() {
+        final LoadReport measured = new LoadReport(1, 0, 1_000, histogram(100), histogram(1_000));
+        final LoadReport unmeasured = new LoadReport(1, 0, 1_000, histogram(100), null);
+
+        assertThat(LoadReport.combine(Arrays.asList(measured, unmeasured)).getResponseLatency(), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCombiningNoReports() {
+        LoadReport.combine(Arrays.asList());
+    }
+
+    @Test
+    public void shouldPrintEverySessionOfAnAggregateReport() {
+        final AggregateLoadReport report = new AggregateLoadReport(Arrays.asList("NANOFIX0", "NANOFIX1"),
+                                                                   Arrays.asList(new LoadReport(10, 0, 1_000_000_000, histogram(2_000), null),
+                                                                                 new LoadReport(20, 0, 1_000_000_000, histogram(4_000), null)));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        report.print(new PrintStream(out, true));
+
+        assertThat(report.getTotal().getMessagesSent(), is(30L));
+        final String printed = out.toString(StandardCharsets.UTF_8);
+        assertThat(printed, containsString("Sent 30 messages"));
+        assertThat(printed, containsString("NANOFIX0: sent 10"));
+        assertThat(printed, containsString("NANOFIX1: sent 20"));
+    }
+
+    private static Histogram histogram(final long... values) {
+        final Histogram histogram = new Histogram(1_000_000_000L, 3);
+        for (final long value : values) {
+            histogram.recordValue(value);
+        }
+        return histogram;
+    }
+}
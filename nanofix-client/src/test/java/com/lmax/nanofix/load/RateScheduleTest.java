@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.load;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RateScheduleTest {
+
+    @Test
+    public void shouldSpaceMessagesEvenlyAtConstantRate() {
+        final RateSchedule schedule = new RateSchedule().constant(1000, 1, TimeUnit.SECONDS);
+
+        assertThat(schedule.getMessageCount(), is(1000L));
+        assertThat(schedule.intendedSendTimeNanos(0), is(0L));
+        assertThat(schedule.intendedSendTimeNanos(1), is(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertThat(schedule.intendedSendTimeNanos(999), is(TimeUnit.MILLISECONDS.toNanos(999)));
+    }
+
+    @Test
+    public void shouldSendHalfAsManyMessagesRampingUpFromZero() {
+        final RateSchedule schedule = new RateSchedule().ramp(0, 2000, 1, TimeUnit.SECONDS);
+
+        assertThat(schedule.getMessageCount(), is(1000L));
+        // after t seconds 1000 * t^2 messages are due, so message 250 is due half way through
+        assertThat(schedule.intendedSendTimeNanos(250), is(TimeUnit.MILLISECONDS.toNanos(500)));
+        assertThat(schedule.intendedSendTimeNanos(1) > schedule.intendedSendTimeNanos(999) - schedule.intendedSendTimeNanos(998), is(true));
+    }
+
+    @Test
+    public void shouldContinueFromOnePhaseIntoTheNext() {
+        final RateSchedule schedule = new RateSchedule().steps(100, 100, 3, 1, TimeUnit.SECONDS);
+
+        assertThat(schedule.getMessageCount(), is(600L));
+        assertThat(schedule.getDurationNanos(), is(TimeUnit.SECONDS.toNanos(3)));
+        assertThat(schedule.intendedSendTimeNanos(100), is(TimeUnit.SECONDS.toNanos(1)));
+        assertThat(schedule.intendedSendTimeNanos(101), is(TimeUnit.SECONDS.toNanos(1) + TimeUnit.MILLISECONDS.toNanos(5)));
+        assertThat(schedule.intendedSendTimeNanos(300), is(TimeUnit.SECONDS.toNanos(2)));
+    }
+
+    @Test
+    public void shouldSkipPhasesThatSendNothing() {
+        final RateSchedule schedule = new RateSchedule().burst(0, 1000, 10, 100, 2, TimeUnit.MILLISECONDS);
+
+        assertThat(schedule.getMessageCount(), is(20L));
+        assertThat(schedule.intendedSendTimeNanos(9), is(TimeUnit.MILLISECONDS.toNanos(9)));
+        assertThat(schedule.intendedSendTimeNanos(10), is(TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    public void shouldScaleEveryRate() {
+        final RateSchedule schedule = new RateSchedule().ramp(0, 2000, 1, TimeUnit.SECONDS).constant(2000, 1, TimeUnit.SECONDS).scaled(0.25);
+
+        assertThat(schedule.getMessageCount(), is(750L));
+        assertThat(schedule.getDurationNanos(), is(TimeUnit.SECONDS.toNanos(2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMessagesBeyondTheEndOfTheSchedule() {
+        new RateSchedule().constant(10, 1, TimeUnit.SECONDS).intendedSendTimeNanos(10);
+    }
+}
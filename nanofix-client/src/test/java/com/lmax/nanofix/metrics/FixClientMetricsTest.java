@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class FixClientMetricsTest {
+    private final FixClientMetrics metrics = new FixClientMetrics();
+
+    @Test
+    public void shouldCountReadsIncludingThoseThatReturnNoBytes() {
+        metrics.onRead(100);
+        metrics.onRead(0);
+        metrics.onRead(50);
+        metrics.onRead(-1);
+
+        assertThat(metrics.getReads(), is(4L));
+        assertThat(metrics.getBytesIn(), is(150L));
+        assertThat(metrics.getBytesPerRead(), is(37.5));
+    }
+
+    @Test
+    public void shouldReportZeroBytesPerReadBeforeAnyReads() {
+        assertThat(metrics.getBytesPerRead(), is(0.0));
+    }
+
+    @Test
+    public void shouldReadGaugesFromTheirOwners() {
+        metrics.bindGauges(() -> 5, () -> 3, () -> 2);
+
+        assertThat(metrics.getPausedNanos(), is(5L));
+        assertThat(metrics.getSendQueueDepth(), is(3L));
+        assertThat(metrics.getInboundDispatchOccupancy(), is(2L));
+    }
+
+    @Test
+    public void shouldExposeCountersOverJmx() throws Exception {
+        metrics.onMessageReceived();
+        metrics.onParseError();
+        metrics.onMessagesSent(3);
+        metrics.onBytesWritten(120);
+        metrics.registerMBean("metrics-test");
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = metrics.getObjectName();
+        try {
+            assertThat(objectName, is(new ObjectName("com.lmax.nanofix:type=FixClient,name=\"metrics-test\"")));
+            assertThat(mBeanServer.getAttribute(objectName, "MessagesIn"), is(1L));
+            assertThat(mBeanServer.getAttribute(objectName, "ParseErrors"), is(1L));
+            assertThat(mBeanServer.getAttribute(objectName, "MessagesOut"), is(3L));
+            assertThat(mBeanServer.getAttribute(objectName, "BytesOut"), is(120L));
+        } finally {
+            metrics.unregisterMBean();
+        }
+
+        assertThat(mBeanServer.isRegistered(objectName), is(false));
+        assertThat(metrics.getObjectName(), is(nullValue()));
+    }
+}
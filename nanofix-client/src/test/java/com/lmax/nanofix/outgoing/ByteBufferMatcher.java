@@ -32,18 +32,20 @@ public class ByteBufferMatcher extends TypeSafeMatcher<ByteBuffer> {
 
     @Override
     protected boolean matchesSafely(final ByteBuffer byteBuffer) {
-        int matchingAt = 0;
-        final byte[] array = byteBuffer.array();
+        int matchingAt = byteBuffer.position();
         for (FixMessage message : expected) {
-            final byte[] bytes = message.toFixString().getBytes();
+            final ByteBuffer bytes = message.buffer();
+            if (byteBuffer.limit() - matchingAt < bytes.remaining()) {
+                return false;
+            }
 
-            for (int j = 0; j < bytes.length; j++) {
-                if (bytes[j] != array[j + matchingAt]) {
+            for (int j = 0; j < bytes.remaining(); j++) {
+                if (bytes.get(j) != byteBuffer.get(j + matchingAt)) {
                     return false;
                 }
             }
 
-            matchingAt += bytes.length;
+            matchingAt += bytes.remaining();
         }
         return true;
     }
@@ -1,6 +1,8 @@
 package com.lmax.nanofix.outgoing;
 
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -71,4 +73,48 @@ public class FixMessageBuilderTest {
 
         assertThat(fixMessage.toFixString(), is("8=FIX.4.2\u00019=11\u000144=10.0000\u000110=237\u0001"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldCountBodyLengthAndChecksumInUtf8Bytes() {
+        final FixMessage fixMessage = new FixMessageBuilder().append(58, "\u00e9").build();
+
+        assertThat(fixMessage.toFixString(), is("8=FIX.4.4\u00019=6\u000158=\u00e9\u000110=229\u0001"));
+    }
+
+    @Test
+    public void shouldUseOverriddenMessageLengthAndChecksum() {
+        final FixMessage fixMessage = new FixMessageBuilder("FIX.4.2").overrideMessageLength("99").overrideChecksum("001").price("10.0000").build();
+
+        assertThat(fixMessage.toFixString(), is("8=FIX.4.2\u00019=99\u000144=10.0000\u000110=001\u0001"));
+    }
+
+    @Test
+    public void shouldBuildTimestampsFromEpochNanos() {
+        final long epochNanos = SENDING_TIME.toEpochSecond() * 1_000_000_000L + 123_456_789;
+        final FixMessage fixMessage = new FixMessageBuilder().sendingTime(epochNanos, TimestampPrecision.MICROS)
+                .transactionTime(epochNanos, TimestampPrecision.NANOS).build();
+
+        assertThat(fixMessage.toFixString(), is("8=FIX.4.4\u00019=59\u000152=20160102-03:04:00.123456\u000160=20160102-03:04:00.123456789\u000110=101\u0001"));
+    }
+
+    @Test
+    public void shouldBuildPriceAndQuantityFromMantissaAndScale() {
+        final FixMessage fixMessage = new FixMessageBuilder("FIX.4.2").price(100000, 4).orderQty(5, 2).build();
+
+        assertThat(fixMessage.toFixString(), is(new FixMessageBuilder("FIX.4.2").price("10.0000").append(38, "0.05").build().toFixString()));
+    }
+
+    @Test
+    public void shouldExposeEncodedBytesAsIndependentReadOnlyViews() {
+        final FixMessage fixMessage = new FixMessageBuilder("FIX.4.2").msgSeqNum(100).append(58, "\u00e9").build();
+
+        final ByteBuffer first = fixMessage.buffer();
+        final byte[] bytes = new byte[first.remaining()];
+        first.get(bytes);
+
+        assertThat(new String(bytes, StandardCharsets.UTF_8), is(fixMessage.toFixString()));
+        assertThat(fixMessage.length(), is(bytes.length));
+        assertThat(first.isReadOnly(), is(true));
+        assertThat(fixMessage.buffer().remaining(), is(bytes.length));
+    }
+}
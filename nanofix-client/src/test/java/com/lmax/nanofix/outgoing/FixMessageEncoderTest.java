@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.lmax.nanofix.fields.EncryptMethod;
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.fields.Side;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FixMessageEncoderTest {
+
+    private static final String SENDING_TIME = "20160102-03:04:00.000";
+
+    @Test
+    public void shouldEncodeSameMessageAsBuilder() {
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        new FixMessageEncoder().wrap(buffer).messageType(MsgType.LOGIN).senderCompID("SenderCompID").targetCompID("TargetCompId")
+                .append(98, EncryptMethod.NONE.getCode()).append(108, 1).msgSeqNum(1).append(52, SENDING_TIME).finish();
+
+        assertThat(asString(buffer), is("8=FIX.4.4\u00019=78\u000135=A\u0001" +
+                                        "49=SenderCompID\u000156=TargetCompId\u000198=0\u0001108=1\u000134=1\u000152=20160102-03:04:00.000\u000110=214\u0001"));
+    }
+
+    @Test
+    public void shouldEncodeOrderFieldsLikeBuilder() {
+        final FixMessage expected = new FixMessageBuilder("FIX.4.2").messageType(MsgType.NEW_ORDER_SINGLE).clOrdID("order-1")
+                .symbol("EURUSD").side(Side.Sell).orderQty(new BigDecimal("250")).price("1.12345").append(666666, "-42").build();
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        new FixMessageEncoder("FIX.4.2").wrap(buffer).messageType(MsgType.NEW_ORDER_SINGLE).clOrdID("order-1")
+                .symbol("EURUSD").side(Side.Sell).orderQty(250).price("1.12345").append(666666, -42).finish();
+
+        assertThat(asString(buffer), is(expected.toFixString()));
+    }
+
+    @Test
+    public void shouldEncodeDecimalsLikeBuilder() {
+        final FixMessage expected = new FixMessageBuilder("FIX.4.2").orderQty(new BigDecimal("0.05")).price(new BigDecimal("-1.12340")).build();
+
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+        new FixMessageEncoder("FIX.4.2").wrap(buffer).orderQty(5, 2).price(-112340, 5).finish();
+
+        assertThat(asString(buffer), is(expected.toFixString()));
+    }
+
+    @Test
+    public void shouldEncodeFromCurrentPositionOfBuffer() {
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.position(10);
+
+        new FixMessageEncoder("FIX.99").wrap(buffer).append(666666, "JunkData".getBytes(StandardCharsets.US_ASCII), 0, 8).finish();
+
+        assertThat(buffer.position() >= 10, is(true));
+        assertThat(asString(buffer), is("8=FIX.99\u00019=16\u0001666666=JunkData\u000110=111\u0001"));
+    }
+
+    @Test
+    public void shouldReuseOwnedBufferForEachMessage() {
+        final FixMessageEncoder encoder = new FixMessageEncoder("FIX.4.2", 128);
+
+        encoder.begin().append(123, "a much longer value than the next message").finish();
+        final ByteBuffer buffer = encoder.begin().msgSeqNum(100).append(123, "Y").append(35, "4").append(36, 10).finish();
+
+        assertThat(asString(buffer), is("8=FIX.4.2\u00019=24\u000134=100\u0001123=Y\u000135=4\u000136=10\u000110=065\u0001"));
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void shouldThrowWhenMessageDoesNotFitInBuffer() {
+        new FixMessageEncoder().wrap(ByteBuffer.allocate(32)).append(58, "this text will not fit in the buffer");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRequireBufferToBeginMessage() {
+        new FixMessageEncoder().begin();
+    }
+
+    @Test
+    public void shouldEncodeTimestampsLikeBuilder() {
+        final long epochNanos = 1_451_703_845_123_456_789L;
+        final FixMessage expected = new FixMessageBuilder().messageType(MsgType.NEW_ORDER_SINGLE).sendingTime(epochNanos, TimestampPrecision.MILLIS)
+                .transactionTime(epochNanos, TimestampPrecision.MICROS).build();
+
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+        new FixMessageEncoder().wrap(buffer).messageType(MsgType.NEW_ORDER_SINGLE).sendingTime(epochNanos, TimestampPrecision.MILLIS)
+                .transactTime(epochNanos, TimestampPrecision.MICROS).finish();
+
+        assertThat(asString(buffer), is(expected.toFixString()));
+    }
+
+    private static String asString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
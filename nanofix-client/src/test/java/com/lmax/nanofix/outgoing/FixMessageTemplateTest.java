@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.lmax.nanofix.fields.MsgType;
+import com.lmax.nanofix.fields.Side;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FixMessageTemplateTest {
+
+    @Test
+    public void shouldMatchBuilderOutputAfterFillingSlots() {
+        final FixMessageTemplate template = newOrderTemplate();
+        final int clOrdID = template.slot(11);
+        final int msgSeqNum = template.slot(34);
+        final int sendingTime = template.slot(52);
+        final int orderQty = template.slot(38);
+        final int price = template.slot(44);
+
+        for (int i = 1; i < 300; i += 37) {
+            template.putLong(clOrdID, i * 7919L)
+                    .putLong(msgSeqNum, i)
+                    .put(sendingTime, "20160102-03:04:" + (10 + i % 50) + ".123")
+                    .putLong(orderQty, 1000L * i)
+                    .putDecimal(price, 146909 + i, 5);
+
+            final String expected = new FixMessageBuilder()
+                    .messageType(MsgType.NEW_ORDER_SINGLE)
+                    .senderCompID("NANOFIX")
+                    .targetCompID("GATEWAY")
+                    .append(11, String.format("%012d", i * 7919L))
+                    .append(34, String.format("%08d", i))
+                    .append(52, "20160102-03:04:" + (10 + i % 50) + ".123")
+                    .symbol("EUR/USD")
+                    .side(Side.Buy)
+                    .append(38, String.format("%010d", 1000L * i))
+                    .append(44, String.format("%08.5f", (146909 + i) / 100000.0))
+                    .build().toFixString();
+            assertThat(template.toFixString(), is(expected));
+        }
+    }
+
+    @Test
+    public void shouldZeroPadNegativeAndWholeNumbers() {
+        final FixMessageTemplate template = new FixMessageBuilder().slot(44, 8).slot(38, 5).buildTemplate();
+
+        template.putDecimal(0, -125, 2).putLong(1, 42);
+
+        assertThat(template.toFixString(), is(new FixMessageBuilder().append(44, "-0001.25").append(38, "00042").build().toFixString()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectValuesWiderThanTheirSlot() {
+        new FixMessageBuilder().slot(34, 3).buildTemplate().putLong(0, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTextThatDoesNotFillTheSlot() {
+        new FixMessageBuilder().slot(11, 4).buildTemplate().put(0, "abc");
+    }
+
+    @Test
+    public void shouldKeepOverriddenChecksum() {
+        final FixMessageTemplate template = new FixMessageBuilder().slot(34, 2).overrideChecksum("999").buildTemplate();
+
+        template.putLong(0, 17);
+
+        assertThat(template.toFixString(), is("8=FIX.4.4\u00019=6\u000134=17\u000110=999\u0001"));
+    }
+
+    @Test
+    public void shouldExposeTheMessageAsABuffer() {
+        final FixMessageTemplate template = newOrderTemplate();
+        template.putLong(template.slot(34), 5);
+
+        final ByteBuffer buffer = template.buffer();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        assertThat(new String(bytes, StandardCharsets.US_ASCII), is(template.toFixString()));
+        assertThat(template.buffer().remaining(), is(template.length()));
+    }
+
+    private static FixMessageTemplate newOrderTemplate() {
+        return new FixMessageBuilder()
+                .messageType(MsgType.NEW_ORDER_SINGLE)
+                .senderCompID("NANOFIX")
+                .targetCompID("GATEWAY")
+                .slot(11, 12)
+                .slot(34, 8)
+                .slot(52, 21)
+                .symbol("EUR/USD")
+                .side(Side.Buy)
+                .slot(38, 10)
+                .slot(44, 8)
+                .buildTemplate();
+    }
+
+    @Test
+    public void shouldFillTimestampSlotsToTheirPrecision() {
+        final FixMessageTemplate template = new FixMessageBuilder().slot(52, 21).slot(60, 27).buildTemplate();
+        final long epochNanos = 1_451_703_845_123_456_789L;
+
+        template.putUtcTimestamp(0, epochNanos).putUtcTimestamp(1, epochNanos);
+
+        assertThat(template.toFixString(), is(new FixMessageBuilder().sendingTime(epochNanos, TimestampPrecision.MILLIS)
+                                                     .transactionTime(epochNanos, TimestampPrecision.NANOS).build().toFixString()));
+    }
+}
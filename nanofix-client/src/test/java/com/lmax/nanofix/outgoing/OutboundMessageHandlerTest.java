@@ -19,10 +19,12 @@ package com.lmax.nanofix.outgoing;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -34,11 +36,12 @@ import com.lmax.nanofix.transport.TransportClosedException;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
-import static org.mockito.hamcrest.MockitoHamcrest.argThat;
 
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -64,9 +67,40 @@ public class OutboundMessageHandlerTest {
                 .sendingTime(zonedDateTime.plusMinutes(1)).build();
 
         final List<FixMessage> expected = newArrayList(loginMessage, logoutMessage);
+        final List<ByteBuffer> written = new ArrayList<>();
+        given(writableByteChannel.write(any(ByteBuffer.class))).willAnswer(invocation ->
+        {
+            final ByteBuffer buffer = invocation.getArgument(0);
+            written.add(buffer.duplicate());
+            return consume(buffer);
+        });
         handler.send(expected);
 
-        verify(writableByteChannel).write(argThat(new ByteBufferMatcher(expected)));
+        assertThat(written.size(), is(1));
+        assertThat(written.get(0), new ByteBufferMatcher(expected));
+    }
+
+    @Test
+    public void shouldWriteEncodedBufferDirectlyToChannel() throws Exception {
+        final ByteBuffer buffer = new FixMessageEncoder().wrap(ByteBuffer.allocate(64)).messageType(MsgType.LOGOUT).msgSeqNum(2).finish();
+        given(writableByteChannel.write(any(ByteBuffer.class))).willAnswer(invocation -> consume(invocation.getArgument(0)));
+
+        handler.send(buffer);
+
+        verify(writableByteChannel).write(buffer);
+    }
+
+    @Test
+    public void shouldGatherMessagesAndResumePartialWrites() {
+        final TrickleGatheringByteChannel gatheringChannel = new TrickleGatheringByteChannel(7);
+        handler.initialiseOutboundChannel(gatheringChannel);
+        final FixMessage testRequest = new FixMessageBuilder().messageType(MsgType.TEST_REQUEST).msgSeqNum(1).build();
+        final FixMessage logout = new FixMessageBuilder().messageType(MsgType.LOGOUT).msgSeqNum(2).build();
+
+        handler.send(newArrayList(testRequest, logout));
+
+        assertThat(gatheringChannel.written.toString(), is(testRequest.toFixString() + logout.toFixString()));
+        assertThat(gatheringChannel.gatheringWrites > 1, is(true));
     }
 
     @Test(expected = TransportClosedException.class)
@@ -114,4 +148,64 @@ public class OutboundMessageHandlerTest {
             verify(writableByteChannel).close();
         }
     }
+
+    @Test(expected = TransportClosedException.class)
+    public void shouldCloseTheTransportWhenABlockingChannelAcceptsNoBytes() throws Exception {
+        given(writableByteChannel.write(any(ByteBuffer.class))).willReturn(0);
+
+        try {
+            handler.send(new FixMessageBuilder().build());
+        } finally {
+            verify(connectionObserver).connectionClosed();
+            verify(writableByteChannel).close();
+        }
+    }
+
+    private static int consume(final ByteBuffer buffer) {
+        final int remaining = buffer.remaining();
+        buffer.position(buffer.limit());
+        return remaining;
+    }
+
+    private static final class TrickleGatheringByteChannel implements GatheringByteChannel {
+        private final StringBuilder written = new StringBuilder();
+        private final int maxBytesPerWrite;
+        private int gatheringWrites;
+
+        TrickleGatheringByteChannel(final int maxBytesPerWrite) {
+            this.maxBytesPerWrite = maxBytesPerWrite;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int offset, final int length) {
+            gatheringWrites++;
+            int budget = maxBytesPerWrite;
+            for (int i = offset; i < offset + length && budget > 0; i++) {
+                while (srcs[i].hasRemaining() && budget > 0) {
+                    written.append((char)srcs[i].get());
+                    budget--;
+                }
+            }
+            return maxBytesPerWrite - budget;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(final ByteBuffer src) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.lmax.nanofix.transport.ConnectionObserver;
+import com.lmax.nanofix.transport.TransportClosedException;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OutboundSendQueueTest {
+
+    @Test
+    public void shouldReturnQueuedBytesAcrossTheEndOfTheRing() throws Exception {
+        final OutboundSendQueue queue = new OutboundSendQueue(10, SendQueueFullPolicy.FAIL);
+
+        queue.offer(bytes("abcdef"));
+        assertThat(drain(queue), is("abcdef"));
+
+        queue.offer(bytes("ghij"));
+        queue.offer(bytes("klm"));
+        assertThat(queue.getQueueDepth(), is(2L));
+        assertThat(queue.getBytesPending(), is(7L));
+
+        final ByteBuffer[] pending = queue.awaitPending();
+        assertThat(pending.length, is(2));
+        assertThat(asString(pending), is("ghijklm"));
+        queue.release();
+
+        assertThat(queue.getQueueDepth(), is(0L));
+        assertThat(queue.getBytesPending(), is(0L));
+    }
+
+    @Test
+    public void shouldDropMessagesThatDoNotFit() throws Exception {
+        final OutboundSendQueue queue = new OutboundSendQueue(8, SendQueueFullPolicy.DROP);
+
+        assertTrue(queue.offer(bytes("abcde")));
+        final ByteBuffer dropped = bytes("fghij");
+        assertFalse(queue.offer(dropped));
+
+        assertFalse(dropped.hasRemaining());
+        assertThat(queue.getMessagesDropped(), is(1L));
+        assertThat(queue.getQueueDepth(), is(1L));
+        assertThat(drain(queue), is("abcde"));
+    }
+
+    @Test
+    public void shouldFailToQueueMessagesThatDoNotFit() throws Exception {
+        final OutboundSendQueue queue = new OutboundSendQueue(8, SendQueueFullPolicy.FAIL);
+        queue.offer(bytes("abcde"));
+
+        try {
+            queue.offer(bytes("fghij"));
+            fail("Expected the send queue to be full");
+        } catch (final SendQueueFullException e) {
+            assertThat(queue.getBytesPending(), is(5L));
+        }
+    }
+
+    @Test
+    public void shouldQueueABatchWhollyOrNotAtAll() throws Exception {
+        final OutboundSendQueue queue = new OutboundSendQueue(10, SendQueueFullPolicy.DROP);
+        queue.offer(bytes("abcde"));
+
+        assertFalse(queue.offer(new ByteBuffer[]{bytes("fgh"), bytes("ijk")}));
+        assertThat(queue.getMessagesDropped(), is(2L));
+        assertThat(drain(queue), is("abcde"));
+
+        assertTrue(queue.offer(new ByteBuffer[]{bytes("fgh"), bytes("ijk")}));
+        assertThat(queue.getQueueDepth(), is(2L));
+        assertThat(drain(queue), is("fghijk"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMessagesLargerThanTheQueue() {
+        new OutboundSendQueue(4, SendQueueFullPolicy.BLOCK).offer(bytes("abcde"));
+    }
+
+    @Test
+    public void shouldBlockUntilTheWriterFreesSpace() throws Exception {
+        final OutboundSendQueue queue = new OutboundSendQueue(8, SendQueueFullPolicy.BLOCK);
+        queue.offer(bytes("abcde"));
+
+        final CountDownLatch queued = new CountDownLatch(1);
+        final Thread sender = new Thread(() ->
+        {
+            queue.offer(bytes("fghij"));
+            queued.countDown();
+        });
+        sender.start();
+
+        assertFalse(queued.await(50, TimeUnit.MILLISECONDS));
+        assertThat(drain(queue), is("abcde"));
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        assertThat(drain(queue), is("fghij"));
+    }
+
+    @Test
+    public void shouldDropAMessageWhenInterruptedWaitingForSpace() throws Exception {
+        final OutboundSendQueue queue = new OutboundSendQueue(8, SendQueueFullPolicy.BLOCK);
+        queue.offer(bytes("abcde"));
+
+        final AtomicBoolean queued = new AtomicBoolean(true);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final Thread sender = new Thread(() ->
+        {
+            queued.set(queue.offer(bytes("fghij")));
+            finished.countDown();
+        });
+        sender.start();
+
+        assertFalse(finished.await(50, TimeUnit.MILLISECONDS));
+        sender.interrupt();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertFalse(queued.get());
+        assertThat(queue.getMessagesDropped(), is(1L));
+    }
+
+    @Test
+    public void shouldRefuseASenderWaitingForSpaceWhenStopped() throws Exception {
+        final Pipe pipe = Pipe.open();
+        final OutboundSendQueue queue = new OutboundSendQueue(8, SendQueueFullPolicy.BLOCK);
+        final OutboundMessageHandler handler = new OutboundMessageHandler(new NoOpConnectionObserver(), queue, new WriterThreadFactory());
+        handler.initialiseOutboundChannel(pipe.sink());
+        handler.send("abcde");
+
+        final AtomicReference<TransportClosedException> refused = new AtomicReference<>();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final Thread sender = new Thread(() ->
+        {
+            try {
+                handler.send("fghij");
+            } catch (final TransportClosedException e) {
+                refused.set(e);
+            }
+            finished.countDown();
+        });
+        sender.start();
+
+        assertFalse(finished.await(50, TimeUnit.MILLISECONDS));
+        handler.stop();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertNotNull(refused.get());
+    }
+
+    @Test
+    public void shouldWriteQueuedMessagesOnTheWriterThread() throws Exception {
+        final Pipe pipe = Pipe.open();
+        final OutboundSendQueue queue = new OutboundSendQueue(64, SendQueueFullPolicy.BLOCK);
+        final WriterThreadFactory threadFactory = new WriterThreadFactory();
+        final OutboundMessageHandler handler = new OutboundMessageHandler(new NoOpConnectionObserver(), queue, threadFactory);
+        handler.initialiseOutboundChannel(pipe.sink());
+        handler.start();
+
+        assertTrue(handler.trySend(bytes("first|")));
+        assertTrue(handler.trySend(new ByteBuffer[]{bytes("second|"), bytes("third|")}));
+
+        assertThat(read(pipe, 19), is("first|second|third|"));
+        handler.stop();
+        assertFalse(threadFactory.thread.isAlive());
+    }
+
+    @Test
+    public void shouldKeepWritingAfterAnUnexpectedFailure() throws Exception {
+        final Pipe pipe = Pipe.open();
+        final OutboundSendQueue queue = new OutboundSendQueue(64, SendQueueFullPolicy.BLOCK);
+        final OutboundMessageHandler handler = new OutboundMessageHandler(new NoOpConnectionObserver(), queue, new WriterThreadFactory());
+        final AtomicBoolean failNextWrite = new AtomicBoolean(true);
+        handler.initialiseOutboundChannel(new WritableByteChannel() {
+            @Override
+            public int write(final ByteBuffer src) throws IOException {
+                if (failNextWrite.getAndSet(false)) {
+                    throw new IllegalStateException("Unexpected");
+                }
+                return pipe.sink().write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        handler.start();
+
+        handler.send("lost|");
+        while (failNextWrite.get()) {
+            Thread.yield();
+        }
+        handler.send("written|");
+
+        assertThat(read(pipe, 8), is("written|"));
+        handler.stop();
+    }
+
+    @Test
+    public void shouldRefuseSendsAfterAWriteFailureUntilANewChannelIsInitialised() throws Exception {
+        final Pipe pipe = Pipe.open();
+        final OutboundSendQueue queue = new OutboundSendQueue(64, SendQueueFullPolicy.BLOCK);
+        final AtomicInteger closes = new AtomicInteger();
+        final WriterThreadFactory threadFactory = new WriterThreadFactory();
+        final OutboundMessageHandler handler = new OutboundMessageHandler(new ConnectionObserver() {
+            @Override
+            public void connectionEstablished() {
+            }
+
+            @Override
+            public void connectionClosed() {
+                closes.incrementAndGet();
+            }
+        }, queue, threadFactory);
+        handler.initialiseOutboundChannel(new WritableByteChannel() {
+            @Override
+            public int write(final ByteBuffer src) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        handler.send("first|");
+        handler.send("second|");
+        handler.start();
+
+        while (closes.get() == 0 || threadFactory.thread.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+        try {
+            handler.send("refused|");
+            fail("Expected sends to be refused after the write failure");
+        } catch (final TransportClosedException e) {
+            assertThat(closes.get(), is(1));
+        }
+
+        handler.initialiseOutboundChannel(pipe.sink());
+        handler.send("written|");
+
+        assertThat(read(pipe, 8), is("written|"));
+        handler.stop();
+    }
+
+    private static String read(final Pipe pipe, final int length) throws IOException {
+        final ByteBuffer received = ByteBuffer.allocate(length);
+        while (received.hasRemaining()) {
+            pipe.source().read(received);
+        }
+        return new String(received.array(), StandardCharsets.US_ASCII);
+    }
+
+    private static String drain(final OutboundSendQueue queue) throws InterruptedException {
+        final String pending = asString(queue.awaitPending());
+        queue.release();
+        return pending;
+    }
+
+    private static String asString(final ByteBuffer[] buffers) {
+        final StringBuilder builder = new StringBuilder();
+        for (final ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                builder.append((char)buffer.get());
+            }
+        }
+        return builder.toString();
+    }
+
+    private static ByteBuffer bytes(final String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static final class WriterThreadFactory implements ThreadFactory {
+        private volatile Thread thread;
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            thread = new Thread(runnable, "outboundWriter");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static final class NoOpConnectionObserver implements ConnectionObserver {
+        @Override
+        public void connectionEstablished() {
+        }
+
+        @Override
+        public void connectionClosed() {
+        }
+    }
+}
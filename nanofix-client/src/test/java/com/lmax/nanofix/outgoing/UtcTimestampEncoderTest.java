@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lmax.nanofix.outgoing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class UtcTimestampEncoderTest {
+    private static final DateTimeFormatter NANOS_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss.SSSSSSSSS").withZone(ZoneOffset.UTC);
+
+    private final UtcTimestampEncoder encoder = new UtcTimestampEncoder();
+    private final byte[] buffer = new byte[32];
+
+    @Test
+    public void shouldEncodeEachPrecision() {
+        final long epochNanos = Instant.parse("2016-01-02T03:04:05.123456789Z").getEpochSecond() * 1_000_000_000L + 123_456_789;
+
+        assertThat(encode(epochNanos, TimestampPrecision.MILLIS), is("20160102-03:04:05.123"));
+        assertThat(encode(epochNanos, TimestampPrecision.MICROS), is("20160102-03:04:05.123456"));
+        assertThat(encode(epochNanos, TimestampPrecision.NANOS), is("20160102-03:04:05.123456789"));
+    }
+
+    @Test
+    public void shouldEncodeEpochMillis() {
+        final int length = encoder.encodeEpochMillis(Instant.parse("1998-12-31T23:58:59.007Z").toEpochMilli(), TimestampPrecision.MILLIS, buffer, 3);
+
+        assertThat(new String(buffer, 3, length, StandardCharsets.US_ASCII), is("19981231-23:58:59.007"));
+    }
+
+    @Test
+    public void shouldMatchFormatterAcrossSecondAndDayBoundaries() {
+        final long start = Instant.parse("2000-02-28T23:59:58Z").getEpochSecond() * 1_000_000_000L;
+        for (long offset = 0; offset < 4 * 86_400_000_000_000L; offset += 999_999_937L * 61) {
+            assertMatchesFormatter(start + offset);
+        }
+    }
+
+    @Test
+    public void shouldMatchFormatterForRandomTimestamps() {
+        final Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            assertMatchesFormatter(random.nextLong());
+        }
+    }
+
+    @Test
+    public void shouldEncodeIntoByteBufferWithoutMovingPosition() {
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(32);
+        final long epochNanos = Instant.parse("2100-03-01T00:00:00.5Z").getEpochSecond() * 1_000_000_000L + 500_000_000;
+
+        final int length = encoder.encodeEpochNanos(epochNanos, TimestampPrecision.MICROS, byteBuffer, 4);
+
+        assertThat(byteBuffer.position(), is(0));
+        final byte[] bytes = new byte[length];
+        byteBuffer.position(4);
+        byteBuffer.get(bytes);
+        assertThat(new String(bytes, StandardCharsets.US_ASCII), is("21000301-00:00:00.500000"));
+    }
+
+    private void assertMatchesFormatter(final long epochNanos) {
+        final Instant instant = Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L));
+        assertThat(encode(epochNanos, TimestampPrecision.NANOS), is(NANOS_FORMATTER.format(instant)));
+    }
+
+    private String encode(final long epochNanos, final TimestampPrecision precision) {
+        final int length = encoder.encodeEpochNanos(epochNanos, precision, buffer, 0);
+        return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+    }
+}